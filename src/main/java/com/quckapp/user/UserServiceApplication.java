@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * QuckApp User Service - Spring Boot Application
@@ -15,11 +16,12 @@ import org.springframework.scheduling.annotation.EnableAsync;
  * - Preferences management
  * - User search
  * - Caching with Redis
- * - Event publishing to Kafka
+ * - Event publishing to Kafka through a transactional outbox
  */
 @SpringBootApplication
 @EnableJpaAuditing
 @EnableAsync
+@EnableScheduling
 @EnableCaching
 public class UserServiceApplication {
 
@@ -0,0 +1,49 @@
+package com.quckapp.user.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts near-cache invalidations over Redis pub/sub.
+ *
+ * Messages are tab-separated: {@code <instanceId> <cacheName> <op> <key>}. The
+ * instance id lets each subscriber ignore the messages it published itself.
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    public static final String CHANNEL = "quckapp:user-service:cache-invalidation";
+
+    static final String OP_EVICT = "evict";
+    static final String OP_CLEAR = "clear";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(cacheName, OP_EVICT, key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(cacheName, OP_CLEAR, "");
+    }
+
+    private void publish(String cacheName, String op, String key) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, String.join("\t", instanceId, cacheName, op, key));
+        } catch (Exception e) {
+            // L1 entries still expire on their own TTL, so a lost invalidation only widens the staleness window
+            log.warn("Failed to publish cache invalidation for {}::{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+}
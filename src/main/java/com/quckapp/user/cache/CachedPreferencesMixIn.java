@@ -0,0 +1,21 @@
+package com.quckapp.user.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Cached form of {@link com.quckapp.user.dto.UserDtos.PreferencesResponse}: its fields
+ * only, so the on/off preferences are stored as the single {@code flags} int rather
+ * than the boolean properties the API shows. Entries written with the booleans are
+ * still read through the response's any-setter.
+ */
+@JsonAutoDetect(fieldVisibility = Visibility.ANY, getterVisibility = Visibility.NONE,
+                isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
+public abstract class CachedPreferencesMixIn {
+
+    @JsonIgnore(false)
+    @JsonProperty("flags")
+    private int flags;
+}
@@ -0,0 +1,163 @@
+package com.quckapp.user.cache;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileParser;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Binary serializer for cache values: a Smile body instead of JSON text, a one-byte
+ * type id instead of an {@code @class} name, and LZ4 for bodies above a threshold.
+ *
+ * Layout: format version, flags, type id, then for versioned types the row version
+ * as 8 big-endian bytes (read by the conditional-SET Lua scripts), then the body,
+ * prefixed with its uncompressed length when compressed.
+ *
+ * Legacy JSON entries are always readable and unregistered types are written as
+ * JSON, so {@code writeCompact} can be flipped on a live cache. Entries with an
+ * unknown format version or type id read as misses instead of failing, so an
+ * instance never breaks on an entry written by a newer build.
+ */
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+
+    static final byte FORMAT_V1 = 0x01;
+    static final int FLAG_LZ4 = 0x01;
+    static final int FLAG_VERSIONED = 0x02;
+    /** Format versions stay below the first byte legacy JSON can start with */
+    private static final byte MAX_FORMAT_VERSION = 0x08;
+    private static final int HEADER_LENGTH = 3;
+
+    private final CachedType<?>[] typesById = new CachedType<?>[256];
+    private final Map<Class<?>, CachedType<?>> typesByClass = new HashMap<>();
+    private final int compressionThreshold;
+    private final boolean writeCompact;
+    private final RedisSerializer<Object> legacySerializer;
+    private final ObjectMapper smileMapper;
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    public CompactCacheSerializer(List<CachedType<?>> types, int compressionThreshold, boolean writeCompact,
+                                  RedisSerializer<Object> legacySerializer) {
+        for (CachedType<?> type : types) {
+            if (type.id() < 1 || type.id() > 255 || typesById[type.id()] != null) {
+                throw new IllegalArgumentException("Invalid or duplicate cache type id " + type.id());
+            }
+            typesById[type.id()] = type;
+            typesByClass.put(type.type(), type);
+        }
+        this.compressionThreshold = compressionThreshold;
+        this.writeCompact = writeCompact;
+        this.legacySerializer = legacySerializer;
+        SmileMapper.Builder mapper = SmileMapper.builder(SmileFactory.builder()
+                .disable(SmileGenerator.Feature.WRITE_HEADER)
+                .disable(SmileParser.Feature.REQUIRE_HEADER)
+                .build())
+            .addModule(new JavaTimeModule())
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        for (CachedType<?> type : types) {
+            if (type.mixIn() != null) mapper.addMixIn(type.type(), type.mixIn());
+        }
+        this.smileMapper = mapper.build();
+    }
+
+    @Override
+    public byte[] serialize(Object value) {
+        if (value == null) return new byte[0];
+        CachedType<?> type = typesByClass.get(value.getClass());
+        if (!writeCompact || type == null) return legacySerializer.serialize(value);
+
+        byte[] body;
+        try {
+            body = smileMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write " + value.getClass().getSimpleName(), e);
+        }
+        int flags = 0;
+        if (body.length >= compressionThreshold) {
+            byte[] compressed = compress(body);
+            if (compressed.length < body.length) {
+                body = compressed;
+                flags |= FLAG_LZ4;
+            }
+        }
+        boolean versioned = type.version() != null;
+        if (versioned) flags |= FLAG_VERSIONED;
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_LENGTH + (versioned ? Long.BYTES : 0) + body.length);
+        out.put(FORMAT_V1).put((byte) flags).put((byte) type.id());
+        if (versioned) out.putLong(type.versionOf(value));
+        return out.put(body).array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) return null;
+        if (bytes[0] > MAX_FORMAT_VERSION || bytes[0] < 0) return legacySerializer.deserialize(bytes);
+        if (bytes[0] != FORMAT_V1 || bytes.length < HEADER_LENGTH) return null;
+
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        in.get();
+        int flags = in.get();
+        CachedType<?> type = typesById[in.get() & 0xFF];
+        if (type == null) return null;
+        if ((flags & FLAG_VERSIONED) != 0) in.getLong();
+        try {
+            if ((flags & FLAG_LZ4) == 0) return smileMapper.readValue(bytes, in.position(), in.remaining(), type.type());
+            byte[] body = new byte[in.getInt()];
+            decompressor.decompress(bytes, in.position(), body, 0, body.length);
+            return smileMapper.readValue(body, type.type());
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Could not read cached " + type.type().getSimpleName(), e);
+        }
+    }
+
+    private byte[] compress(byte[] body) {
+        int maxLength = compressor.maxCompressedLength(body.length);
+        byte[] out = new byte[Integer.BYTES + maxLength];
+        ByteBuffer.wrap(out).putInt(body.length);
+        int length = compressor.compress(body, 0, body.length, out, Integer.BYTES, maxLength);
+        return Arrays.copyOf(out, Integer.BYTES + length);
+    }
+
+    /**
+     * A cacheable type and its id. Ids are stored in Redis: never renumber or reuse one.
+     * Versioned types carry the row version in the header for the conditional SET.
+     * A Jackson mix-in, if set, shapes the cached form independently of the API form.
+     */
+    public record CachedType<T>(int id, Class<T> type, ToLongFunction<T> version, Class<?> mixIn) {
+
+        public static <T> CachedType<T> of(int id, Class<T> type) {
+            return new CachedType<>(id, type, null, null);
+        }
+
+        public static <T> CachedType<T> versioned(int id, Class<T> type, ToLongFunction<T> version) {
+            return new CachedType<>(id, type, version, null);
+        }
+
+        public CachedType<T> withMixIn(Class<?> mixIn) {
+            return new CachedType<>(id, type, version, mixIn);
+        }
+
+        long versionOf(Object value) {
+            return version.applyAsLong(type.cast(value));
+        }
+    }
+}
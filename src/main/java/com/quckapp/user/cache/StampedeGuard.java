@@ -0,0 +1,195 @@
+package com.quckapp.user.cache;
+
+import com.quckapp.user.cache.TwoTierCacheManager.StampedeSpec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-instance half of stampede protection for a {@link TwoTierCache}.
+ *
+ * A miss takes a short Redis lease ({@code SET NX PX}) before loading, so one
+ * instance queries the database per key while the others poll L2 briefly for the
+ * value it writes. Hits are refreshed early with a probability that rises as the
+ * L2 entry nears expiry (XFetch: refresh once {@code now - delta * beta * ln(rand)}
+ * passes the expiry, where delta is the average load time of the cache).
+ * Redis failures degrade to loading without a lease.
+ */
+@Slf4j
+class StampedeGuard {
+
+    private static final long POLL_INTERVAL_MILLIS = 20;
+    private static final double LOAD_TIME_WEIGHT = 0.2;
+
+    /** KEYS[1] = lease, ARGV[1] = owner. Releases the lease only if this instance still holds it. */
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+        if redis.call('GET', KEYS[1]) == ARGV[1] then
+          return redis.call('DEL', KEYS[1])
+        end
+        return 0
+        """, Long.class);
+
+    /**
+     * KEYS[1] = entry, ARGV = serialized value, TTL millis, remaining TTL millis seen before loading.
+     * Any other write resets the TTL, so a higher remaining TTL means the entry changed and is kept.
+     */
+    private static final RedisScript<Long> REPLACE_IF_UNCHANGED = new DefaultRedisScript<>("""
+        local remaining = redis.call('PTTL', KEYS[1])
+        if remaining == -2 or (remaining >= 0 and remaining <= tonumber(ARGV[3])) then
+          redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+          return 1
+        end
+        return 0
+        """, Long.class);
+
+    private final String cacheName;
+    private final StampedeSpec spec;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisSerializer<Object> valueSerializer;
+    private final Executor refreshExecutor;
+    private final String owner;
+    private final Counter leasesContended;
+    private final Counter earlyRefreshes;
+
+    private volatile double averageLoadMillis;
+
+    StampedeGuard(String cacheName, StampedeSpec spec, StringRedisTemplate redisTemplate,
+                  RedisSerializer<Object> valueSerializer, Executor refreshExecutor, String owner,
+                  MeterRegistry meterRegistry) {
+        this.cacheName = cacheName;
+        this.spec = spec;
+        this.redisTemplate = redisTemplate;
+        this.valueSerializer = valueSerializer;
+        this.refreshExecutor = refreshExecutor;
+        this.owner = owner;
+        this.leasesContended = Counter.builder("cache.stampede.leases")
+            .tags("cache", cacheName, "result", "contended").register(meterRegistry);
+        this.earlyRefreshes = Counter.builder("cache.stampede.refreshes")
+            .tags("cache", cacheName).register(meterRegistry);
+    }
+
+    boolean tryLease(Object key) {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(leaseKey(key), owner, spec.leaseTtl()))) {
+                return true;
+            }
+            leasesContended.increment();
+            return false;
+        } catch (RuntimeException e) {
+            log.debug("Lease on {} failed, loading without it: {}", redisKey(key), e.getMessage());
+            return true;
+        }
+    }
+
+    void releaseLease(Object key) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(leaseKey(key)), owner);
+        } catch (RuntimeException e) {
+            log.debug("Release of lease on {} failed, it expires on its own: {}", redisKey(key), e.getMessage());
+        }
+    }
+
+    /**
+     * Poll L2 for the value the lease holder is loading. Returns null once the
+     * wait runs out, or as soon as the lease is released without a fill (the key
+     * resolved to nothing), and the caller loads the value itself.
+     */
+    Object awaitFill(Cache remoteCache, Object key) {
+        long deadline = System.nanoTime() + spec.leaseWait().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            Cache.ValueWrapper filled = remoteCache.get(key);
+            if (filled != null && filled.get() != null) return filled.get();
+            if (!leaseHeld(key)) return null;
+        }
+        return null;
+    }
+
+    private boolean leaseHeld(Object key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(leaseKey(key)));
+        } catch (RuntimeException e) {
+            log.debug("Lease check on {} failed, still waiting: {}", redisKey(key), e.getMessage());
+            return true;
+        }
+    }
+
+    /** Epoch millis at which the L2 entry expires, or 0 when it is missing or unknown */
+    long remoteExpiry(Object key) {
+        try {
+            Long ttl = redisTemplate.getExpire(redisKey(key), TimeUnit.MILLISECONDS);
+            return ttl != null && ttl > 0 ? System.currentTimeMillis() + ttl : 0;
+        } catch (RuntimeException e) {
+            log.debug("TTL read of {} failed: {}", redisKey(key), e.getMessage());
+            return 0;
+        }
+    }
+
+    /** Expiry of an L2 entry written now */
+    long freshExpiry() {
+        return System.currentTimeMillis() + spec.remoteTtl().toMillis();
+    }
+
+    boolean shouldRefreshEarly(long expiresAt) {
+        if (expiresAt <= 0) return false;
+        double gap = -averageLoadMillis * spec.beta() * Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= expiresAt;
+    }
+
+    void recordLoad(long nanos) {
+        double millis = nanos / 1_000_000.0;
+        double average = averageLoadMillis;
+        averageLoadMillis = average == 0 ? millis : average + LOAD_TIME_WEIGHT * (millis - average);
+    }
+
+    /**
+     * Write a refreshed value unless the entry was rewritten since {@code observedExpiry}
+     * was read, so a refresh never replaces a newer write-through.
+     */
+    boolean replaceIfUnchanged(Object key, Object value, long observedExpiry) {
+        long remaining = observedExpiry > 0 ? observedExpiry - System.currentTimeMillis() : 0;
+        try {
+            Long applied = redisTemplate.execute(REPLACE_IF_UNCHANGED, RedisSerializer.byteArray(), UserCache.SCRIPT_RESULT,
+                List.of(redisKey(key)), valueSerializer.serialize(value),
+                bytes(spec.remoteTtl().toMillis()), bytes(remaining));
+            if (applied == null || applied != 1) return false;
+            earlyRefreshes.increment();
+            return true;
+        } catch (RuntimeException e) {
+            log.debug("Refresh of {} failed: {}", redisKey(key), e.getMessage());
+            return false;
+        }
+    }
+
+    void execute(Runnable refresh) {
+        refreshExecutor.execute(refresh);
+    }
+
+    private static byte[] bytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    String redisKey(Object key) {
+        return cacheName + "::" + TwoTierCache.localKey(key);
+    }
+
+    private String leaseKey(Object key) {
+        return "lease:" + redisKey(key);
+    }
+}
@@ -0,0 +1,421 @@
+package com.quckapp.user.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Near cache in front of a Redis cache.
+ *
+ * Reads are served from a size-bounded in-process Caffeine cache (L1) and fall
+ * through to Redis (L2). Every write or eviction is applied to both tiers and
+ * broadcast so other instances drop their L1 copy of the key. Negative caches
+ * only ever hold one marker value per key, so no instance can have a conflicting
+ * copy; their writes are not broadcast, only their evictions.
+ *
+ * Loads through {@link #get(Object, Callable)} run once per key on an instance,
+ * on the first caller's thread and outside Caffeine, so a slow load or lease wait
+ * never blocks reads of other keys. Other callers wait for it at most
+ * {@code loadWait}, then load for themselves. With a {@link StampedeGuard} they also take a
+ * Redis lease so one instance loads per key, and hot entries are refreshed in the
+ * background before their L2 entry expires. Refreshes run the loader registered
+ * with {@link #setRefreshLoader}, never the caller's {@code valueLoader}, which may
+ * only be valid for the call that passed it. Loaded values are added to L2 only if
+ * absent, so a load never replaces an entry written while it ran.
+ *
+ * Values read from L2 are copied into L1 only if the key was not written or
+ * invalidated while they were read (see {@link #fillLocal}); otherwise an
+ * invalidation racing the read could leave the old value in L1 until it expires.
+ */
+@Slf4j
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private static final int GENERATION_STRIPES = 256;
+    private static final Duration DEFAULT_LOAD_WAIT = Duration.ofSeconds(2);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> localCache;
+    private final Cache remoteCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final StampedeGuard stampedeGuard;
+    private final boolean negative;
+    private final long loadWaitNanos;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    private volatile Function<Object, ?> refreshLoader;
+
+    /** Per-stripe counts of local writes and invalidations, plus one for clears */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong clears = new AtomicLong();
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadWaitTimeouts = new LongAdder();
+
+    public TwoTierCache(String name,
+                        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+                        Cache remoteCache,
+                        CacheInvalidationPublisher invalidationPublisher,
+                        MeterRegistry meterRegistry) {
+        this(name, localCache, remoteCache, invalidationPublisher, null, false, DEFAULT_LOAD_WAIT, meterRegistry);
+    }
+
+    TwoTierCache(String name,
+                 com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+                 Cache remoteCache,
+                 CacheInvalidationPublisher invalidationPublisher,
+                 StampedeGuard stampedeGuard,
+                 boolean negative,
+                 Duration loadWait,
+                 MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.stampedeGuard = stampedeGuard;
+        this.negative = negative;
+        this.loadWaitNanos = loadWait.toNanos();
+        registerMetrics(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object value = localCache.getIfPresent(localKey);
+        if (value != null) {
+            l1Hits.increment();
+            return unwrap(value);
+        }
+        long generation = generation(localKey);
+        ValueWrapper remote = remoteCache.get(key);
+        if (remote != null && remote.get() != null) {
+            l2Hits.increment();
+            fillLocal(localKey, remote.get(), generation);
+            return remote.get();
+        }
+        misses.increment();
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object cached = localCache.getIfPresent(localKey);
+        if (cached != null) {
+            l1Hits.increment();
+            if (cached instanceof Expiring entry && refreshLoader != null && stampedeGuard.shouldRefreshEarly(entry.expiresAt())) {
+                refreshAsync(key, entry);
+            }
+            return (T) fromStoreValue(unwrap(cached));
+        }
+        return (T) fromStoreValue(unwrap(loadOnce(key, localKey, valueLoader)));
+    }
+
+    /** Concurrent misses on this instance wait for the first caller's load instead of starting their own */
+    private Object loadOnce(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(localKey, load);
+        if (inFlight != null) return awaitLoad(inFlight, key, valueLoader);
+        try {
+            long generation = generation(localKey);
+            // A load that finished between the L1 miss and registering this one has already filled L1
+            Object loaded = localCache.getIfPresent(localKey);
+            if (loaded == null) {
+                loaded = loadThrough(key, valueLoader);
+                if (loaded != null) fillLocal(localKey, loaded, generation);
+            }
+            load.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(localKey, load);
+        }
+    }
+
+    /** The first caller's result, or a load of our own (not copied into L1) if it is not done within loadWait */
+    private Object awaitLoad(CompletableFuture<Object> load, Object key, Callable<?> valueLoader) {
+        try {
+            return load.get(loadWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            loadWaitTimeouts.increment();
+            log.warn("Load of {}::{} did not finish within {} ms, loading directly", name, key, loadWaitNanos / 1_000_000);
+            return loadThrough(key, valueLoader);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a load of " + name + "::" + key, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Object loadThrough(Object key, Callable<?> valueLoader) {
+        ValueWrapper remote = remoteCache.get(key);
+        if (remote != null && remote.get() != null) {
+            l2Hits.increment();
+            return stampedeGuard != null ? new Expiring(remote.get(), stampedeGuard.remoteExpiry(key)) : remote.get();
+        }
+        misses.increment();
+        if (stampedeGuard == null) return fill(key, load(key, valueLoader));
+
+        boolean leased = stampedeGuard.tryLease(key);
+        try {
+            if (!leased) {
+                Object filled = stampedeGuard.awaitFill(remoteCache, key);
+                if (filled != null) return new Expiring(filled, stampedeGuard.remoteExpiry(key));
+            }
+            Object loaded = fill(key, load(key, valueLoader));
+            return loaded != null ? new Expiring(loaded, stampedeGuard.freshExpiry()) : null;
+        } finally {
+            if (leased) stampedeGuard.releaseLease(key);
+        }
+    }
+
+    /** Add a loaded value to L2 unless another writer got there first, and keep whichever value won */
+    private Object fill(Object key, Object loaded) {
+        if (loaded == null) return null;
+        ValueWrapper existing = remoteCache.putIfAbsent(key, loaded);
+        return existing != null && existing.get() != null ? existing.get() : loaded;
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            if (stampedeGuard != null) stampedeGuard.recordLoad(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Loader for early refreshes of this cache's hot entries, called with the cache key on a
+     * refresh thread. Without one, entries are not refreshed early and load again on expiry.
+     */
+    void setRefreshLoader(Function<Object, ?> refreshLoader) {
+        this.refreshLoader = refreshLoader;
+    }
+
+    /** Reload a hot entry off the request thread; at most one refresh per key runs on an instance */
+    private void refreshAsync(Object key, Expiring stale) {
+        String localKey = localKey(key);
+        if (!refreshing.add(localKey)) return;
+        try {
+            stampedeGuard.execute(() -> {
+                try {
+                    refresh(key, stale);
+                } catch (RuntimeException e) {
+                    log.debug("Early refresh of {}::{} failed: {}", name, localKey, e.getMessage());
+                } finally {
+                    refreshing.remove(localKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(localKey);
+        }
+    }
+
+    private void refresh(Object key, Expiring stale) {
+        String localKey = localKey(key);
+        long generation = generation(localKey);
+        long expiresAt = stampedeGuard.remoteExpiry(key);
+        if (expiresAt > stale.expiresAt()) {
+            // Another instance already refreshed or rewrote the entry; adopt its copy
+            ValueWrapper remote = remoteCache.get(key);
+            if (remote != null && remote.get() != null) fillLocal(localKey, new Expiring(remote.get(), expiresAt), generation);
+            return;
+        }
+        if (!stampedeGuard.tryLease(key)) return;
+        try {
+            Function<Object, ?> loader = refreshLoader;
+            Object loaded = load(key, () -> loader.apply(key));
+            if (loaded != null && stampedeGuard.replaceIfUnchanged(key, loaded, expiresAt)) {
+                fillLocal(localKey, new Expiring(loaded, stampedeGuard.freshExpiry()), generation);
+            }
+        } finally {
+            stampedeGuard.releaseLease(key);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        remoteCache.put(key, value);
+        putLocal(key, value);
+        if (!negative) invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remoteCache.putIfAbsent(key, value);
+        if (existing == null || existing.get() == null) {
+            putLocal(key, value);
+            if (!negative) invalidationPublisher.publishEvict(name, localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        evictLocal(localKey(key));
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        clearLocal();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /**
+     * Read L1 only, for bulk readers that fetch the remaining keys from L2 themselves.
+     */
+    Object getLocal(Object key) {
+        Object value = localCache.getIfPresent(localKey(key));
+        if (value != null) l1Hits.increment();
+        return unwrap(value);
+    }
+
+    /**
+     * Populate L1 with a value that was just written to L2, without broadcasting.
+     */
+    void putLocal(Object key, Object value) {
+        String localKey = localKey(key);
+        bump(localKey);
+        localCache.put(localKey, value);
+    }
+
+    /**
+     * Generation of a key, to be taken before reading it from L2 and passed to {@link #fillLocal}.
+     */
+    long generation(Object key) {
+        return generation(localKey(key));
+    }
+
+    /**
+     * Populate L1 with a value read from L2, without broadcasting, unless the key was written or
+     * invalidated since {@code generation} was taken: the value read may be older than L2 by now.
+     */
+    void fillLocal(Object key, Object value, long generation) {
+        fillLocal(localKey(key), value, generation);
+    }
+
+    private void fillLocal(String localKey, Object value, long generation) {
+        if (generation(localKey) != generation) return;
+        localCache.put(localKey, value);
+        // An invalidation between the check and the put has already run; take our copy back out
+        if (generation(localKey) != generation) localCache.asMap().remove(localKey, value);
+    }
+
+    /**
+     * Drop a key from L1 here and on every other instance, for callers that removed it from L2 themselves.
+     */
+    void evictNear(Object key) {
+        evictLocal(localKey(key));
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    /**
+     * Drop a key from L1 only, in response to an invalidation from another instance.
+     */
+    void evictLocal(String key) {
+        bump(key);
+        localCache.invalidate(key);
+    }
+
+    /**
+     * Drop all L1 entries, in response to a clear on another instance.
+     */
+    void clearLocal() {
+        clears.incrementAndGet();
+        localCache.invalidateAll();
+    }
+
+    /** Both counters only grow, so any write, invalidation or clear changes the sum */
+    private long generation(String localKey) {
+        return generations.get(stripe(localKey)) + clears.get();
+    }
+
+    /** Called before L1 changes, so a fill that checks afterwards sees the new generation */
+    private void bump(String localKey) {
+        generations.incrementAndGet(stripe(localKey));
+    }
+
+    private static int stripe(String localKey) {
+        int h = localKey.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof Expiring entry ? entry.value() : value;
+    }
+
+    /** L1 copy of a loaded value with the epoch millis its L2 entry expires at, for early refresh */
+    private record Expiring(Object value, long expiresAt) {
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("cache.tiered.gets", l1Hits, LongAdder::doubleValue)
+            .tags("cache", name, "tier", "l1", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.tiered.gets", l2Hits, LongAdder::doubleValue)
+            .tags("cache", name, "tier", "l2", "result", "hit").register(registry);
+        FunctionCounter.builder("cache.tiered.gets", misses, LongAdder::doubleValue)
+            .tags("cache", name, "tier", "l2", "result", "miss").register(registry);
+        FunctionCounter.builder("cache.tiered.load.wait.timeouts", loadWaitTimeouts, LongAdder::doubleValue)
+            .tags("cache", name).register(registry);
+        Gauge.builder("cache.tiered.hit.ratio", this, c -> ratio(c.l1Hits.sum(), c.l1Hits.sum() + c.l2Hits.sum() + c.misses.sum()))
+            .tags("cache", name, "tier", "l1").register(registry);
+        Gauge.builder("cache.tiered.hit.ratio", this, c -> ratio(c.l2Hits.sum(), c.l2Hits.sum() + c.misses.sum()))
+            .tags("cache", name, "tier", "l2").register(registry);
+        Gauge.builder("cache.tiered.l1.size", localCache, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+            .tags("cache", name).register(registry);
+    }
+
+    private static double ratio(long hits, long total) {
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,142 @@
+package com.quckapp.user.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache manager that layers an in-process L1 over the Redis cache manager.
+ *
+ * Only caches with a {@link LocalCacheSpec} get an L1 tier; every other cache
+ * name is served by Redis directly. Also acts as the pub/sub listener that
+ * applies invalidations broadcast by other instances. Caches whose spec carries
+ * a {@link StampedeSpec} also get lease-guarded loads and early refresh.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final RedisCacheManager remoteCacheManager;
+    private final Map<String, LocalCacheSpec> localSpecs;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisSerializer<Object> valueSerializer;
+    private final Duration loadWait;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final Executor refreshExecutor = refreshExecutor();
+
+    public TwoTierCacheManager(RedisCacheManager remoteCacheManager,
+                               Map<String, LocalCacheSpec> localSpecs,
+                               CacheInvalidationPublisher invalidationPublisher,
+                               StringRedisTemplate redisTemplate,
+                               RedisSerializer<Object> valueSerializer,
+                               Duration loadWait,
+                               MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localSpecs = localSpecs;
+        this.invalidationPublisher = invalidationPublisher;
+        this.redisTemplate = redisTemplate;
+        this.valueSerializer = valueSerializer;
+        this.loadWait = loadWait;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        LocalCacheSpec spec = localSpecs.get(name);
+        if (spec == null) return remoteCacheManager.getCache(name);
+        return caches.computeIfAbsent(name, n -> createCache(n, spec));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(remoteCacheManager.getCacheNames());
+        names.addAll(localSpecs.keySet());
+        return names;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\t", 4);
+        if (parts.length < 4 || invalidationPublisher.getInstanceId().equals(parts[0])) return;
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache == null) return;
+        if (CacheInvalidationPublisher.OP_CLEAR.equals(parts[2])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[3]);
+        }
+        log.trace("Applied remote {} on {}::{}", parts[2], parts[1], parts[3]);
+    }
+
+    private TwoTierCache createCache(String name, LocalCacheSpec spec) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = Caffeine.newBuilder()
+            .maximumSize(spec.maximumSize())
+            .expireAfterWrite(spec.ttl())
+            .build();
+        StampedeGuard stampedeGuard = spec.stampede() == null ? null : new StampedeGuard(name, spec.stampede(),
+            redisTemplate, valueSerializer, refreshExecutor, invalidationPublisher.getInstanceId(), meterRegistry);
+        return new TwoTierCache(name, localCache, remoteCacheManager.getCache(name), invalidationPublisher,
+            stampedeGuard, spec.negative(), loadWait, meterRegistry);
+    }
+
+    /** Small daemon pool for early refreshes; a full queue rejects, and the entry simply loads on expiry instead */
+    private static Executor refreshExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(256), runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Size bound and TTL of the in-process tier of a cache. The TTL should stay
+     * below the Redis TTL so L1 never outlives the shared entry. A null
+     * {@code stampede} leaves loads unguarded. A {@code negative} cache holds only
+     * "known missing" markers, so its writes are not broadcast.
+     */
+    public record LocalCacheSpec(long maximumSize, Duration ttl, StampedeSpec stampede, boolean negative) {
+
+        public LocalCacheSpec(long maximumSize, Duration ttl, StampedeSpec stampede) {
+            this(maximumSize, ttl, stampede, false);
+        }
+
+        public LocalCacheSpec(long maximumSize, Duration ttl) {
+            this(maximumSize, ttl, null);
+        }
+
+        public static LocalCacheSpec negative(long maximumSize, Duration ttl) {
+            return new LocalCacheSpec(maximumSize, ttl, null, true);
+        }
+    }
+
+    /**
+     * Stampede protection for a cache: the Redis TTL its entries are written with,
+     * how long a loading instance holds the lease, how long others wait on it before
+     * loading themselves, and the XFetch beta (above 1 refreshes earlier).
+     */
+    public record StampedeSpec(Duration remoteTtl, Duration leaseTtl, Duration leaseWait, double beta) {
+    }
+}
@@ -0,0 +1,361 @@
+package com.quckapp.user.cache;
+
+import com.quckapp.user.config.CacheConfig;
+import com.quckapp.user.dto.UserDtos.UserResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bulk access to the {@code users} cache, which Spring's Cache abstraction only exposes per key.
+ *
+ * Reads check the near cache first when it is enabled and fetch the remaining
+ * keys from Redis with one MGET; backfills are written in a single pipeline.
+ * Redis failures degrade to misses so batch reads fall through to the database.
+ *
+ * Every write of a {@code users} entry is a versioned conditional SET, so a
+ * reader holding an old row can never overwrite the entry written through by
+ * a newer update.
+ *
+ * Also fronts {@code users-missing}, a short-TTL negative cache of lookup keys
+ * ({@code id:}, {@code email:}, {@code username:}) that matched no user, and the
+ * alias caches that map a normalized email or username to a user id so those
+ * lookups resolve through the {@code users} entry.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserCache {
+
+    public static final String USERS = "users";
+    public static final String USERS_MISSING = "users-missing";
+    public static final String USERS_BY_EMAIL = "users-by-email";
+    public static final String USERS_BY_USERNAME = "users-by-username";
+    public static final String PROFILES = "profiles";
+    public static final String PREFERENCES = "preferences";
+    private static final String KEY_PREFIX = USERS + "::";
+
+    /**
+     * KEYS[1] = entry, ARGV = serialized user, its version, TTL millis. Skips the SET when the cached
+     * version is not older; compact entries carry it in their header, legacy JSON entries in the body.
+     */
+    static final String VERSIONED_SET_LUA = """
+        local current = redis.call('GET', KEYS[1])
+        local cachedVersion
+        if current and string.byte(current, 1) == 1 then
+          if string.len(current) >= 11 and bit.band(string.byte(current, 2), 2) == 2 then
+            cachedVersion = 0
+            for i = 4, 11 do cachedVersion = cachedVersion * 256 + string.byte(current, i) end
+          end
+        elseif current then
+          local ok, cached = pcall(cjson.decode, current)
+          if ok and type(cached) == 'table' then cachedVersion = tonumber(cached.version) end
+        end
+        if cachedVersion and cachedVersion >= tonumber(ARGV[2]) then
+          return 0
+        end
+        redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[3])
+        return 1
+        """;
+    private static final RedisScript<Long> VERSIONED_SET = new DefaultRedisScript<>(VERSIONED_SET_LUA, Long.class);
+    /** Script results are integers; values go over the wire as raw bytes, since cached values may be binary */
+    static final RedisSerializer<Long> SCRIPT_RESULT = new GenericToStringSerializer<>(Long.class);
+
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisSerializer<Object> cacheValueSerializer;
+
+    public Map<UUID, UserResponse> getAll(Collection<UUID> ids) {
+        Map<UUID, UserResponse> found = new HashMap<>();
+        TwoTierCache nearCache = nearCache();
+        List<UUID> remaining = new ArrayList<>();
+        for (UUID id : ids) {
+            Object local = nearCache != null ? nearCache.getLocal(id) : null;
+            if (local instanceof UserResponse user) found.put(id, user);
+            else remaining.add(id);
+        }
+        if (remaining.isEmpty()) return found;
+
+        long[] generations = new long[remaining.size()];
+        if (nearCache != null) {
+            for (int i = 0; i < generations.length; i++) generations[i] = nearCache.generation(remaining.get(i));
+        }
+        byte[][] keys = remaining.stream().map(UserCache::rawKey).toArray(byte[][]::new);
+        List<byte[]> values;
+        try {
+            values = stringRedisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keys));
+        } catch (RuntimeException e) {
+            log.warn("Bulk read of {} {} cache entries failed: {}", keys.length, USERS, e.getMessage());
+            return found;
+        }
+        if (values == null) return found;
+
+        for (int i = 0; i < remaining.size() && i < values.size(); i++) {
+            UserResponse user = deserialize(values.get(i));
+            if (user == null) continue;
+            found.put(remaining.get(i), user);
+            if (nearCache != null) nearCache.fillLocal(remaining.get(i), user, generations[i]);
+        }
+        return found;
+    }
+
+    public void putAll(Map<UUID, UserResponse> users) {
+        if (users.isEmpty()) return;
+        TwoTierCache nearCache = nearCache();
+        if (nearCache != null) users.forEach(nearCache::putLocal);
+
+        byte[] script = VERSIONED_SET_LUA.getBytes(StandardCharsets.UTF_8);
+        byte[] ttl = bytes(CacheConfig.USERS_TTL.toMillis());
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                users.forEach((id, user) -> connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1,
+                    rawKey(id), cacheValueSerializer.serialize(user), bytes(user.getVersion()), ttl));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Bulk write of {} {} cache entries failed: {}", users.size(), USERS, e.getMessage());
+        }
+    }
+
+    public UserResponse get(UUID id) {
+        Cache cache = cacheManager.getCache(USERS);
+        if (cache == null) return null;
+        try {
+            return cache.get(id, UserResponse.class);
+        } catch (RuntimeException e) {
+            log.debug("Read of {} entry {} failed: {}", USERS, id, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read-through for a single user. With the near cache on, concurrent misses share one load,
+     * one instance at a time loads a key, and hot entries are refreshed before they expire.
+     * A loader returning null caches nothing.
+     */
+    public UserResponse getOrLoad(UUID id, Supplier<UserResponse> loader) {
+        if (cacheManager.getCache(USERS) instanceof TwoTierCache cache) {
+            try {
+                return cache.get(id, loader::get);
+            } catch (Cache.ValueRetrievalException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            } catch (RuntimeException e) {
+                log.debug("Read-through of {} entry {} failed, loading directly: {}", USERS, id, e.getMessage());
+                return loader.get();
+            }
+        }
+        UserResponse cached = get(id);
+        if (cached != null) return cached;
+        UserResponse loaded = loader.get();
+        if (loaded != null) put(loaded);
+        return loaded;
+    }
+
+    /**
+     * Register the loader that refreshes hot entries of a near-cached cache before they expire.
+     * It must not depend on the request that first loaded the entry.
+     */
+    public void registerRefreshLoader(String cacheName, Function<UUID, ?> loader) {
+        if (cacheManager.getCache(cacheName) instanceof TwoTierCache cache) {
+            cache.setRefreshLoader(key -> loader.apply((UUID) key));
+        }
+    }
+
+    /** Id the alias cache maps the normalized email or username to, or null */
+    public UUID resolveAlias(String aliasCache, String value) {
+        Cache cache = cacheManager.getCache(aliasCache);
+        if (cache == null) return null;
+        try {
+            String id = cache.get(value, String.class);
+            return id != null ? UUID.fromString(id) : null;
+        } catch (RuntimeException e) {
+            log.debug("Read of {} entry {} failed: {}", aliasCache, value, e.getMessage());
+            return null;
+        }
+    }
+
+    /** Cache a user read from the database, and both of its aliases */
+    public void put(UserResponse user) {
+        try {
+            putVersioned(user, false);
+            Cache byEmail = cacheManager.getCache(USERS_BY_EMAIL);
+            if (byEmail != null) byEmail.put(user.getEmail(), user.getId().toString());
+            Cache byUsername = cacheManager.getCache(USERS_BY_USERNAME);
+            if (byUsername != null) byUsername.put(user.getUsername(), user.getId().toString());
+        } catch (RuntimeException e) {
+            log.warn("Write of {} cache entries for {} failed: {}", USERS, user.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Write an updated user through to the cache once the transaction commits, replacing any older
+     * cached version. Other instances drop their near-cache copy and pick the new one up from Redis.
+     */
+    public void writeThrough(UserResponse user) {
+        runAfterCommit(() -> {
+            try {
+                putVersioned(user, true);
+            } catch (RuntimeException e) {
+                log.warn("Write-through of {} entry {} failed, evicting: {}", USERS, user.getId(), e.getMessage());
+                evictUser(user.getId(), user.getEmail(), user.getUsername());
+            }
+        });
+    }
+
+    private void putVersioned(UserResponse user, boolean broadcast) {
+        Cache cache = cacheManager.getCache(USERS);
+        if (!(cache instanceof TwoTierCache) && !(cache instanceof RedisCache)) {
+            if (cache != null) cache.put(user.getId(), user);
+            return;
+        }
+        Long applied = stringRedisTemplate.execute(VERSIONED_SET, RedisSerializer.byteArray(), SCRIPT_RESULT,
+            List.of(KEY_PREFIX + user.getId()), cacheValueSerializer.serialize(user),
+            bytes(user.getVersion()), bytes(CacheConfig.USERS_TTL.toMillis()));
+        if (cache instanceof TwoTierCache near) {
+            if (broadcast) near.evictNear(user.getId());
+            if (applied != null && applied == 1) near.putLocal(user.getId(), user);
+        }
+    }
+
+    /**
+     * Drop the user and its aliases together: the Redis entries go in a single multi-key DEL,
+     * then near-cache copies are dropped here and broadcast to other instances. Runs again
+     * after commit so a read that races the write cannot re-cache the old row.
+     */
+    public void evictUser(UUID id, String email, String username) {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put(USERS, id);
+        entries.put(USERS_BY_EMAIL, email);
+        entries.put(USERS_BY_USERNAME, username);
+        runNowAndAfterCommit(() -> evictTogether(entries));
+    }
+
+    private void evictTogether(Map<String, Object> entries) {
+        List<String> redisKeys = new ArrayList<>();
+        List<Runnable> nearEvictions = new ArrayList<>();
+        entries.forEach((name, key) -> {
+            Cache cache = cacheManager.getCache(name);
+            if (cache instanceof TwoTierCache near) {
+                redisKeys.add(name + "::" + key);
+                nearEvictions.add(() -> near.evictNear(key));
+            } else if (cache instanceof RedisCache) {
+                redisKeys.add(name + "::" + key);
+            } else if (cache != null) {
+                cache.evict(key);
+            }
+        });
+        if (!redisKeys.isEmpty()) {
+            try {
+                stringRedisTemplate.delete(redisKeys);
+            } catch (RuntimeException e) {
+                log.warn("Eviction of {} failed: {}", redisKeys, e.getMessage());
+            }
+        }
+        // After the DEL, so an L1 miss cannot refill from the old L2 entry
+        nearEvictions.forEach(Runnable::run);
+    }
+
+    public boolean isKnownMissing(String lookupKey) {
+        Cache cache = cacheManager.getCache(USERS_MISSING);
+        if (cache == null) return false;
+        try {
+            return cache.get(lookupKey) != null;
+        } catch (RuntimeException e) {
+            log.debug("Read of {} entry {} failed: {}", USERS_MISSING, lookupKey, e.getMessage());
+            return false;
+        }
+    }
+
+    public void markMissing(String lookupKey) {
+        Cache cache = cacheManager.getCache(USERS_MISSING);
+        if (cache == null) return;
+        try {
+            cache.put(lookupKey, Boolean.TRUE);
+        } catch (RuntimeException e) {
+            log.debug("Write of {} entry {} failed: {}", USERS_MISSING, lookupKey, e.getMessage());
+        }
+    }
+
+    /** Evict one entry now and again after commit, for caches filled by {@code @Cacheable} readers */
+    public void evictAfterCommit(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) return;
+        runNowAndAfterCommit(() -> cache.evict(key));
+    }
+
+    /**
+     * Evicts now and again after commit, so a lookup that runs before the new row
+     * is visible cannot leave a stale negative entry behind.
+     */
+    public void forgetMissing(Collection<String> lookupKeys) {
+        Cache cache = cacheManager.getCache(USERS_MISSING);
+        if (cache == null) return;
+        runNowAndAfterCommit(() -> lookupKeys.forEach(cache::evict));
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static void runNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private UserResponse deserialize(byte[] raw) {
+        if (raw == null) return null;
+        try {
+            return cacheValueSerializer.deserialize(raw) instanceof UserResponse user ? user : null;
+        } catch (SerializationException e) {
+            log.debug("Ignoring unreadable {} cache entry: {}", USERS, e.getMessage());
+            return null;
+        }
+    }
+
+    private TwoTierCache nearCache() {
+        return cacheManager.getCache(USERS) instanceof TwoTierCache cache ? cache : null;
+    }
+
+    private static byte[] bytes(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] rawKey(UUID id) {
+        return (KEY_PREFIX + id).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,19 @@
 package com.quckapp.user.config;
 
+import com.quckapp.user.cache.CacheInvalidationPublisher;
+import com.quckapp.user.cache.CompactCacheSerializer;
+import com.quckapp.user.cache.CachedPreferencesMixIn;
+import com.quckapp.user.cache.CompactCacheSerializer.CachedType;
+import com.quckapp.user.cache.TwoTierCacheManager;
+import com.quckapp.user.cache.UserCache;
+import com.quckapp.user.dto.UserDtos.PreferencesResponse;
+import com.quckapp.user.dto.UserDtos.ProfileResponse;
+import com.quckapp.user.dto.UserDtos.UserResponse;
+import com.quckapp.user.cache.TwoTierCacheManager.LocalCacheSpec;
+import com.quckapp.user.cache.TwoTierCacheManager.StampedeSpec;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -7,27 +21,144 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.*;
 
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Cache configuration.
+ *
+ * Redis is the shared cache. When {@code app.cache.near.enabled} is set (the
+ * default), hot caches additionally get an in-process L1 tier that is kept
+ * coherent across instances through Redis pub/sub. Hit ratios are published by
+ * the tiered caches, or from Redis cache statistics when the near cache is off.
+ *
+ * The read-through caches ({@code users}, {@code profiles}, {@code preferences})
+ * are also guarded against stampedes when {@code app.cache.stampede.enabled} is
+ * set: one load per key across instances, and early refresh of hot entries.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    public static final Duration USERS_TTL = Duration.ofMinutes(15);
+
+    @Value("${app.cache.near.enabled:true}")
+    private boolean nearCacheEnabled;
+
+    @Value("${app.cache.near.users.maximum-size:10000}")
+    private long usersLocalMaximumSize;
+
+    @Value("${app.cache.near.users.ttl:5m}")
+    private Duration usersLocalTtl;
+
+    /** Longest a miss waits for another caller's load of the same key before loading itself */
+    @Value("${app.cache.near.load-wait:2s}")
+    private Duration nearLoadWait;
+
+    @Value("${app.cache.users-missing.ttl:30s}")
+    private Duration usersMissingTtl;
+
+    @Value("${app.cache.profiles.ttl:10m}")
+    private Duration profilesTtl;
+
+    @Value("${app.cache.preferences.ttl:30m}")
+    private Duration preferencesTtl;
+
+    @Value("${app.cache.serializer.format:json}")
+    private String serializerFormat;
+
+    @Value("${app.cache.serializer.compression-threshold:512}")
+    private int compressionThreshold;
+
+    @Value("${app.cache.stampede.enabled:true}")
+    private boolean stampedeEnabled;
+
+    @Value("${app.cache.stampede.lease-ttl:5s}")
+    private Duration stampedeLeaseTtl;
+
+    @Value("${app.cache.stampede.lease-wait:200ms}")
+    private Duration stampedeLeaseWait;
+
+    @Value("${app.cache.stampede.beta:1.0}")
+    private double stampedeBeta;
+
+    /**
+     * Value serializer shared by the cache manager and bulk cache access in {@link UserCache}.
+     * Reads both formats whatever {@code app.cache.serializer.format} writes. The default stays
+     * {@code json} so instances still on the previous build can read what this one writes;
+     * switch to {@code compact} only once every instance runs this build.
+     */
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer() {
+        return new CompactCacheSerializer(List.of(
+            CachedType.versioned(1, UserResponse.class, UserResponse::getVersion),
+            CachedType.of(2, ProfileResponse.class),
+            CachedType.of(3, PreferencesResponse.class).withMixIn(CachedPreferencesMixIn.class),
+            CachedType.of(4, String.class),
+            CachedType.of(5, Boolean.class)),
+            compressionThreshold, "compact".equals(serializerFormat), new GenericJackson2JsonRedisSerializer());
+    }
+
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate stringRedisTemplate,
+                                     RedisSerializer<Object> cacheValueSerializer, MeterRegistry meterRegistry) {
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
             .entryTtl(Duration.ofMinutes(30))
             .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer))
             .disableCachingNullValues();
 
         Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
-        cacheConfigs.put("users", defaultConfig.entryTtl(Duration.ofMinutes(15)));
+        cacheConfigs.put(UserCache.USERS, defaultConfig.entryTtl(USERS_TTL));
+        cacheConfigs.put(UserCache.USERS_MISSING, defaultConfig.entryTtl(usersMissingTtl));
+        cacheConfigs.put(UserCache.USERS_BY_EMAIL, defaultConfig.entryTtl(USERS_TTL));
+        cacheConfigs.put(UserCache.USERS_BY_USERNAME, defaultConfig.entryTtl(USERS_TTL));
+        cacheConfigs.put(UserCache.PROFILES, defaultConfig.entryTtl(profilesTtl));
+        cacheConfigs.put(UserCache.PREFERENCES, defaultConfig.entryTtl(preferencesTtl));
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+            .cacheDefaults(defaultConfig).withInitialCacheConfigurations(cacheConfigs).enableStatistics().build();
+        redisCacheManager.initializeCaches();
+        if (!nearCacheEnabled) return redisCacheManager;
+
+        Map<String, LocalCacheSpec> localSpecs = new HashMap<>();
+        localSpecs.put(UserCache.USERS, new LocalCacheSpec(usersLocalMaximumSize, usersLocalTtl, stampede(USERS_TTL)));
+        localSpecs.put(UserCache.USERS_MISSING, LocalCacheSpec.negative(usersLocalMaximumSize, usersMissingTtl));
+        localSpecs.put(UserCache.USERS_BY_EMAIL, new LocalCacheSpec(usersLocalMaximumSize, usersLocalTtl));
+        localSpecs.put(UserCache.USERS_BY_USERNAME, new LocalCacheSpec(usersLocalMaximumSize, usersLocalTtl));
+        localSpecs.put(UserCache.PROFILES,
+            new LocalCacheSpec(usersLocalMaximumSize, min(usersLocalTtl, profilesTtl), stampede(profilesTtl)));
+        localSpecs.put(UserCache.PREFERENCES,
+            new LocalCacheSpec(usersLocalMaximumSize, min(usersLocalTtl, preferencesTtl), stampede(preferencesTtl)));
+
+        return new TwoTierCacheManager(redisCacheManager, localSpecs, new CacheInvalidationPublisher(stringRedisTemplate),
+            stringRedisTemplate, cacheValueSerializer, nearLoadWait, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.near.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoTierCacheManager twoTierCacheManager) {
+            container.addMessageListener(twoTierCacheManager, new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+        }
+        return container;
+    }
+
+    private StampedeSpec stampede(Duration remoteTtl) {
+        return stampedeEnabled ? new StampedeSpec(remoteTtl, stampedeLeaseTtl, stampedeLeaseWait, stampedeBeta) : null;
+    }
 
-        return RedisCacheManager.builder(connectionFactory).cacheDefaults(defaultConfig).withInitialCacheConfigurations(cacheConfigs).build();
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
     }
 }
@@ -1,39 +1,142 @@
 package com.quckapp.user.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quckapp.user.kafka.AvroUserEventCodec;
+import com.quckapp.user.kafka.JsonUserEventCodec;
+import com.quckapp.user.kafka.UserEventCodec;
+import com.quckapp.user.kafka.UserEventCodecs;
+import com.quckapp.user.kafka.UserEventPartitions;
+import com.quckapp.user.kafka.UserEventSchemaRegistry;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.listener.ContainerProperties;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Kafka producer and consumer configuration.
+ *
+ * Events are serialized when they are written to the outbox, so the producer
+ * sends raw bytes. It is tuned for the relay's bulk sends: records linger
+ * briefly to fill large compressed batches, and idempotence keeps retries from
+ * duplicating or reordering events within a partition. The service also reads
+ * its own event stream back as raw bytes to keep in-memory indexes in sync
+ * across instances.
+ */
 @Configuration
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${app.kafka.producer.linger-ms:20}")
+    private int lingerMs;
+
+    @Value("${app.kafka.producer.batch-size:262144}")
+    private int batchSize;
+
+    @Value("${app.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    /**
+     * Upper bounds on one send. They must stay below the outbox relay lease (twice
+     * {@code app.kafka.outbox.send-timeout}), and delivery-timeout must be at least
+     * linger-ms plus request-timeout.
+     */
+    @Value("${app.kafka.producer.delivery-timeout:25s}")
+    private Duration deliveryTimeout;
+
+    @Value("${app.kafka.producer.request-timeout:10s}")
+    private Duration requestTimeout;
+
+    @Value("${app.kafka.producer.max-block:5s}")
+    private Duration maxBlock;
+
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, byte[]> producerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
         config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, (int) deliveryTimeout.toMillis());
+        config.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, (int) requestTimeout.toMillis());
+        config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlock.toMillis());
         return new DefaultKafkaProducerFactory<>(config);
     }
 
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
+    public KafkaTemplate<String, byte[]> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    /**
+     * Consumers start from the latest offset: state before startup is loaded from
+     * the database, the stream only carries changes made since. They have no group
+     * id and never commit, so restarts leave nothing behind on the brokers.
+     */
+    @Bean
+    public ConsumerFactory<String, byte[]> userEventsConsumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.ALLOW_AUTO_CREATE_TOPICS_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    /**
+     * For listeners that assign themselves every partition (see {@link UserEventPartitions}).
+     * Manual acks that are never given keep the container from committing offsets.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> userEventsListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(userEventsConsumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    /**
+     * Event wire format: {@code json} (default), the original envelope, or {@code avro}.
+     * Switch a topic to {@code avro} only after every consumer of it decodes Avro; until then
+     * they would skip or fail on the new records.
+     */
+    @Bean
+    public UserEventCodec userEventCodec(@Value("${app.kafka.events.encoding:json}") String encoding, ObjectMapper objectMapper) {
+        return switch (encoding.toLowerCase()) {
+            case "avro" -> new AvroUserEventCodec(new UserEventSchemaRegistry());
+            case "json" -> new JsonUserEventCodec(objectMapper);
+            default -> throw new IllegalArgumentException("Unsupported app.kafka.events.encoding: " + encoding);
+        };
+    }
+
+    /** Decoders for both encodings, so consumers keep reading across an encoding switch */
+    @Bean
+    public UserEventCodecs userEventCodecs(ObjectMapper objectMapper) {
+        return new UserEventCodecs(List.of(new JsonUserEventCodec(objectMapper), new AvroUserEventCodec(new UserEventSchemaRegistry())));
+    }
+
     @Bean
     public NewTopic userEventsTopic(@Value("${app.kafka.topics.user-events:quckapp.users.events}") String topic) {
         return TopicBuilder.name(topic).partitions(6).replicas(1).build();
@@ -1,6 +1,10 @@
 package com.quckapp.user.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.quckapp.user.domain.entity.User.UserStatus;
 import com.quckapp.user.dto.UserDtos.*;
+import com.quckapp.user.exception.BadRequestException;
+import com.quckapp.user.service.UserExporter;
 import com.quckapp.user.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -10,12 +14,19 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,7 +36,14 @@ import java.util.UUID;
 @Tag(name = "Users", description = "User management APIs for creating, retrieving, updating, and managing users")
 public class UserController {
 
+    static final String MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     private final UserService userService;
+    private final UserExporter userExporter;
+
+    /** Async timeout for the export alone; every other async request keeps the container default */
+    @Value("${app.users.export.request-timeout:30m}")
+    private Duration exportTimeout;
 
     @PostMapping
     @Operation(
@@ -180,6 +198,28 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success("User suspended", null));
     }
 
+    @GetMapping("/availability")
+    @Operation(
+        summary = "Check username/email availability",
+        description = """
+            Reports whether a username and/or email is free for signup. Matching is case-insensitive.
+
+            Answered from an in-memory index of taken names, so clearly free values never touch the
+            database. Availability is advisory: signup still fails with 409 if a value is claimed in between.
+            """
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Availability returned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Neither username nor email given")
+    })
+    public ResponseEntity<ApiResponse<AvailabilityResponse>> checkAvailability(
+            @Parameter(description = "Username to check", example = "john_doe")
+            @RequestParam(required = false) String username,
+            @Parameter(description = "Email to check", example = "john.doe@example.com")
+            @RequestParam(required = false) String email) {
+        return ResponseEntity.ok(ApiResponse.success(userService.checkAvailability(username, email)));
+    }
+
     @GetMapping("/search")
     @Operation(
         summary = "Search users",
@@ -192,6 +232,10 @@ public class UserController {
             - Email (partial match)
 
             Results are paginated and sorted by display name.
+
+            **Cursor mode:** pass `cursor` (empty for the first page, then each response's `nextCursor`)
+            to page by keyset instead of offset. Deep pages cost the same as the first and no total
+            count is computed (`totalElements` and `totalPages` are -1).
             """
     )
     @ApiResponses(value = {
@@ -206,13 +250,90 @@ public class UserController {
             @Parameter(description = "Page number (0-indexed)", example = "0")
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size (1-100)", example = "20")
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Keyset continuation token (empty to start cursor mode)")
+            @RequestParam(required = false) String cursor) {
         SearchUsersRequest request = SearchUsersRequest.builder().query(query)
             .status(status != null ? com.quckapp.user.domain.entity.User.UserStatus.valueOf(status.toUpperCase()) : null)
-            .page(page).size(size).build();
+            .page(page).size(size).cursor(cursor).build();
         return ResponseEntity.ok(ApiResponse.success(userService.searchUsers(request)));
     }
 
+    @GetMapping("/changes")
+    @Operation(
+        summary = "Directory changes since a watermark",
+        description = """
+            Returns the users changed since `since`, for clients that keep a local copy of the directory.
+
+            **Sync loop:**
+            - Omit `since` for a full sync
+            - Apply `upserts` and drop `removedIds` (deactivated, suspended or deleted users)
+            - Store `watermark` and send it as `since` next time; while `hasMore` is true, call again right away
+
+            Changes from the last few seconds (`app.users.changes.settle-lag`) are returned on the next
+            poll, so no committed change is skipped. At most 1000 users (`app.users.changes.max-limit`)
+            are returned per call.
+            """
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Changes returned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid watermark or limit")
+    })
+    public ResponseEntity<ApiResponse<DirectoryChangesResponse>> getDirectoryChanges(
+            @Parameter(description = "Watermark from the previous response (omit for a full sync)")
+            @RequestParam(required = false) String since,
+            @Parameter(description = "Maximum users per response", example = "500")
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(ApiResponse.success(userService.getDirectoryChanges(since, limit)));
+    }
+
+    @GetMapping("/export")
+    @Operation(
+        summary = "Export users",
+        description = """
+            Streams the directory as NDJSON (one JSON object per line) or CSV, in user ID order.
+
+            The export is read with a single forward-only database cursor and written as it is read,
+            so it can be fetched in one request however large the directory is.
+
+            **Resuming:** if the download is interrupted, pass the `id` of the last complete record
+            received as `after` to continue from the next user.
+
+            **Access:** the export includes email addresses and phone numbers and, like the admin
+            operations, is open to any authenticated token; restrict the route at the gateway.
+            """
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Export streamed",
+            content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid status or format")
+    })
+    public WebAsyncTask<Void> exportUsers(
+            @Parameter(description = "Filter by status", example = "ACTIVE",
+                schema = @Schema(allowableValues = {"ACTIVE", "INACTIVE", "SUSPENDED", "DELETED"}))
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Resume after this user ID (the last one received)")
+            @RequestParam(required = false) UUID after,
+            @Parameter(description = "Output format", schema = @Schema(allowableValues = {"ndjson", "csv"}))
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        UserStatus userStatus;
+        try {
+            userStatus = status != null ? UserStatus.valueOf(status.toUpperCase()) : null;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid status: " + status);
+        }
+        UserExporter.Format exportFormat = UserExporter.Format.parse(format);
+        response.setContentType(exportFormat.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + exportFormat.extension() + "\"");
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            OutputStream out = response.getOutputStream();
+            userExporter.export(userStatus, after, exportFormat, out);
+            out.flush();
+            return null;
+        });
+    }
+
     @PostMapping("/batch")
     @Operation(
         summary = "Get users by IDs (batch)",
@@ -224,11 +345,14 @@ public class UserController {
             - Loading team member details
             - Populating user mentions in content
 
-            **Note:** Non-existent IDs are silently ignored in the response.
+            **Note:** Non-existent IDs are silently ignored in the response. Results follow
+            the request order, with each distinct ID returned once. At most 500 IDs
+            (`app.users.batch.max-ids`) are accepted per request.
             """
     )
     @ApiResponses(value = {
-        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Users retrieved")
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Users retrieved"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Too many IDs")
     })
     public ResponseEntity<ApiResponse<List<UserSummaryResponse>>> getUsersByIds(
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -240,6 +364,59 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success(userService.getUsersByIds(ids)));
     }
 
+    @PostMapping("/notification-eligibility")
+    @Operation(
+        summary = "Check notification eligibility (batch)",
+        description = """
+            Returns the recipients that should get a notification on the given channel right now.
+
+            **Rules:**
+            - Only active users are returned; unknown, inactive and suspended IDs are left out
+            - The channel must be enabled in the recipient's preferences
+            - Recipients inside their quiet hours are left out, on every channel
+            - Recipients without saved preferences get the defaults (push and email, no quiet hours)
+
+            Results follow the request order, with each distinct ID returned once. At most
+            500 IDs (`app.users.batch.max-ids`) are accepted per request.
+            """
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Eligible recipients returned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid request or too many IDs")
+    })
+    public ResponseEntity<ApiResponse<NotificationEligibilityResponse>> getNotificationEligibility(
+            @Valid @RequestBody NotificationEligibilityRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(userService.getNotificationEligibility(request)));
+    }
+
+    @GetMapping("/ids/by-preferences")
+    @Operation(
+        summary = "Find user IDs by preference flags",
+        description = """
+            Returns the IDs of active users with every flag in `set` on and every flag in `clear` off,
+            for example `set=pushEnabled&set=showOnlineStatus`. Flags use the preference property names.
+            Users who never changed their preferences are matched against the defaults.
+
+            Results are in ID order; pass each response's `nextCursor` as `cursor` for the next page.
+            At most 500 IDs (`app.users.batch.max-ids`) are returned per page.
+            """
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Matching user IDs returned"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Unknown flag, invalid cursor or size")
+    })
+    public ResponseEntity<ApiResponse<PageResponse<UUID>>> findUserIdsByPreferences(
+            @Parameter(description = "Flags that must be on", example = "pushEnabled")
+            @RequestParam(required = false) List<String> set,
+            @Parameter(description = "Flags that must be off", example = "smsEnabled")
+            @RequestParam(required = false) List<String> clear,
+            @Parameter(description = "Continuation token from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size", example = "500")
+            @RequestParam(defaultValue = "500") int size) {
+        return ResponseEntity.ok(ApiResponse.success(userService.findUserIdsByPreferences(set, clear, cursor, size)));
+    }
+
     @GetMapping("/{id}/profile")
     @Operation(
         summary = "Get user profile",
@@ -322,4 +499,48 @@ public class UserController {
             @Valid @RequestBody UpdatePreferencesRequest request) {
         return ResponseEntity.ok(ApiResponse.success("Preferences updated", userService.updatePreferences(id, request)));
     }
+
+    @PatchMapping(value = "/{id}/preferences/custom-settings",
+                  consumes = {MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(
+        summary = "Merge-patch custom settings",
+        description = """
+            Applies a JSON Merge Patch (RFC 7396) to the user's custom settings, atomically in the database.
+
+            **Rules:**
+            - The patch must be a JSON object
+            - Keys set to `null` are removed; nested objects are merged; other values replace the stored value
+            - Keys not in the patch are left untouched, so clients can sync single keys concurrently
+            """
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Custom settings updated"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Patch is not a JSON object"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "User not found")
+    })
+    public ResponseEntity<ApiResponse<Void>> mergeCustomSettings(
+            @Parameter(description = "User UUID") @PathVariable UUID id,
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "Merge patch",
+                content = @Content(examples = @ExampleObject(value = "{\"sidebarWidth\": 280, \"pinnedChannels\": null}"))
+            )
+            @RequestBody JsonNode patch) {
+        userService.mergeCustomSettings(id, patch);
+        return ResponseEntity.ok(ApiResponse.success("Custom settings updated", null));
+    }
+
+    @GetMapping("/{id}/preferences/custom-settings/{key}")
+    @Operation(
+        summary = "Get one custom setting",
+        description = "Returns the value stored under one top-level custom settings key, without the rest of the document."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Setting retrieved"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "User or setting not found")
+    })
+    public ResponseEntity<ApiResponse<JsonNode>> getCustomSetting(
+            @Parameter(description = "User UUID") @PathVariable UUID id,
+            @Parameter(description = "Custom setting key") @PathVariable String key) {
+        return ResponseEntity.ok(ApiResponse.success(userService.getCustomSetting(id, key)));
+    }
 }
@@ -0,0 +1,46 @@
+package com.quckapp.user.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
+
+/**
+ * A user event recorded in the same transaction as the write that caused it,
+ * waiting to be relayed to Kafka.
+ */
+@Entity
+@Table(name = "user_event_outbox", indexes = {
+    @Index(name = "idx_outbox_sent_at_id", columnList = "sentAt, id")
+})
+@EntityListeners(AuditingEntityListener.class)
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 255)
+    private String topic;
+
+    @Column(nullable = false, length = 64)
+    private String messageKey;
+
+    @Column(nullable = false, length = 50)
+    private String eventType;
+
+    @Column(nullable = false, length = 100)
+    private String contentType;
+
+    @Column(nullable = false, columnDefinition = "MEDIUMBLOB")
+    private byte[] payload;
+
+    @CreatedDate
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    private Instant sentAt;
+}
@@ -1,5 +1,6 @@
 package com.quckapp.user.domain.entity;
 
+import com.quckapp.user.domain.id.GeneratedUuidV7;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.annotation.CreatedDate;
@@ -13,14 +14,18 @@ import java.util.UUID;
 @Table(name = "users", indexes = {
     @Index(name = "idx_users_email", columnList = "email"),
     @Index(name = "idx_users_username", columnList = "username"),
-    @Index(name = "idx_users_status", columnList = "status")
+    @Index(name = "idx_users_status", columnList = "status"),
+    @Index(name = "idx_users_display_name_id_bin", columnList = "displayName, id"),
+    @Index(name = "idx_users_updated_at_id", columnList = "updatedAt, id")
 })
 @EntityListeners(AuditingEntityListener.class)
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class User {
 
+    /** Mapped to the binary shadow key until the CHAR(36) column is dropped (see V6, V7) */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @GeneratedUuidV7
+    @Column(name = "id_bin")
     private UUID id;
 
     @Column(nullable = false, unique = true, length = 255)
@@ -51,6 +56,9 @@ public class User {
     @Builder.Default
     private UserStatus status = UserStatus.ACTIVE;
 
+    @Version
+    private long version;
+
     @Builder.Default
     private boolean emailVerified = false;
 
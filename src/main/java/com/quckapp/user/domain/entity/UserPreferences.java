@@ -24,33 +24,18 @@ public class UserPreferences {
 
     @OneToOne(fetch = FetchType.LAZY)
     @MapsId
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id_bin")
     private User user;
 
-    @Builder.Default private boolean pushEnabled = true;
-    @Builder.Default private boolean emailEnabled = true;
-    @Builder.Default private boolean smsEnabled = false;
-    @Builder.Default private boolean desktopNotifications = true;
-    @Builder.Default private boolean soundEnabled = true;
+    /** Bitset of {@link PreferenceFlag}s */
+    @Column(nullable = false)
+    @Builder.Default private int flags = PreferenceFlag.DEFAULTS;
 
     private LocalTime quietHoursStart;
     private LocalTime quietHoursEnd;
-    @Builder.Default private boolean quietHoursEnabled = false;
 
     @Column(length = 20) @Builder.Default private String theme = "system";
     @Column(length = 10) @Builder.Default private String language = "en";
-    @Builder.Default private boolean compactMode = false;
-    @Builder.Default private boolean sidebarCollapsed = false;
-    @Builder.Default private boolean showUnreadOnly = false;
-    @Builder.Default private boolean messagePreview = true;
-    @Builder.Default private boolean enterToSend = true;
-    @Builder.Default private boolean markdownEnabled = true;
-    @Builder.Default private boolean emojiSuggestionsEnabled = true;
-    @Builder.Default private boolean showOnlineStatus = true;
-    @Builder.Default private boolean showTypingIndicator = true;
-    @Builder.Default private boolean showReadReceipts = true;
-    @Builder.Default private boolean reducedMotion = false;
-    @Builder.Default private boolean highContrast = false;
     @Builder.Default private int fontSize = 14;
 
     @JdbcTypeCode(SqlTypes.JSON)
@@ -60,4 +45,91 @@ public class UserPreferences {
 
     @LastModifiedDate
     private Instant updatedAt;
+
+    public boolean is(PreferenceFlag flag) {
+        return flag.isSet(flags);
+    }
+
+    public void set(PreferenceFlag flag, boolean on) {
+        flags = flag.apply(flags, on);
+    }
+
+    /**
+     * On/off preferences, stored together in the {@code flags} column. Bit positions are
+     * persisted and used in bitwise queries: never reorder or reuse one.
+     */
+    public enum PreferenceFlag {
+        PUSH_ENABLED(0, true),
+        EMAIL_ENABLED(1, true),
+        SMS_ENABLED(2, false),
+        QUIET_HOURS_ENABLED(3, false),
+        DESKTOP_NOTIFICATIONS(4, true),
+        SOUND_ENABLED(5, true),
+        COMPACT_MODE(6, false),
+        SIDEBAR_COLLAPSED(7, false),
+        SHOW_UNREAD_ONLY(8, false),
+        MESSAGE_PREVIEW(9, true),
+        ENTER_TO_SEND(10, true),
+        MARKDOWN_ENABLED(11, true),
+        EMOJI_SUGGESTIONS_ENABLED(12, true),
+        SHOW_ONLINE_STATUS(13, true),
+        SHOW_TYPING_INDICATOR(14, true),
+        SHOW_READ_RECEIPTS(15, true),
+        REDUCED_MOTION(16, false),
+        HIGH_CONTRAST(17, false);
+
+        /** Flags of a user who never changed a preference; also the column default */
+        public static final int DEFAULTS = 65075;
+
+        private static final Map<String, PreferenceFlag> BY_PROPERTY = new HashMap<>();
+
+        static {
+            for (PreferenceFlag flag : values()) BY_PROPERTY.put(flag.property, flag);
+        }
+
+        private final int mask;
+        private final boolean defaultValue;
+        private final String property;
+
+        PreferenceFlag(int bit, boolean defaultValue) {
+            this.mask = 1 << bit;
+            this.defaultValue = defaultValue;
+            StringBuilder camelCase = new StringBuilder();
+            for (String word : name().toLowerCase().split("_")) {
+                camelCase.append(camelCase.isEmpty() ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+            }
+            this.property = camelCase.toString();
+        }
+
+        /** Name of the flag's boolean property in requests and responses, e.g. {@code pushEnabled} */
+        public String property() {
+            return property;
+        }
+
+        public static PreferenceFlag forProperty(String property) {
+            return BY_PROPERTY.get(property);
+        }
+
+        public int mask() {
+            return mask;
+        }
+
+        public boolean defaultValue() {
+            return defaultValue;
+        }
+
+        public boolean isSet(int flags) {
+            return (flags & mask) != 0;
+        }
+
+        public int apply(int flags, boolean on) {
+            return on ? flags | mask : flags & ~mask;
+        }
+
+        public static int maskOf(PreferenceFlag... flags) {
+            int mask = 0;
+            for (PreferenceFlag flag : flags) mask |= flag.mask;
+            return mask;
+        }
+    }
 }
@@ -19,7 +19,7 @@ public class UserProfile {
 
     @OneToOne(fetch = FetchType.LAZY)
     @MapsId
-    @JoinColumn(name = "user_id")
+    @JoinColumn(name = "user_id_bin")
     private User user;
 
     @Column(length = 100)
@@ -0,0 +1,49 @@
+package com.quckapp.user.domain.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hibernate.generator.EventTypeSets.INSERT_ONLY;
+
+/**
+ * RFC 9562 UUIDv7: 48-bit Unix millisecond timestamp, version, 12-bit
+ * sequence, variant and 62 random bits.
+ *
+ * Stored as BINARY(16) the timestamp is the key prefix, so new keys append to
+ * the right-hand edge of the index on id_bin. The clustered primary key is still
+ * the CHAR(36) id until the contract step of the key migration (see V7), so rows
+ * only stop splitting random table pages once id_bin becomes the primary key.
+ * The sequence makes ids from this process strictly increasing, including
+ * within one millisecond and across small clock steps backwards.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Last issued (millis << 12 | sequence) */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << 12;
+        long stamp = LAST.updateAndGet(previous -> Math.max(previous + 1, now));
+        long mostSigBits = ((stamp >>> 12) << 16) | 0x7000L | (stamp & 0xFFFL);
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return INSERT_ONLY;
+    }
+}
@@ -0,0 +1,50 @@
+package com.quckapp.user.domain.repository;
+
+import com.quckapp.user.domain.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /** Oldest unsent events, read without locks: only the holder of the relay lease sends them */
+    @Query(value = "SELECT * FROM user_event_outbox WHERE sent_at IS NULL ORDER BY id LIMIT :limit",
+           nativeQuery = true)
+    List<OutboxEvent> findUnsentBatch(@Param("limit") int limit);
+
+    /** Take or renew the named relay lease on the database clock; returns 1 when {@code owner} holds it */
+    @Modifying
+    @Query(value = "UPDATE outbox_relay_lease SET owner = :owner, " +
+                   "lease_until = NOW(6) + INTERVAL (:leaseMillis * 1000) MICROSECOND " +
+                   "WHERE name = :name AND (owner = :owner OR lease_until < NOW(6))",
+           nativeQuery = true)
+    int acquireLease(@Param("name") String name, @Param("owner") String owner, @Param("leaseMillis") long leaseMillis);
+
+    /** Extend the lease only if {@code owner} still holds it unexpired; returns 0 once it has been lost */
+    @Modifying
+    @Query(value = "UPDATE outbox_relay_lease " +
+                   "SET lease_until = NOW(6) + INTERVAL (:leaseMillis * 1000) MICROSECOND " +
+                   "WHERE name = :name AND owner = :owner AND lease_until >= NOW(6)",
+           nativeQuery = true)
+    int renewLease(@Param("name") String name, @Param("owner") String owner, @Param("leaseMillis") long leaseMillis);
+
+    @Modifying
+    @Query(value = "UPDATE outbox_relay_lease SET owner = NULL, lease_until = '1970-01-01 00:00:00' " +
+                   "WHERE name = :name AND owner = :owner",
+           nativeQuery = true)
+    int releaseLease(@Param("name") String name, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.sentAt = :sentAt WHERE e.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_event_outbox WHERE sent_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteSentBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -2,10 +2,35 @@ package com.quckapp.user.domain.repository;
 
 import com.quckapp.user.domain.entity.UserPreferences;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserPreferencesRepository extends JpaRepository<UserPreferences, UUID> {
+
+    /**
+     * Applies an RFC 7396 merge patch to custom_settings in one statement, creating the row
+     * with column defaults if the user has none yet. The patch must be a JSON object.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_preferences (user_id_bin, custom_settings) " +
+                   "VALUES (:userId, JSON_MERGE_PATCH(JSON_OBJECT(), CAST(:patch AS JSON))) " +
+                   "ON DUPLICATE KEY UPDATE custom_settings = " +
+                   "JSON_MERGE_PATCH(COALESCE(custom_settings, JSON_OBJECT()), CAST(:patch AS JSON))",
+           nativeQuery = true)
+    int mergeCustomSettings(@Param("userId") UUID userId, @Param("patch") String patch);
+
+    /** Theme alone, for the event published after {@link #mergeCustomSettings} */
+    @Query(value = "SELECT COALESCE(theme, 'system') FROM user_preferences WHERE user_id_bin = :userId", nativeQuery = true)
+    Optional<String> findTheme(@Param("userId") UUID userId);
+
+    /** One custom setting as JSON text, empty when the key or the preferences row is missing */
+    @Query(value = "SELECT CAST(JSON_EXTRACT(custom_settings, :path) AS CHAR) FROM user_preferences WHERE user_id_bin = :userId",
+           nativeQuery = true)
+    Optional<String> findCustomSetting(@Param("userId") UUID userId, @Param("path") String path);
 }
@@ -2,20 +2,50 @@ package com.quckapp.user.domain.repository;
 
 import com.quckapp.user.domain.entity.User;
 import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
 
+    String ROUTE_SELECT_JPQL =
+        "SELECT u.id AS userId, u.status AS status, COALESCE(p.flags, " + PreferenceFlag.DEFAULTS + ") AS flags, " +
+        "p.quietHoursStart AS quietHoursStart, p.quietHoursEnd AS quietHoursEnd, u.timezone AS timezone " +
+        "FROM User u LEFT JOIN u.preferences p";
+
+    /** Keyset predicate: rows strictly after (:afterName, :afterId) in display_name, id order (nulls first) */
+    String AFTER_CURSOR_JPQL =
+        "((:afterName IS NULL AND (u.displayName IS NULL AND u.id > :afterId OR u.displayName IS NOT NULL)) OR " +
+        "u.displayName > :afterName OR (u.displayName = :afterName AND u.id > :afterId))";
+
+    String AFTER_CURSOR_SQL =
+        "((:afterName IS NULL AND (u.display_name IS NULL AND u.id_bin > :afterId OR u.display_name IS NOT NULL)) OR " +
+        "u.display_name > :afterName OR (u.display_name = :afterName AND u.id_bin > :afterId))";
+
+    String LIKE_QUERY_JPQL =
+        "(LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+        "LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+        "LOWER(u.displayName) LIKE LOWER(CONCAT('%', :query, '%')))";
+
+    String FULL_TEXT_SQL = "MATCH(u.email, u.username, u.display_name) AGAINST (:phrase IN BOOLEAN MODE)";
+
     Optional<User> findByEmail(String email);
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
@@ -34,11 +64,120 @@ public interface UserRepository extends JpaRepository<User, UUID> {
            "LOWER(u.displayName) LIKE LOWER(CONCAT('%', :query, '%')))")
     Page<User> searchAllUsers(@Param("query") String query, Pageable pageable);
 
+    @Query(value = "SELECT * FROM users u WHERE u.status = :status AND " +
+                   "MATCH(u.email, u.username, u.display_name) AGAINST (:phrase IN BOOLEAN MODE) " +
+                   "ORDER BY u.display_name, u.id_bin",
+           countQuery = "SELECT COUNT(*) FROM users u WHERE u.status = :status AND " +
+                        "MATCH(u.email, u.username, u.display_name) AGAINST (:phrase IN BOOLEAN MODE)",
+           nativeQuery = true)
+    Page<User> fullTextSearchUsers(@Param("phrase") String phrase, @Param("status") String status, Pageable pageable);
+
+    @Query(value = "SELECT * FROM users u WHERE " +
+                   "MATCH(u.email, u.username, u.display_name) AGAINST (:phrase IN BOOLEAN MODE) " +
+                   "ORDER BY u.display_name, u.id_bin",
+           countQuery = "SELECT COUNT(*) FROM users u WHERE " +
+                        "MATCH(u.email, u.username, u.display_name) AGAINST (:phrase IN BOOLEAN MODE)",
+           nativeQuery = true)
+    Page<User> fullTextSearchAllUsers(@Param("phrase") String phrase, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE u.status = :status AND " + LIKE_QUERY_JPQL + " AND " + AFTER_CURSOR_JPQL +
+           " ORDER BY u.displayName, u.id")
+    Slice<User> searchUsersAfter(@Param("query") String query, @Param("status") UserStatus status,
+                                 @Param("afterName") String afterName, @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query("SELECT u FROM User u WHERE " + LIKE_QUERY_JPQL + " AND " + AFTER_CURSOR_JPQL +
+           " ORDER BY u.displayName, u.id")
+    Slice<User> searchAllUsersAfter(@Param("query") String query,
+                                    @Param("afterName") String afterName, @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query(value = "SELECT * FROM users u WHERE u.status = :status AND " + FULL_TEXT_SQL + " AND " + AFTER_CURSOR_SQL +
+                   " ORDER BY u.display_name, u.id_bin",
+           nativeQuery = true)
+    Slice<User> fullTextSearchUsersAfter(@Param("phrase") String phrase, @Param("status") String status,
+                                         @Param("afterName") String afterName, @Param("afterId") UUID afterId, Pageable pageable);
+
+    @Query(value = "SELECT * FROM users u WHERE " + FULL_TEXT_SQL + " AND " + AFTER_CURSOR_SQL +
+                   " ORDER BY u.display_name, u.id_bin",
+           nativeQuery = true)
+    Slice<User> fullTextSearchAllUsersAfter(@Param("phrase") String phrase,
+                                            @Param("afterName") String afterName, @Param("afterId") UUID afterId, Pageable pageable);
+
     List<User> findByIdIn(List<UUID> ids);
 
+    /**
+     * Ids of users in the status with every flag in {@code allOf} set and every flag in {@code noneOf} clear
+     * (masks from {@link PreferenceFlag#maskOf}), in id order for keyset paging. Users without a preferences
+     * row are matched against {@link PreferenceFlag#DEFAULTS}.
+     */
+    @Query("SELECT u.id FROM User u LEFT JOIN u.preferences p WHERE u.status = :status " +
+           "AND bitand(COALESCE(p.flags, " + PreferenceFlag.DEFAULTS + "), :allOf) = :allOf " +
+           "AND bitand(COALESCE(p.flags, " + PreferenceFlag.DEFAULTS + "), :noneOf) = 0 " +
+           "AND u.id > :afterId ORDER BY u.id")
+    Slice<UUID> findIdsByPreferenceFlags(@Param("status") UserStatus status, @Param("allOf") int allOf,
+                                         @Param("noneOf") int noneOf, @Param("afterId") UUID afterId, Pageable pageable);
+
+    /** Users changed after (:afterTime, :afterId) in updated_at, id order, up to :until; served by idx_users_updated_at_id */
+    @Query("SELECT u FROM User u WHERE (u.updatedAt > :afterTime OR (u.updatedAt = :afterTime AND u.id > :afterId)) " +
+           "AND u.updatedAt <= :until ORDER BY u.updatedAt, u.id")
+    Slice<User> findChangedAfter(@Param("afterTime") Instant afterTime, @Param("afterId") UUID afterId,
+                                 @Param("until") Instant until, Pageable pageable);
+
+    /** Row-by-row scan of every email and username; Integer.MIN_VALUE makes Connector/J stream instead of buffering */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.email AS email, u.username AS username FROM User u")
+    Stream<IdentityView> streamIdentities();
+
+    /** Forward-only export scan in id order, streamed row by row as unmanaged projections so memory stays flat */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.id AS id, u.email AS email, u.username AS username, u.displayName AS displayName, " +
+           "u.avatarUrl AS avatarUrl, u.phone AS phone, u.timezone AS timezone, u.locale AS locale, u.status AS status, " +
+           "u.emailVerified AS emailVerified, u.phoneVerified AS phoneVerified, u.lastLoginAt AS lastLoginAt, " +
+           "u.createdAt AS createdAt, u.updatedAt AS updatedAt " +
+           "FROM User u WHERE (:status IS NULL OR u.status = :status) AND u.id > :afterId ORDER BY u.id")
+    Stream<ExportView> streamForExport(@Param("status") UserStatus status, @Param("afterId") UUID afterId);
+
+    /** Row-by-row scan of every user's notification settings, with the defaults for users without a preferences row */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(ROUTE_SELECT_JPQL)
+    Stream<RoutingView> streamRoutes();
+
+    @Query(ROUTE_SELECT_JPQL + " WHERE u.id IN :userIds")
+    List<RoutingView> findRoutes(@Param("userIds") Collection<UUID> userIds);
+
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.profile WHERE u.id = :id")
     Optional<User> findByIdWithProfile(@Param("id") UUID id);
 
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.preferences WHERE u.id = :id")
     Optional<User> findByIdWithPreferences(@Param("id") UUID id);
+
+    interface IdentityView {
+        String getEmail();
+        String getUsername();
+    }
+
+    interface RoutingView {
+        UUID getUserId();
+        UserStatus getStatus();
+        int getFlags();
+        LocalTime getQuietHoursStart();
+        LocalTime getQuietHoursEnd();
+        String getTimezone();
+    }
+
+    interface ExportView {
+        UUID getId();
+        String getEmail();
+        String getUsername();
+        String getDisplayName();
+        String getAvatarUrl();
+        String getPhone();
+        String getTimezone();
+        String getLocale();
+        UserStatus getStatus();
+        boolean isEmailVerified();
+        boolean isPhoneVerified();
+        Instant getLastLoginAt();
+        Instant getCreatedAt();
+        Instant getUpdatedAt();
+    }
 }
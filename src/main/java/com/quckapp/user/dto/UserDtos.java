@@ -1,6 +1,10 @@
 package com.quckapp.user.dto;
 
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
+import com.quckapp.user.notification.NotificationChannel;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -92,6 +96,9 @@ public class UserDtos {
         @Schema(description = "Current account status", example = "ACTIVE")
         private UserStatus status;
 
+        @Schema(description = "Row version, incremented on every change", example = "3")
+        private long version;
+
         @Schema(description = "Whether email has been verified", example = "true")
         private boolean emailVerified;
 
@@ -127,6 +134,22 @@ public class UserDtos {
         private UserStatus status;
     }
 
+    @Data @Builder @NoArgsConstructor @AllArgsConstructor
+    @Schema(description = "Availability of a username and/or email for signup; unchecked fields are null")
+    public static class AvailabilityResponse {
+        @Schema(description = "Normalized username that was checked", example = "john_doe")
+        private String username;
+
+        @Schema(description = "Whether the username is free", example = "true")
+        private Boolean usernameAvailable;
+
+        @Schema(description = "Normalized email that was checked", example = "john.doe@example.com")
+        private String email;
+
+        @Schema(description = "Whether the email is free", example = "false")
+        private Boolean emailAvailable;
+    }
+
     @Data @Builder @NoArgsConstructor @AllArgsConstructor
     @Schema(description = "Request payload for updating user profile")
     public static class UpdateProfileRequest {
@@ -302,20 +325,9 @@ public class UserDtos {
         @Schema(description = "User ID these preferences belong to", example = "550e8400-e29b-41d4-a716-446655440000")
         private UUID userId;
 
-        @Schema(description = "Push notifications enabled", example = "true")
-        private boolean pushEnabled;
-
-        @Schema(description = "Email notifications enabled", example = "true")
-        private boolean emailEnabled;
-
-        @Schema(description = "SMS notifications enabled", example = "false")
-        private boolean smsEnabled;
-
-        @Schema(description = "Desktop notifications enabled", example = "true")
-        private boolean desktopNotifications;
-
-        @Schema(description = "Notification sounds enabled", example = "true")
-        private boolean soundEnabled;
+        /** {@link PreferenceFlag} bitset; the API shows it as the boolean properties below */
+        @JsonIgnore
+        private int flags;
 
         @Schema(description = "Quiet hours start time", example = "22:00")
         private LocalTime quietHoursStart;
@@ -323,59 +335,155 @@ public class UserDtos {
         @Schema(description = "Quiet hours end time", example = "08:00")
         private LocalTime quietHoursEnd;
 
-        @Schema(description = "Quiet hours enabled", example = "false")
-        private boolean quietHoursEnabled;
-
         @Schema(description = "UI theme", example = "dark")
         private String theme;
 
         @Schema(description = "Language preference", example = "en")
         private String language;
 
+        @Schema(description = "Font size in pixels", example = "14")
+        private int fontSize;
+
+        @Schema(description = "Custom settings")
+        private Map<String, Object> customSettings;
+
+        @Schema(description = "Last update timestamp")
+        private Instant updatedAt;
+
+        @Schema(description = "Push notifications enabled", example = "true")
+        public boolean isPushEnabled() {
+            return PreferenceFlag.PUSH_ENABLED.isSet(flags);
+        }
+
+        @Schema(description = "Email notifications enabled", example = "true")
+        public boolean isEmailEnabled() {
+            return PreferenceFlag.EMAIL_ENABLED.isSet(flags);
+        }
+
+        @Schema(description = "SMS notifications enabled", example = "false")
+        public boolean isSmsEnabled() {
+            return PreferenceFlag.SMS_ENABLED.isSet(flags);
+        }
+
+        @Schema(description = "Quiet hours enabled", example = "false")
+        public boolean isQuietHoursEnabled() {
+            return PreferenceFlag.QUIET_HOURS_ENABLED.isSet(flags);
+        }
+
+        @Schema(description = "Desktop notifications enabled", example = "true")
+        public boolean isDesktopNotifications() {
+            return PreferenceFlag.DESKTOP_NOTIFICATIONS.isSet(flags);
+        }
+
+        @Schema(description = "Notification sounds enabled", example = "true")
+        public boolean isSoundEnabled() {
+            return PreferenceFlag.SOUND_ENABLED.isSet(flags);
+        }
+
         @Schema(description = "Compact UI mode enabled", example = "false")
-        private boolean compactMode;
+        public boolean isCompactMode() {
+            return PreferenceFlag.COMPACT_MODE.isSet(flags);
+        }
 
         @Schema(description = "Sidebar collapsed", example = "false")
-        private boolean sidebarCollapsed;
+        public boolean isSidebarCollapsed() {
+            return PreferenceFlag.SIDEBAR_COLLAPSED.isSet(flags);
+        }
 
         @Schema(description = "Show only unread messages", example = "false")
-        private boolean showUnreadOnly;
+        public boolean isShowUnreadOnly() {
+            return PreferenceFlag.SHOW_UNREAD_ONLY.isSet(flags);
+        }
 
         @Schema(description = "Show message previews", example = "true")
-        private boolean messagePreview;
+        public boolean isMessagePreview() {
+            return PreferenceFlag.MESSAGE_PREVIEW.isSet(flags);
+        }
 
         @Schema(description = "Enter to send enabled", example = "true")
-        private boolean enterToSend;
+        public boolean isEnterToSend() {
+            return PreferenceFlag.ENTER_TO_SEND.isSet(flags);
+        }
 
         @Schema(description = "Markdown enabled", example = "true")
-        private boolean markdownEnabled;
+        public boolean isMarkdownEnabled() {
+            return PreferenceFlag.MARKDOWN_ENABLED.isSet(flags);
+        }
 
         @Schema(description = "Emoji suggestions enabled", example = "true")
-        private boolean emojiSuggestionsEnabled;
+        public boolean isEmojiSuggestionsEnabled() {
+            return PreferenceFlag.EMOJI_SUGGESTIONS_ENABLED.isSet(flags);
+        }
 
         @Schema(description = "Show online status", example = "true")
-        private boolean showOnlineStatus;
+        public boolean isShowOnlineStatus() {
+            return PreferenceFlag.SHOW_ONLINE_STATUS.isSet(flags);
+        }
 
         @Schema(description = "Show typing indicator", example = "true")
-        private boolean showTypingIndicator;
+        public boolean isShowTypingIndicator() {
+            return PreferenceFlag.SHOW_TYPING_INDICATOR.isSet(flags);
+        }
 
         @Schema(description = "Show read receipts", example = "true")
-        private boolean showReadReceipts;
+        public boolean isShowReadReceipts() {
+            return PreferenceFlag.SHOW_READ_RECEIPTS.isSet(flags);
+        }
 
         @Schema(description = "Reduced motion enabled", example = "false")
-        private boolean reducedMotion;
+        public boolean isReducedMotion() {
+            return PreferenceFlag.REDUCED_MOTION.isSet(flags);
+        }
 
         @Schema(description = "High contrast mode enabled", example = "false")
-        private boolean highContrast;
+        public boolean isHighContrast() {
+            return PreferenceFlag.HIGH_CONTRAST.isSet(flags);
+        }
 
-        @Schema(description = "Font size in pixels", example = "14")
-        private int fontSize;
+        /** Reads flags written as boolean properties, as by clients and in older cache entries */
+        @JsonAnySetter
+        void setFlagProperty(String name, Object value) {
+            PreferenceFlag flag = PreferenceFlag.forProperty(name);
+            if (flag != null && value instanceof Boolean on) flags = flag.apply(flags, on);
+        }
+    }
 
-        @Schema(description = "Custom settings")
-        private Map<String, Object> customSettings;
+    @Data @Builder @NoArgsConstructor @AllArgsConstructor
+    @Schema(description = "Request payload for a notification eligibility check")
+    public static class NotificationEligibilityRequest {
+        @NotNull
+        @Schema(description = "Recipient user IDs", requiredMode = Schema.RequiredMode.REQUIRED)
+        private List<UUID> recipientIds;
+
+        @NotNull
+        @Schema(description = "Delivery channel", example = "PUSH", requiredMode = Schema.RequiredMode.REQUIRED)
+        private NotificationChannel channel;
+    }
 
-        @Schema(description = "Last update timestamp")
-        private Instant updatedAt;
+    @Data @Builder @NoArgsConstructor @AllArgsConstructor
+    @Schema(description = "Recipients that should be notified on the channel now")
+    public static class NotificationEligibilityResponse {
+        @Schema(description = "Delivery channel", example = "PUSH")
+        private NotificationChannel channel;
+
+        @Schema(description = "Distinct eligible recipient IDs, in request order")
+        private List<UUID> eligibleIds;
+    }
+
+    @Data @Builder @NoArgsConstructor @AllArgsConstructor
+    @Schema(description = "Directory changes since a watermark")
+    public static class DirectoryChangesResponse {
+        @Schema(description = "Active users added or changed since the watermark, oldest change first")
+        private List<UserSummaryResponse> upserts;
+
+        @Schema(description = "Users to drop from the local directory: deactivated, suspended or deleted since the watermark")
+        private List<UUID> removedIds;
+
+        @Schema(description = "Watermark to send as `since` on the next call", example = "MTc2MDY5NjAwMC4wfGZmZmZmZmZmLWZmZmYtZmZmZi1mZmZmLWZmZmZmZmZmZmZmZg")
+        private String watermark;
+
+        @Schema(description = "Whether more changes are waiting; call again with the new watermark right away", example = "false")
+        private boolean hasMore;
     }
 
     @Data @Builder @NoArgsConstructor @AllArgsConstructor
@@ -395,6 +503,9 @@ public class UserDtos {
         @Min(1) @Max(100)
         @Schema(description = "Page size (1-100)", example = "20", defaultValue = "20")
         private Integer size = 20;
+
+        @Schema(description = "Continuation token from a previous response's nextCursor; an empty value starts cursor mode. Ignores page when set.")
+        private String cursor;
     }
 
     @Data @Builder @NoArgsConstructor @AllArgsConstructor
@@ -420,6 +531,9 @@ public class UserDtos {
 
         @Schema(description = "Whether this is the last page", example = "false")
         private boolean last;
+
+        @Schema(description = "Continuation token for the next page in cursor mode; null on the last page", example = "NTUwZTg0MDAtZTI5Yi00MWQ0LWE3MTYtNDQ2NjU1NDQwMDAwfHZKb2huIERvZQ")
+        private String nextCursor;
     }
 
     @Data @Builder @NoArgsConstructor @AllArgsConstructor
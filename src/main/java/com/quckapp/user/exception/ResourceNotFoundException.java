@@ -6,4 +6,7 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message) { super(message); }
+
+    /** For preallocated instances: no stack trace, no suppressed exceptions */
+    protected ResourceNotFoundException(String message, boolean stackless) { super(message, null, !stackless, !stackless); }
 }
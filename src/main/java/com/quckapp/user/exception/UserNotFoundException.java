@@ -0,0 +1,13 @@
+package com.quckapp.user.exception;
+
+/**
+ * Shared, stackless "User not found" signal for the lookup hot paths, where a
+ * burst of lookups for missing users would otherwise pay for a stack trace each.
+ * Immutable, so the single instance is safe to throw from any thread.
+ */
+public final class UserNotFoundException extends ResourceNotFoundException {
+
+    public static final UserNotFoundException INSTANCE = new UserNotFoundException();
+
+    private UserNotFoundException() { super("User not found", true); }
+}
@@ -0,0 +1,138 @@
+package com.quckapp.user.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quckapp.user.domain.repository.UserRepository;
+import com.quckapp.user.domain.repository.UserRepository.IdentityView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filters of taken emails and usernames, used to skip the
+ * existence checks on signup for values that are certainly free.
+ *
+ * A hit may be a false positive and must be confirmed against the database;
+ * a miss may be stale (a concurrent signup, or before the first rebuild
+ * finishes) and is backed by the UNIQUE constraints. Until the first rebuild
+ * completes every value is reported as possibly taken.
+ *
+ * Users are deactivated, never deleted, so a confirmed-taken value stays taken
+ * and is remembered in a small exact cache.
+ */
+@Component
+@Slf4j
+public class UserIdentityIndex {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final Cache<String, Boolean> confirmedTaken;
+
+    private volatile Filters current;
+    private volatile Filters building;
+
+    public UserIdentityIndex(UserRepository userRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.users.identity-index.enabled:true}") boolean enabled,
+                             @Value("${app.users.identity-index.expected-insertions:1000000}") long expectedInsertions,
+                             @Value("${app.users.identity-index.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${app.users.identity-index.confirmed-cache-size:10000}") long confirmedCacheSize) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.confirmedTaken = Caffeine.newBuilder().maximumSize(confirmedCacheSize).build();
+    }
+
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return filters == null || filters.emails().mightContain(normalize(email));
+    }
+
+    public boolean mightContainUsername(String username) {
+        Filters filters = current;
+        return filters == null || filters.usernames().mightContain(normalize(username));
+    }
+
+    /** Exact answer: no database access when the filter rules the email out or it was confirmed before */
+    public boolean isEmailTaken(String email) {
+        String value = normalize(email);
+        return mightContainEmail(value) && isConfirmedTaken("email:" + value, () -> userRepository.existsByEmail(value));
+    }
+
+    public boolean isUsernameTaken(String username) {
+        String value = normalize(username);
+        return mightContainUsername(value) && isConfirmedTaken("username:" + value, () -> userRepository.existsByUsername(value));
+    }
+
+    private boolean isConfirmedTaken(String key, BooleanSupplier existsQuery) {
+        if (confirmedTaken.getIfPresent(key) != null) return true;
+        if (!existsQuery.getAsBoolean()) return false;
+        confirmedTaken.put(key, Boolean.TRUE);
+        return true;
+    }
+
+    public void add(String email, String username) {
+        Filters filters = current;
+        if (filters != null) filters.add(email, username);
+        Filters next = building;
+        if (next != null) next.add(email, username);
+    }
+
+    /** Rebuild from a streamed scan of the users table; signups during the scan are recorded in both filters */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        long started = System.nanoTime();
+        try {
+            Filters next = new Filters(Math.max(expectedInsertions, userRepository.count() * 2), falsePositiveRate);
+            building = next;
+            long rows = readOnlyTransaction.execute(status -> {
+                long count = 0;
+                try (Stream<IdentityView> identities = userRepository.streamIdentities()) {
+                    for (IdentityView identity : (Iterable<IdentityView>) identities::iterator) {
+                        next.add(identity.getEmail(), identity.getUsername());
+                        count++;
+                    }
+                }
+                return count;
+            });
+            current = next;
+            log.info("Rebuilt user identity index from {} users in {} ms", rows, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("User identity index rebuild failed; signup falls back to database checks", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Filters(BloomFilter emails, BloomFilter usernames) {
+
+        Filters(long expectedInsertions, double falsePositiveRate) {
+            this(new BloomFilter(expectedInsertions, falsePositiveRate), new BloomFilter(expectedInsertions, falsePositiveRate));
+        }
+
+        void add(String email, String username) {
+            emails.put(normalize(email));
+            usernames.put(normalize(username));
+        }
+    }
+}
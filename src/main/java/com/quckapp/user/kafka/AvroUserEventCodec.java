@@ -0,0 +1,154 @@
+package com.quckapp.user.kafka;
+
+import com.quckapp.user.kafka.UserEvents.*;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.*;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Avro binary encoding of user events.
+ *
+ * Messages use the registry wire format: a zero magic byte, the 4-byte writer
+ * schema id, then the Avro body. UUIDs are 16-byte fixed values and the
+ * timestamp is epoch milliseconds, so field names and string forms never
+ * reach the broker.
+ */
+public class AvroUserEventCodec implements UserEventCodec {
+
+    public static final String CONTENT_TYPE = "application/vnd.quckapp.user-event+avro";
+
+    private static final byte MAGIC_BYTE = 0;
+    private static final int HEADER_LENGTH = 5;
+
+    private final UserEventSchemaRegistry registry;
+    private final Schema schema;
+    private final Schema uuidSchema;
+    private final Schema eventTypeSchema;
+    private final Map<String, Schema> dataSchemas;
+    private final GenericDatumWriter<GenericRecord> writer;
+    private final Map<Integer, GenericDatumReader<GenericRecord>> readers = new ConcurrentHashMap<>();
+
+    public AvroUserEventCodec(UserEventSchemaRegistry registry) {
+        this.registry = registry;
+        this.schema = registry.current();
+        this.uuidSchema = schema.getField("userId").schema();
+        this.eventTypeSchema = schema.getField("eventType").schema();
+        this.dataSchemas = schema.getField("data").schema().getTypes().stream()
+            .collect(Collectors.toMap(Schema::getName, Function.identity()));
+        this.writer = new GenericDatumWriter<>(schema);
+    }
+
+    @Override
+    public byte[] encode(UserEvent event) {
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("eventType", new GenericData.EnumSymbol(eventTypeSchema, event.eventType().name()));
+        record.put("userId", fixed(event.userId()));
+        record.put("timestamp", event.timestamp().toEpochMilli());
+        record.put("source", event.source());
+        record.put("data", encodeData(event.data()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(MAGIC_BYTE);
+        out.writeBytes(ByteBuffer.allocate(4).putInt(UserEventSchemaRegistry.CURRENT_SCHEMA_ID).array());
+        try {
+            BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, null);
+            writer.write(record, encoder);
+            encoder.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode " + event.eventType() + " event", e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public UserEvent decode(byte[] payload) {
+        if (payload.length < HEADER_LENGTH || payload[0] != MAGIC_BYTE) {
+            throw new IllegalArgumentException("Not a framed Avro user event");
+        }
+        int schemaId = ByteBuffer.wrap(payload, 1, 4).getInt();
+        GenericDatumReader<GenericRecord> reader = readers.computeIfAbsent(schemaId,
+            id -> new GenericDatumReader<>(registry.schema(id), schema));
+        try {
+            GenericRecord record = reader.read(null,
+                DecoderFactory.get().binaryDecoder(payload, HEADER_LENGTH, payload.length - HEADER_LENGTH, null));
+            return new UserEvent(UserEventType.valueOf(record.get("eventType").toString()),
+                uuid(record.get("userId")),
+                Instant.ofEpochMilli((Long) record.get("timestamp")),
+                record.get("source").toString(),
+                decodeData((GenericRecord) record.get("data")));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Malformed Avro user event", e);
+        }
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    private GenericRecord encodeData(EventData data) {
+        GenericRecord record = new GenericData.Record(dataSchemas.get(data.getClass().getSimpleName()));
+        switch (data) {
+            case UserCreated d -> {
+                record.put("id", fixed(d.id()));
+                record.put("email", d.email());
+                record.put("username", d.username());
+            }
+            case UserUpdated d -> {
+                record.put("id", fixed(d.id()));
+                record.put("email", d.email());
+                record.put("displayName", d.displayName());
+            }
+            case UserStatusChanged d -> {
+                record.put("id", fixed(d.id()));
+                record.put("email", d.email());
+            }
+            case ProfileUpdated d -> {
+                record.put("userId", fixed(d.userId()));
+                record.put("customStatus", d.customStatus());
+            }
+            case PreferencesUpdated d -> {
+                record.put("userId", fixed(d.userId()));
+                record.put("theme", d.theme());
+            }
+        }
+        return record;
+    }
+
+    private static EventData decodeData(GenericRecord r) {
+        return switch (r.getSchema().getName()) {
+            case "UserCreated" -> new UserCreated(uuid(r.get("id")), string(r.get("email")), string(r.get("username")));
+            case "UserUpdated" -> new UserUpdated(uuid(r.get("id")), string(r.get("email")), string(r.get("displayName")));
+            case "UserStatusChanged" -> new UserStatusChanged(uuid(r.get("id")), string(r.get("email")));
+            case "ProfileUpdated" -> new ProfileUpdated(uuid(r.get("userId")), string(r.get("customStatus")));
+            case "PreferencesUpdated" -> new PreferencesUpdated(uuid(r.get("userId")), string(r.get("theme")));
+            default -> throw new IllegalArgumentException("Unknown event data " + r.getSchema().getName());
+        };
+    }
+
+    private GenericData.Fixed fixed(UUID id) {
+        return new GenericData.Fixed(uuidSchema, ByteBuffer.allocate(16)
+            .putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).array());
+    }
+
+    private static UUID uuid(Object fixed) {
+        ByteBuffer bytes = ByteBuffer.wrap(((GenericFixed) fixed).bytes());
+        return new UUID(bytes.getLong(), bytes.getLong());
+    }
+
+    private static String string(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
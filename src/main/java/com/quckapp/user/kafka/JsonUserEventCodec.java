@@ -0,0 +1,59 @@
+package com.quckapp.user.kafka;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quckapp.user.kafka.UserEvents.UserEvent;
+import com.quckapp.user.kafka.UserEvents.UserEventType;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The original JSON envelope: eventType, userId, data, ISO-8601 timestamp and source.
+ */
+@RequiredArgsConstructor
+public class JsonUserEventCodec implements UserEventCodec {
+
+    public static final String CONTENT_TYPE = "application/json";
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public byte[] encode(UserEvent event) {
+        Map<String, Object> envelope = new LinkedHashMap<>();
+        envelope.put("eventType", event.eventType().name());
+        envelope.put("userId", event.userId().toString());
+        envelope.put("data", event.data());
+        envelope.put("timestamp", event.timestamp().toString());
+        envelope.put("source", event.source());
+        try {
+            return objectMapper.writeValueAsBytes(envelope);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode " + event.eventType() + " event", e);
+        }
+    }
+
+    @Override
+    public UserEvent decode(byte[] payload) {
+        try {
+            JsonNode envelope = objectMapper.readTree(payload);
+            UserEventType eventType = UserEventType.valueOf(envelope.get("eventType").asText());
+            return new UserEvent(eventType,
+                UUID.fromString(envelope.get("userId").asText()),
+                Instant.parse(envelope.get("timestamp").asText()),
+                envelope.get("source").asText(),
+                objectMapper.treeToValue(envelope.get("data"), UserEvents.dataType(eventType)));
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Malformed JSON user event", e);
+        }
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+}
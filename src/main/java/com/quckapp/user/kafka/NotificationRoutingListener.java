@@ -0,0 +1,79 @@
+package com.quckapp.user.kafka;
+
+import com.quckapp.user.kafka.UserEventPartitions.Positions;
+import com.quckapp.user.kafka.UserEvents.UserEventType;
+import com.quckapp.user.notification.NotificationRoutingTable;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reloads the local {@link NotificationRoutingTable} entry of users created, or whose
+ * preferences, time zone or status changed, on another instance.
+ *
+ * Every instance needs every event, so each one reads all partitions without a consumer
+ * group, from the offsets captured before the table's startup rebuild
+ * (see {@link UserEventPartitions}). The record key is the user id, so the payload is
+ * never decoded and either encoding is handled.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.notification-routing.listener.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRoutingListener implements ConsumerSeekAware {
+
+    private static final Set<String> ROUTING_EVENTS = Set.of(UserEventType.USER_CREATED.name(),
+        UserEventType.USER_UPDATED.name(), UserEventType.USER_DEACTIVATED.name(), UserEventType.USER_SUSPENDED.name(),
+        UserEventType.PREFERENCES_UPDATED.name());
+
+    private final NotificationRoutingTable routingTable;
+    private final UserEventPartitions partitions;
+
+    private Positions positions;
+
+    /** Runs before the table's ApplicationReadyEvent rebuild */
+    @PostConstruct
+    void captureStartPositions() {
+        positions = partitions.startPositions();
+    }
+
+    @KafkaListener(topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+                       topic = "${app.kafka.topics.user-events:quckapp.users.events}",
+                       partitions = "#{@userEventPartitions.all()}"),
+                   containerFactory = "userEventsListenerContainerFactory")
+    public void onUserEvent(ConsumerRecord<String, byte[]> record) {
+        positions.handled(record);
+        if (!ROUTING_EVENTS.contains(header(record, OutboxRelay.EVENT_TYPE_HEADER))) return;
+        UUID userId;
+        try {
+            userId = UUID.fromString(record.key());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("Skipping user event at offset {} with key {}", record.offset(), record.key());
+            return;
+        }
+        // The reload reads committed state, so a replay of our own event is harmless
+        routingTable.reload(userId);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        positions.seek(assignments.keySet(), callback);
+    }
+
+    private static String header(ConsumerRecord<String, byte[]> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
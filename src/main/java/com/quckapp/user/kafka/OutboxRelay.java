@@ -0,0 +1,180 @@
+package com.quckapp.user.kafka;
+
+import com.quckapp.user.domain.entity.OutboxEvent;
+import com.quckapp.user.domain.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the user event outbox to Kafka.
+ *
+ * One instance at a time holds the relay lease (a row in outbox_relay_lease, renewed
+ * on the database clock before every batch), so events for a user leave in outbox
+ * order. Each pass reads a batch of unsent rows, hands all of them to the producer at
+ * once so they are batched and compressed together, waits for the acks outside any
+ * transaction and marks the delivered rows sent with one short UPDATE. Once an event
+ * fails, later events for the same key in the batch stay unsent too, and the whole
+ * run is retried from the failed one on the next pass, so delivery is at-least-once
+ * and in order per key.
+ *
+ * A batch has one deadline, {@code send-timeout}, for all of its sends and acks; the
+ * lease lasts twice that, and the producer's own {@code max.block.ms} and
+ * {@code delivery.timeout.ms} are configured below it (see KafkaConfig). The rows are
+ * marked sent in the same transaction that renews the lease, and not at all if the
+ * lease was lost meanwhile, so another instance never takes over a half-marked batch.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OutboxRelay {
+
+    static final String EVENT_TYPE_HEADER = "eventType";
+    static final String LEASE_NAME = "user-events";
+
+    private final OutboxEventRepository outboxRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration retention;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Counter sent;
+    private final Counter failed;
+
+    public OutboxRelay(OutboxEventRepository outboxRepository, KafkaTemplate<String, byte[]> kafkaTemplate,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                       @Value("${app.kafka.outbox.batch-size:500}") int batchSize,
+                       @Value("${app.kafka.outbox.send-timeout:30s}") Duration sendTimeout,
+                       @Value("${app.kafka.outbox.retention:24h}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.retention = retention;
+        this.sent = Counter.builder("outbox.relay.events").tag("result", "sent").register(meterRegistry);
+        this.failed = Counter.builder("outbox.relay.events").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.kafka.outbox.poll-interval-ms:200}")
+    public void relay() {
+        // Keep draining while full batches are delivered; stop on a short or failing batch and wait for the next tick
+        int delivered;
+        do {
+            delivered = relayBatch();
+        } while (delivered == batchSize);
+    }
+
+    /**
+     * Relay one batch and return how many of its events were delivered.
+     */
+    int relayBatch() {
+        if (!holdsLease()) return 0;
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        List<OutboxEvent> batch = outboxRepository.findUnsentBatch(batchSize);
+        if (batch.isEmpty()) return 0;
+
+        // send() may block for up to max.block.ms; events not handed over by the deadline wait for the next pass
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) futures.add(System.nanoTime() < deadline ? send(event) : null);
+
+        List<Long> deliveredIds = new ArrayList<>(batch.size());
+        Set<String> failedKeys = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            boolean acked = futures.get(i) != null && awaitAck(event, futures.get(i), deadline);
+            // An acked event behind a failed one for the same key is resent with it, never left ahead of it
+            if (acked && !failedKeys.contains(event.getMessageKey())) deliveredIds.add(event.getId());
+            else failedKeys.add(event.getMessageKey());
+        }
+        sent.increment(deliveredIds.size());
+        failed.increment(batch.size() - deliveredIds.size());
+        if (deliveredIds.isEmpty()) return 0;
+
+        Boolean marked = transactionTemplate.execute(status -> {
+            if (outboxRepository.renewLease(LEASE_NAME, instanceId, leaseMillis()) != 1) return false;
+            outboxRepository.markSent(deliveredIds, Instant.now());
+            return true;
+        });
+        if (!Boolean.TRUE.equals(marked)) {
+            log.warn("Outbox relay lease lost during a batch; {} delivered events stay unsent for the new holder", deliveredIds.size());
+            return 0;
+        }
+        return deliveredIds.size();
+    }
+
+    /** Hand the lease over on shutdown instead of leaving the other instances to wait for it to expire */
+    @PreDestroy
+    public void releaseLease() {
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.releaseLease(LEASE_NAME, instanceId));
+    }
+
+    private boolean holdsLease() {
+        Integer held = transactionTemplate.execute(status -> outboxRepository.acquireLease(LEASE_NAME, instanceId, leaseMillis()));
+        return held != null && held == 1;
+    }
+
+    /** Twice the batch deadline, so a batch that runs to its deadline still ends inside the lease */
+    private long leaseMillis() {
+        return sendTimeout.multipliedBy(2).toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${app.kafka.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        Instant cutoff = Instant.now().minus(retention);
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> outboxRepository.deleteSentBefore(cutoff, batchSize));
+        } while (deleted != null && deleted == batchSize);
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(OutboxEvent event) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(event.getTopic(), event.getMessageKey(), event.getPayload());
+        record.headers().add(EVENT_TYPE_HEADER, event.getEventType().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(UserEventCodec.CONTENT_TYPE_HEADER, event.getContentType().getBytes(StandardCharsets.UTF_8));
+        try {
+            return kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private boolean awaitAck(OutboxEvent event, CompletableFuture<SendResult<String, byte[]>> future, long deadline) {
+        try {
+            future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (TimeoutException e) {
+            log.warn("{} event {} for {} not acknowledged within the batch deadline", event.getEventType(), event.getId(), event.getMessageKey());
+            return false;
+        } catch (Exception e) {
+            log.error("Failed to relay {} event {} for {}", event.getEventType(), event.getId(), event.getMessageKey(), e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.quckapp.user.kafka;
+
+import com.quckapp.user.kafka.UserEvents.UserEvent;
+
+/**
+ * Wire encoding for user events, selected with {@code app.kafka.events.encoding}.
+ */
+public interface UserEventCodec {
+
+    String CONTENT_TYPE_HEADER = "content-type";
+
+    byte[] encode(UserEvent event);
+
+    UserEvent decode(byte[] payload);
+
+    /** Value of the {@value #CONTENT_TYPE_HEADER} record header */
+    String contentType();
+}
@@ -0,0 +1,25 @@
+package com.quckapp.user.kafka;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Every supported user event codec by content type, for consumers that must read
+ * records in either encoding while a topic switches {@code app.kafka.events.encoding}.
+ */
+public class UserEventCodecs {
+
+    private final Map<String, UserEventCodec> byContentType;
+
+    public UserEventCodecs(List<UserEventCodec> codecs) {
+        this.byContentType = codecs.stream().collect(Collectors.toUnmodifiableMap(UserEventCodec::contentType, Function.identity()));
+    }
+
+    /** Records without the header predate it and carry the JSON envelope */
+    public Optional<UserEventCodec> forContentType(String contentType) {
+        return Optional.ofNullable(byContentType.get(contentType != null ? contentType : JsonUserEventCodec.CONTENT_TYPE));
+    }
+}
@@ -0,0 +1,84 @@
+package com.quckapp.user.kafka;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Partition numbers of the user events topic, for listeners that need every event on
+ * every instance and so assign themselves all partitions instead of joining a consumer
+ * group: {@code @TopicPartition(partitions = "#{@userEventPartitions.all()}")}.
+ *
+ * Falls back to the declared partition count when the topic does not exist yet; it is
+ * created by {@code KafkaAdmin} after the listeners are registered.
+ *
+ * Such listeners back an in-memory structure rebuilt from the database at startup, so
+ * they capture {@link #startPositions()} before that rebuild and seek there on
+ * assignment; events published between the rebuild scan and the assignment are then
+ * replayed instead of lost.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserEventPartitions {
+
+    private final ConsumerFactory<String, byte[]> userEventsConsumerFactory;
+    private final NewTopic userEventsTopic;
+
+    public String[] all() {
+        List<PartitionInfo> partitions;
+        try (Consumer<String, byte[]> consumer = userEventsConsumerFactory.createConsumer()) {
+            partitions = consumer.partitionsFor(userEventsTopic.name());
+        }
+        IntStream numbers = partitions != null && !partitions.isEmpty()
+            ? partitions.stream().mapToInt(PartitionInfo::partition)
+            : IntStream.range(0, userEventsTopic.numPartitions());
+        return numbers.sorted().mapToObj(String::valueOf).toArray(String[]::new);
+    }
+
+    /** The current end of every partition; partitions created later are read from the beginning */
+    public Positions startPositions() {
+        try (Consumer<String, byte[]> consumer = userEventsConsumerFactory.createConsumer()) {
+            List<PartitionInfo> partitions = consumer.partitionsFor(userEventsTopic.name());
+            if (partitions == null || partitions.isEmpty()) return new Positions(Map.of());
+            return new Positions(consumer.endOffsets(
+                partitions.stream().map(p -> new TopicPartition(p.topic(), p.partition())).toList()));
+        }
+    }
+
+    /** Next offset to read per partition: the captured start, then just past each record handled */
+    public static final class Positions {
+
+        private final Map<TopicPartition, Long> next;
+
+        Positions(Map<TopicPartition, Long> start) {
+            this.next = new ConcurrentHashMap<>(start);
+        }
+
+        public void handled(ConsumerRecord<?, ?> record) {
+            next.put(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+        }
+
+        public void seek(Collection<TopicPartition> partitions, ConsumerSeekCallback callback) {
+            List<TopicPartition> unknown = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                Long offset = next.get(partition);
+                if (offset != null) callback.seek(partition.topic(), partition.partition(), offset);
+                else unknown.add(partition);
+            }
+            if (!unknown.isEmpty()) callback.seekToBeginning(unknown);
+        }
+    }
+}
@@ -1,73 +1,76 @@
 package com.quckapp.user.kafka;
 
+import com.quckapp.user.domain.entity.OutboxEvent;
 import com.quckapp.user.domain.entity.User;
 import com.quckapp.user.domain.entity.UserPreferences;
 import com.quckapp.user.domain.entity.UserProfile;
+import com.quckapp.user.domain.repository.OutboxEventRepository;
+import com.quckapp.user.kafka.UserEvents.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
 
+/**
+ * Records user events in the transactional outbox.
+ *
+ * Events are written in the caller's transaction, so they are only published
+ * if the write that caused them commits; {@link OutboxRelay} sends them to Kafka.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
 public class UserEventPublisher {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private static final String SOURCE = "user-service";
+
+    private final OutboxEventRepository outboxRepository;
+    private final UserEventCodec codec;
 
     @Value("${app.kafka.topics.user-events:quckapp.users.events}")
     private String userEventsTopic;
 
-    @Async
     public void publishUserCreated(User user) {
-        publishEvent("USER_CREATED", user.getId(), Map.of("id", user.getId().toString(), "email", user.getEmail(), "username", user.getUsername()));
+        publishEvent(UserEventType.USER_CREATED, user.getId(), new UserCreated(user.getId(), user.getEmail(), user.getUsername()));
     }
 
-    @Async
     public void publishUserUpdated(User user) {
-        publishEvent("USER_UPDATED", user.getId(), Map.of("id", user.getId().toString(), "email", user.getEmail(), "displayName", user.getDisplayName() != null ? user.getDisplayName() : ""));
+        publishEvent(UserEventType.USER_UPDATED, user.getId(),
+            new UserUpdated(user.getId(), user.getEmail(), user.getDisplayName() != null ? user.getDisplayName() : ""));
     }
 
-    @Async
     public void publishUserDeactivated(User user) {
-        publishEvent("USER_DEACTIVATED", user.getId(), Map.of("id", user.getId().toString(), "email", user.getEmail()));
+        publishEvent(UserEventType.USER_DEACTIVATED, user.getId(), new UserStatusChanged(user.getId(), user.getEmail()));
     }
 
-    @Async
     public void publishUserSuspended(User user) {
-        publishEvent("USER_SUSPENDED", user.getId(), Map.of("id", user.getId().toString(), "email", user.getEmail()));
+        publishEvent(UserEventType.USER_SUSPENDED, user.getId(), new UserStatusChanged(user.getId(), user.getEmail()));
     }
 
-    @Async
     public void publishProfileUpdated(UUID userId, UserProfile profile) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("userId", userId.toString());
-        if (profile.getCustomStatus() != null) data.put("customStatus", profile.getCustomStatus());
-        publishEvent("PROFILE_UPDATED", userId, data);
+        publishEvent(UserEventType.PROFILE_UPDATED, userId, new ProfileUpdated(userId, profile.getCustomStatus()));
     }
 
-    @Async
     public void publishPreferencesUpdated(UUID userId, UserPreferences preferences) {
-        publishEvent("PREFERENCES_UPDATED", userId, Map.of("userId", userId.toString(), "theme", preferences.getTheme()));
+        publishPreferencesUpdated(userId, preferences.getTheme());
+    }
+
+    /** For writes that change preferences in SQL without loading the entity */
+    public void publishPreferencesUpdated(UUID userId, String theme) {
+        publishEvent(UserEventType.PREFERENCES_UPDATED, userId, new PreferencesUpdated(userId, theme));
     }
 
-    private void publishEvent(String eventType, UUID userId, Map<String, Object> data) {
-        try {
-            Map<String, Object> event = new HashMap<>();
-            event.put("eventType", eventType);
-            event.put("userId", userId.toString());
-            event.put("data", data);
-            event.put("timestamp", Instant.now().toString());
-            event.put("source", "user-service");
-            kafkaTemplate.send(userEventsTopic, userId.toString(), event)
-                .whenComplete((r, ex) -> { if (ex != null) log.error("Failed to publish {}", eventType, ex); });
-        } catch (Exception e) { log.error("Error publishing {} event", eventType, e); }
+    private void publishEvent(UserEventType eventType, UUID userId, EventData data) {
+        UserEvent event = new UserEvent(eventType, userId, Instant.now(), SOURCE, data);
+        // Encoding failures propagate and roll back the caller: the write must not commit without its event
+        outboxRepository.save(OutboxEvent.builder().topic(userEventsTopic).messageKey(userId.toString())
+            .eventType(eventType.name()).contentType(codec.contentType()).payload(codec.encode(event)).build());
+        log.debug("Recorded {} event for user {} in the outbox", eventType, userId);
     }
 }
@@ -0,0 +1,41 @@
+package com.quckapp.user.kafka;
+
+import org.apache.avro.Schema;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Local stand-in for a schema registry: the event schemas are versioned
+ * classpath resources and each version has a fixed id.
+ *
+ * Framed messages carry the writer's schema id, so consumers can keep
+ * decoding old messages after the schema evolves. Moving to a shared registry
+ * only changes where {@link #schema(int)} looks ids up.
+ */
+public class UserEventSchemaRegistry {
+
+    public static final int CURRENT_SCHEMA_ID = 1;
+
+    private final Map<Integer, Schema> schemas = Map.of(1, load("/avro/user-event-v1.avsc"));
+
+    public Schema current() {
+        return schema(CURRENT_SCHEMA_ID);
+    }
+
+    public Schema schema(int id) {
+        Schema schema = schemas.get(id);
+        if (schema == null) throw new IllegalArgumentException("Unknown user event schema id " + id);
+        return schema;
+    }
+
+    private static Schema load(String resource) {
+        try (InputStream in = UserEventSchemaRegistry.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Missing schema resource " + resource);
+            return new Schema.Parser().parse(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read schema resource " + resource, e);
+        }
+    }
+}
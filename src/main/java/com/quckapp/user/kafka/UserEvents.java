@@ -0,0 +1,47 @@
+package com.quckapp.user.kafka;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Typed user events published on {@code quckapp.users.events}.
+ *
+ * The wire format is chosen by {@link UserEventCodec}; these types mirror
+ * {@code avro/user-event-v1.avsc}.
+ */
+public final class UserEvents {
+
+    private UserEvents() {}
+
+    public enum UserEventType {
+        USER_CREATED, USER_UPDATED, USER_DEACTIVATED, USER_SUSPENDED, PROFILE_UPDATED, PREFERENCES_UPDATED
+    }
+
+    public record UserEvent(UserEventType eventType, UUID userId, Instant timestamp, String source, EventData data) {}
+
+    public sealed interface EventData permits UserCreated, UserUpdated, UserStatusChanged, ProfileUpdated, PreferencesUpdated {}
+
+    public record UserCreated(UUID id, String email, String username) implements EventData {}
+
+    public record UserUpdated(UUID id, String email, String displayName) implements EventData {}
+
+    /** Payload of USER_DEACTIVATED and USER_SUSPENDED */
+    public record UserStatusChanged(UUID id, String email) implements EventData {}
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record ProfileUpdated(UUID userId, String customStatus) implements EventData {}
+
+    public record PreferencesUpdated(UUID userId, String theme) implements EventData {}
+
+    static Class<? extends EventData> dataType(UserEventType eventType) {
+        return switch (eventType) {
+            case USER_CREATED -> UserCreated.class;
+            case USER_UPDATED -> UserUpdated.class;
+            case USER_DEACTIVATED, USER_SUSPENDED -> UserStatusChanged.class;
+            case PROFILE_UPDATED -> ProfileUpdated.class;
+            case PREFERENCES_UPDATED -> PreferencesUpdated.class;
+        };
+    }
+}
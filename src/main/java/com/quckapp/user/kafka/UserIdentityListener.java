@@ -0,0 +1,75 @@
+package com.quckapp.user.kafka;
+
+import com.quckapp.user.index.UserIdentityIndex;
+import com.quckapp.user.kafka.UserEventPartitions.Positions;
+import com.quckapp.user.kafka.UserEvents.UserCreated;
+import com.quckapp.user.kafka.UserEvents.UserEventType;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Adds users created on other instances to the local {@link UserIdentityIndex}.
+ *
+ * Every instance needs every event, so each one reads all partitions without a consumer
+ * group, from the offsets captured before the index's startup rebuild
+ * (see {@link UserEventPartitions}). Records are decoded by their content-type header,
+ * so both encodings are read while a topic switches between them.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka.identity-index.listener.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class UserIdentityListener implements ConsumerSeekAware {
+
+    private final UserIdentityIndex identityIndex;
+    private final UserEventCodecs codecs;
+    private final UserEventPartitions partitions;
+
+    private Positions positions;
+
+    /** Runs before the index's ApplicationReadyEvent rebuild */
+    @PostConstruct
+    void captureStartPositions() {
+        positions = partitions.startPositions();
+    }
+
+    @KafkaListener(topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+                       topic = "${app.kafka.topics.user-events:quckapp.users.events}",
+                       partitions = "#{@userEventPartitions.all()}"),
+                   containerFactory = "userEventsListenerContainerFactory")
+    public void onUserEvent(ConsumerRecord<String, byte[]> record) {
+        positions.handled(record);
+        // Only creations change the index; skip decoding everything else
+        if (!UserEventType.USER_CREATED.name().equals(header(record, OutboxRelay.EVENT_TYPE_HEADER))) return;
+        String contentType = header(record, UserEventCodec.CONTENT_TYPE_HEADER);
+        UserEventCodec codec = codecs.forContentType(contentType).orElse(null);
+        if (codec == null) {
+            log.warn("Skipping user event at offset {} with unknown content type {}", record.offset(), contentType);
+            return;
+        }
+        if (codec.decode(record.value()).data() instanceof UserCreated created) {
+            identityIndex.add(created.email(), created.username());
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        positions.seek(assignments.keySet(), callback);
+    }
+
+    private static String header(ConsumerRecord<String, byte[]> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.quckapp.user.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Fills the BINARY(16) shadow key columns added by V6, in short primary-key
+ * ranges that each commit on their own so it never holds long locks. Rows inserted
+ * after V6 are filled by the insert triggers, so a single pass is enough.
+ *
+ * Not part of the service context: it runs from {@link UuidBinaryBackfillApplication}
+ * against a schema migrated to V6 ({@code FLYWAY_TARGET=6}), and again from the V7_1
+ * migration for whatever is left. It is safe to re-run; tables whose shadow column
+ * is gone (already contracted) are skipped.
+ */
+@Slf4j
+public class UuidBinaryBackfill {
+
+    private static final List<Target> TARGETS = List.of(
+        new Target("users", "id"),
+        new Target("user_profiles", "user_id"),
+        new Target("user_preferences", "user_id"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Duration pause;
+
+    public UuidBinaryBackfill(JdbcTemplate jdbcTemplate,
+                              @Value("${app.migration.uuid-backfill.batch-size:5000}") int batchSize,
+                              @Value("${app.migration.uuid-backfill.pause:50ms}") Duration pause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    public void run() throws InterruptedException {
+        for (Target target : TARGETS) backfill(target);
+    }
+
+    private void backfill(Target target) throws InterruptedException {
+        if (!hasShadowColumn(target)) {
+            log.info("Skipping {}: no {} column", target.table(), target.shadowColumn());
+            return;
+        }
+        String upperBound = "SELECT MAX(k) FROM (SELECT " + target.column() + " AS k FROM " + target.table() +
+            " WHERE " + target.column() + " > ? ORDER BY " + target.column() + " LIMIT ?) batch";
+        String update = "UPDATE " + target.table() + " SET " + target.shadowColumn() + " = UUID_TO_BIN(" + target.column() + ")" +
+            " WHERE " + target.column() + " > ? AND " + target.column() + " <= ? AND " + target.shadowColumn() + " IS NULL";
+
+        String lower = "";
+        long filled = 0;
+        String upper;
+        while ((upper = jdbcTemplate.queryForObject(upperBound, String.class, lower, batchSize)) != null) {
+            filled += jdbcTemplate.update(update, lower, upper);
+            lower = upper;
+            Thread.sleep(pause.toMillis());
+        }
+        log.info("Backfilled {} rows of {}.{}", filled, target.table(), target.shadowColumn());
+    }
+
+    private boolean hasShadowColumn(Target target) {
+        Integer columns = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?",
+            Integer.class, target.table(), target.shadowColumn());
+        return columns != null && columns > 0;
+    }
+
+    private record Target(String table, String column) {
+        String shadowColumn() {
+            return column + "_bin";
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.quckapp.user.migration;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Entry point for {@link UuidBinaryBackfill}. Starts only a DataSource and JdbcTemplate
+ * (no web server, Flyway, Hibernate, Kafka or Redis), runs the backfill and returns:
+ * <pre>
+ * java -cp user-service.jar -Dloader.main=com.quckapp.user.migration.UuidBinaryBackfillApplication \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher
+ * </pre>
+ * Not a component, so the service's own component scan never picks it up.
+ */
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, JdbcTemplateAutoConfiguration.class})
+@Import(UuidBinaryBackfill.class)
+public class UuidBinaryBackfillApplication {
+
+    public static void main(String[] args) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UuidBinaryBackfillApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+            context.getBean(UuidBinaryBackfill.class).run();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.quckapp.user.notification;
+
+/**
+ * Delivery channels a notification can be routed to; {@code flag} is the
+ * channel's bit in a {@link NotificationRoutingTable} route word.
+ */
+public enum NotificationChannel {
+    PUSH(1),
+    EMAIL(1 << 1),
+    SMS(1 << 2);
+
+    final long flag;
+
+    NotificationChannel(long flag) {
+        this.flag = flag;
+    }
+}
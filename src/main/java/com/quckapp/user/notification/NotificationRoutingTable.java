@@ -0,0 +1,292 @@
+package com.quckapp.user.notification;
+
+import com.quckapp.user.domain.entity.User;
+import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.entity.UserPreferences;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
+import com.quckapp.user.domain.repository.UserRepository;
+import com.quckapp.user.domain.repository.UserRepository.RoutingView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory routing state for notification eligibility: one packed 64-bit route
+ * word per user, in a slot array indexed by user id.
+ *
+ * Word layout, low bits first: channel bits (push, email, SMS), the quiet-hours bit,
+ * the active-user bit, the quiet window's start and end as local minutes of day, the
+ * same window in UTC minutes at the zone's current offset, then the zone's index.
+ * Checks only read the active and channel bits and the UTC window; the UTC windows
+ * are recomputed periodically so DST changes are picked up.
+ *
+ * Users without a preferences row get the defaults: push and email, no quiet hours.
+ * Ids that are not users read as an empty word, so they are never eligible, and
+ * inactive or suspended users keep their word without the active bit.
+ * Updates made here apply after commit, updates from other instances arrive through
+ * {@link com.quckapp.user.kafka.NotificationRoutingListener}, and until the first
+ * rebuild completes lookups read the database.
+ */
+@Component
+@Slf4j
+public class NotificationRoutingTable {
+
+    static final long FLAG_QUIET = 1 << 3;
+    static final long FLAG_ACTIVE = 1 << 4;
+    /** Route word of an id that is not a user */
+    static final long NO_ROUTE = 0;
+    private static final int LOCAL_START = 8;
+    private static final int LOCAL_END = 19;
+    private static final int UTC_START = 30;
+    private static final int UTC_END = 41;
+    private static final int ZONE = 52;
+    private static final long MINUTE_MASK = (1L << 11) - 1;
+    private static final long ZONE_MASK = (1L << 12) - 1;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final List<ZoneId> zones = new CopyOnWriteArrayList<>(List.of(ZoneOffset.UTC));
+    private final Map<ZoneId, Integer> zoneIndexes = new ConcurrentHashMap<>(Map.of(ZoneOffset.UTC, 0));
+
+    private volatile Routes current;
+    private volatile Routes building;
+
+    public NotificationRoutingTable(UserRepository userRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.notifications.routing.enabled:true}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    /** Distinct ids, in request order, that should get a notification on the channel at {@code now} */
+    public List<UUID> eligible(List<UUID> userIds, NotificationChannel channel, Instant now) {
+        List<UUID> distinct = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        int utcMinute = (int) Math.floorMod(now.getEpochSecond() / 60, (long) MINUTES_PER_DAY);
+        Routes routes = current;
+        if (routes != null) {
+            return distinct.stream().filter(id -> isEligible(routes.get(id), channel, utcMinute)).toList();
+        }
+        Map<UUID, Long> loaded = load(distinct, now);
+        return distinct.stream().filter(id -> isEligible(loaded.getOrDefault(id, NO_ROUTE), channel, utcMinute)).toList();
+    }
+
+    /** Apply a new user or saved preferences (the defaults when null) once the transaction commits */
+    public void update(User user, UserPreferences preferences) {
+        long word = preferences != null
+            ? encode(user.getStatus(), preferences.getFlags(), preferences.getQuietHoursStart(), preferences.getQuietHoursEnd(),
+                user.getTimezone(), Instant.now())
+            : encode(user.getStatus(), PreferenceFlag.DEFAULTS, null, null, user.getTimezone(), Instant.now());
+        UUID userId = user.getId();
+        runAfterCommit(() -> apply(userId, word));
+    }
+
+    /** Stop or resume routing to a user whose status changed once the transaction commits */
+    public void updateStatus(UUID userId, UserStatus status) {
+        runAfterCommit(() -> forEachRoutes(routes -> routes.update(userId,
+            word -> status == UserStatus.ACTIVE ? word | FLAG_ACTIVE : word & ~FLAG_ACTIVE)));
+    }
+
+    /** Move a user's quiet window to a new time zone once the transaction commits */
+    public void updateTimezone(UUID userId, String timezone) {
+        int zone = zoneIndex(timezone);
+        runAfterCommit(() -> forEachRoutes(routes -> routes.update(userId,
+            word -> withUtcWindow((word & ~(ZONE_MASK << ZONE)) | ((long) zone << ZONE), Instant.now()))));
+    }
+
+    /** Re-read one user's settings and status, for changes committed by another instance */
+    public void reload(UUID userId) {
+        if (!enabled) return;
+        apply(userId, load(List.of(userId), Instant.now()).getOrDefault(userId, NO_ROUTE));
+    }
+
+    /** Rebuild from a streamed scan of users and their preferences; updates during the scan are recorded in both tables */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        long started = System.nanoTime();
+        try {
+            Routes next = new Routes(userRepository.count());
+            building = next;
+            Instant now = Instant.now();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<RoutingView> rows = userRepository.streamRoutes()) {
+                    rows.forEach(row -> next.putIfAbsent(row.getUserId(), encode(row, now)));
+                }
+            });
+            current = next;
+            log.info("Rebuilt notification routing table for {} users in {} ms", next.size(), (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Notification routing table rebuild failed; eligibility falls back to database reads", e);
+        } finally {
+            building = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.routing.quiet-window-refresh-ms:900000}")
+    public void refreshUtcWindows() {
+        Routes routes = current;
+        if (routes != null) routes.updateAll(word -> withUtcWindow(word, Instant.now()));
+    }
+
+    static boolean isEligible(long word, NotificationChannel channel, int utcMinute) {
+        if ((word & FLAG_ACTIVE) == 0 || (word & channel.flag) == 0) return false;
+        if ((word & FLAG_QUIET) == 0) return true;
+        int start = field(word, UTC_START);
+        int end = field(word, UTC_END);
+        boolean quiet = start <= end ? utcMinute >= start && utcMinute < end : utcMinute >= start || utcMinute < end;
+        return !quiet;
+    }
+
+    private Map<UUID, Long> load(Collection<UUID> userIds, Instant now) {
+        if (userIds.isEmpty()) return Map.of();
+        return userRepository.findRoutes(userIds).stream()
+            .collect(Collectors.toMap(RoutingView::getUserId, row -> encode(row, now)));
+    }
+
+    private void apply(UUID userId, long word) {
+        forEachRoutes(routes -> routes.put(userId, word));
+    }
+
+    private void forEachRoutes(Consumer<Routes> action) {
+        Routes routes = current;
+        if (routes != null) action.accept(routes);
+        Routes next = building;
+        if (next != null) action.accept(next);
+    }
+
+    private long encode(RoutingView row, Instant now) {
+        return encode(row.getStatus(), row.getFlags(), row.getQuietHoursStart(), row.getQuietHoursEnd(), row.getTimezone(), now);
+    }
+
+    private long encode(UserStatus status, int preferenceFlags, LocalTime quietStart, LocalTime quietEnd, String timezone, Instant now) {
+        long word = (status == UserStatus.ACTIVE ? FLAG_ACTIVE : 0)
+            | (PreferenceFlag.PUSH_ENABLED.isSet(preferenceFlags) ? NotificationChannel.PUSH.flag : 0)
+            | (PreferenceFlag.EMAIL_ENABLED.isSet(preferenceFlags) ? NotificationChannel.EMAIL.flag : 0)
+            | (PreferenceFlag.SMS_ENABLED.isSet(preferenceFlags) ? NotificationChannel.SMS.flag : 0);
+        if (PreferenceFlag.QUIET_HOURS_ENABLED.isSet(preferenceFlags) && quietStart != null && quietEnd != null && !quietStart.equals(quietEnd)) {
+            word |= FLAG_QUIET | (minuteOfDay(quietStart) << LOCAL_START) | (minuteOfDay(quietEnd) << LOCAL_END);
+        }
+        return withUtcWindow(word | ((long) zoneIndex(timezone) << ZONE), now);
+    }
+
+    private long withUtcWindow(long word, Instant now) {
+        if ((word & FLAG_QUIET) == 0) return word;
+        ZoneId zone = zones.get((int) ((word >>> ZONE) & ZONE_MASK));
+        int offsetMinutes = zone.getRules().getOffset(now).getTotalSeconds() / 60;
+        long utcStart = Math.floorMod(field(word, LOCAL_START) - offsetMinutes, MINUTES_PER_DAY);
+        long utcEnd = Math.floorMod(field(word, LOCAL_END) - offsetMinutes, MINUTES_PER_DAY);
+        word &= ~((MINUTE_MASK << UTC_START) | (MINUTE_MASK << UTC_END));
+        return word | (utcStart << UTC_START) | (utcEnd << UTC_END);
+    }
+
+    /** Index of the zone in the word's 12-bit zone field; unknown or unparseable zones fall back to UTC */
+    private int zoneIndex(String timezone) {
+        ZoneId zone;
+        try {
+            zone = timezone != null ? ZoneId.of(timezone) : ZoneOffset.UTC;
+        } catch (DateTimeException e) {
+            return 0;
+        }
+        return zoneIndexes.computeIfAbsent(zone, z -> {
+            if (zones.size() > ZONE_MASK) return 0;
+            zones.add(z);
+            return zones.size() - 1;
+        });
+    }
+
+    private static long minuteOfDay(LocalTime time) {
+        return time.getHour() * 60L + time.getMinute();
+    }
+
+    private static int field(long word, int shift) {
+        return (int) ((word >>> shift) & MINUTE_MASK);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /** Route words in a growable slot array; reads are lock-free, writes are serialized */
+    private static final class Routes {
+
+        private final Map<UUID, Integer> slots = new ConcurrentHashMap<>();
+        private volatile AtomicLongArray words;
+        private int size;
+
+        Routes(long expected) {
+            words = new AtomicLongArray((int) Math.min(Math.max(16, expected + expected / 4), Integer.MAX_VALUE - 8));
+        }
+
+        long get(UUID userId) {
+            Integer slot = slots.get(userId);
+            return slot != null ? words.get(slot) : NO_ROUTE;
+        }
+
+        synchronized void put(UUID userId, long word) {
+            Integer slot = slots.get(userId);
+            if (slot != null) {
+                words.set(slot, word);
+                return;
+            }
+            if (size == words.length()) {
+                AtomicLongArray grown = new AtomicLongArray(size * 2);
+                for (int i = 0; i < size; i++) grown.set(i, words.get(i));
+                words = grown;
+            }
+            words.set(size, word);
+            slots.put(userId, size++);
+        }
+
+        /** For the rebuild scan: keep a value an update already wrote while the scan ran */
+        synchronized void putIfAbsent(UUID userId, long word) {
+            if (!slots.containsKey(userId)) put(userId, word);
+        }
+
+        synchronized void update(UUID userId, LongUnaryOperator change) {
+            Integer slot = slots.get(userId);
+            if (slot != null) words.set(slot, change.applyAsLong(words.get(slot)));
+        }
+
+        synchronized void updateAll(LongUnaryOperator change) {
+            for (int i = 0; i < size; i++) words.set(i, change.applyAsLong(words.get(i)));
+        }
+
+        synchronized int size() {
+            return size;
+        }
+    }
+}
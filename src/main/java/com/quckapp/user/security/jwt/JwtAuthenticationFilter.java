@@ -20,7 +20,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
 
 /**
  * JWT Authentication Filter
@@ -37,6 +37,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
+    private static final List<SimpleGrantedAuthority> USER_AUTHORITIES =
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
 
     /**
      * Public paths that should skip JWT authentication.
@@ -72,40 +74,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = extractJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtService.validateToken(jwt)) {
-                String tokenType = jwtService.extractTokenType(jwt);
-
-                // Only allow access tokens for API authentication
-                if (!"access".equals(tokenType)) {
-                    log.debug("Token type '{}' is not valid for API authentication", tokenType);
-                    filterChain.doFilter(request, response);
-                    return;
+            if (StringUtils.hasText(jwt)) {
+                // Single verification: signature, issuer, expiry and token type are all checked on one parse
+                Optional<JwtUserPrincipal> principal = jwtService.authenticate(jwt);
+                if (principal.isPresent()) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(
+                                    principal.get(),
+                                    null,
+                                    USER_AUTHORITIES
+                            );
+
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                    log.debug("Authenticated user '{}' from JWT", principal.get().getEmail());
                 }
-
-                String userId = jwtService.extractUserId(jwt);
-                String email = jwtService.extractEmail(jwt);
-                String externalId = jwtService.extractExternalId(jwt);
-                String sessionId = jwtService.extractSessionId(jwt);
-
-                // Create authentication principal with user details
-                JwtUserPrincipal principal = JwtUserPrincipal.builder()
-                        .userId(UUID.fromString(userId))
-                        .email(email)
-                        .externalId(externalId)
-                        .sessionId(sessionId)
-                        .build();
-
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                principal,
-                                null,
-                                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
-                        );
-
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-
-                log.debug("Authenticated user '{}' from JWT", email);
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
@@ -3,12 +3,15 @@ package com.quckapp.user.security.jwt;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -16,6 +19,8 @@ import java.util.function.Function;
  *
  * This service validates JWT tokens issued by the auth-service.
  * It uses the same shared secret to verify token signatures.
+ * The signing key and parser are built once at startup and shared across requests,
+ * and verified access tokens are remembered until they expire.
  */
 @Service
 @Slf4j
@@ -27,6 +32,65 @@ public class JwtService {
     @Value("${jwt.issuer:quckapp-auth-local}")
     private String expectedIssuer;
 
+    @Value("${jwt.verified-cache.maximum-size:100000}")
+    private long verifiedCacheMaximumSize;
+
+    private JwtParser jwtParser;
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @PostConstruct
+    void init() {
+        this.jwtParser = Jwts.parser()
+                .verifyWith(getSigningKey())
+                .build();
+        this.verifiedTokenCache = verifiedCacheMaximumSize > 0 ? new VerifiedTokenCache(verifiedCacheMaximumSize) : null;
+    }
+
+    /**
+     * Verify an access token and resolve its principal with a single parse.
+     *
+     * Returns empty for invalid, expired, foreign-issuer and non-access tokens.
+     * Tokens that verify are cached by digest until their exp claim.
+     */
+    public Optional<JwtUserPrincipal> authenticate(String token) {
+        if (verifiedTokenCache != null) {
+            JwtUserPrincipal cached = verifiedTokenCache.get(token);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
+
+        Claims claims = verifyClaims(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+
+        // Only allow access tokens for API authentication
+        String tokenType = claims.get("type", String.class);
+        if (!"access".equals(tokenType)) {
+            log.debug("Token type '{}' is not valid for API authentication", tokenType);
+            return Optional.empty();
+        }
+
+        JwtUserPrincipal principal = toPrincipal(claims);
+        if (verifiedTokenCache != null) {
+            verifiedTokenCache.put(token, principal, claims.getExpiration());
+        }
+        return Optional.of(principal);
+    }
+
+    /**
+     * Build the authenticated principal from already verified claims
+     */
+    public JwtUserPrincipal toPrincipal(Claims claims) {
+        return JwtUserPrincipal.builder()
+                .userId(UUID.fromString(claims.getSubject()))
+                .email(claims.get("email", String.class))
+                .externalId(claims.get("externalId", String.class))
+                .sessionId(claims.get("sessionId", String.class))
+                .build();
+    }
+
     /**
      * Extract user ID from token
      */
@@ -88,9 +152,7 @@ public class JwtService {
      * Extract all claims from token
      */
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+        return jwtParser
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -99,6 +161,13 @@ public class JwtService {
      * Validate token without user context
      */
     public boolean validateToken(String token) {
+        return verifyClaims(token) != null;
+    }
+
+    /**
+     * Verify signature, issuer and expiry in one parse; returns null if the token is not valid
+     */
+    private Claims verifyClaims(String token) {
         try {
             Claims claims = extractAllClaims(token);
 
@@ -106,25 +175,26 @@ public class JwtService {
             String issuer = claims.getIssuer();
             if (!expectedIssuer.equals(issuer)) {
                 log.warn("JWT issuer mismatch. Expected: {}, Got: {}", expectedIssuer, issuer);
-                return false;
+                return null;
             }
 
-            return !isTokenExpired(token);
+            Date expiration = claims.getExpiration();
+            return expiration != null && !expiration.before(new Date()) ? claims : null;
         } catch (ExpiredJwtException e) {
             log.warn("JWT token is expired: {}", e.getMessage());
-            return false;
+            return null;
         } catch (UnsupportedJwtException e) {
             log.warn("JWT token is unsupported: {}", e.getMessage());
-            return false;
+            return null;
         } catch (MalformedJwtException e) {
             log.warn("JWT token is malformed: {}", e.getMessage());
-            return false;
+            return null;
         } catch (SecurityException e) {
             log.warn("JWT signature validation failed: {}", e.getMessage());
-            return false;
+            return null;
         } catch (IllegalArgumentException e) {
             log.warn("JWT claims string is empty: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 
@@ -0,0 +1,82 @@
+package com.quckapp.user.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verified Token Cache
+ *
+ * Maps the SHA-256 digest of a token that has already passed full verification
+ * to its resolved principal, so repeat requests with the same bearer token skip
+ * the HMAC check. Each entry expires exactly at the token's {@code exp} claim and
+ * the cache is bounded by entry count. Only JwtService inserts, and only after
+ * verification succeeded, so forged or expired tokens never land here.
+ */
+class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Cache<ByteBuffer, Entry> cache;
+
+    VerifiedTokenCache(long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<ByteBuffer, Entry>() {
+                    @Override
+                    public long expireAfterCreate(ByteBuffer key, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAtMillis() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ByteBuffer key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ByteBuffer key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Principal for a previously verified, still unexpired token, or null
+     */
+    JwtUserPrincipal get(String token) {
+        Entry entry = cache.getIfPresent(digest(token));
+        // Guard against clock skew between the cache ticker and the wall clock used for exp
+        return entry != null && entry.expiresAtMillis() > System.currentTimeMillis() ? entry.principal() : null;
+    }
+
+    void put(String token, JwtUserPrincipal principal, Date expiration) {
+        cache.put(digest(token), new Entry(principal, expiration.getTime()));
+    }
+
+    long size() {
+        return cache.estimatedSize();
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        sha256.reset();
+        return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private record Entry(JwtUserPrincipal principal, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.quckapp.user.service;
+
+import com.quckapp.user.cache.UserCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the loaders that refresh hot near-cache entries before they expire. They are
+ * called on the {@link UserService} proxy, so every refresh runs in its own read-only
+ * transaction rather than replaying the cached invocation of the request that loaded it.
+ */
+@Component
+@RequiredArgsConstructor
+class CacheRefreshLoaders {
+
+    private final UserCache userCache;
+    private final UserService userService;
+
+    @PostConstruct
+    void register() {
+        userCache.registerRefreshLoader(UserCache.USERS, userService::loadUser);
+        userCache.registerRefreshLoader(UserCache.PROFILES, userService::loadProfile);
+        userCache.registerRefreshLoader(UserCache.PREFERENCES, userService::loadPreferences);
+    }
+}
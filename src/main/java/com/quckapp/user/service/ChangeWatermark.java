@@ -0,0 +1,45 @@
+package com.quckapp.user.service;
+
+import com.quckapp.user.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque position in the (updatedAt, id) ordering used by the directory change feed.
+ *
+ * Encoded as base64url of {@code <epoch seconds>.<nanos>|<id>}.
+ */
+record ChangeWatermark(Instant updatedAt, UUID id) {
+
+    /** Position before the first row: a full sync */
+    static final ChangeWatermark START = new ChangeWatermark(Instant.EPOCH, new UUID(0, 0));
+
+    /** Last id in the ordering, so a watermark at {@code until} covers every row updated at that instant */
+    private static final UUID MAX_ID = new UUID(-1L, -1L);
+
+    static ChangeWatermark decode(String token) {
+        if (token == null || token.isBlank()) return START;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int dot = raw.indexOf('.');
+            int sep = raw.indexOf('|');
+            Instant updatedAt = Instant.ofEpochSecond(Long.parseLong(raw.substring(0, dot)), Long.parseLong(raw.substring(dot + 1, sep)));
+            return new ChangeWatermark(updatedAt, UUID.fromString(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid watermark");
+        }
+    }
+
+    /** Position after every row updated at or before {@code until} */
+    static ChangeWatermark through(Instant until) {
+        return new ChangeWatermark(until, MAX_ID);
+    }
+
+    String encode() {
+        String raw = updatedAt.getEpochSecond() + "." + updatedAt.getNano() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
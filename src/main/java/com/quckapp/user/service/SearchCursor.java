@@ -0,0 +1,41 @@
+package com.quckapp.user.service;
+
+import com.quckapp.user.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset position in the (displayName, id) ordering used by user search.
+ *
+ * Encoded as base64url of {@code <id>|<n or v><displayName>}; the marker keeps a
+ * null display name (sorted first by MySQL) distinct from an empty one.
+ */
+record SearchCursor(String displayName, UUID id) {
+
+    /** Position before the first row: every null display name sorts after a nil id */
+    static final SearchCursor START = new SearchCursor(null, new UUID(0, 0));
+
+    static SearchCursor decode(String token) {
+        if (token == null || token.isBlank()) return START;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            UUID id = UUID.fromString(raw.substring(0, sep));
+            String name = raw.charAt(sep + 1) == 'n' ? null : raw.substring(sep + 2);
+            return new SearchCursor(name, id);
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = id + "|" + (displayName == null ? "n" : "v" + displayName);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    boolean isStart() {
+        return this.equals(START);
+    }
+}
@@ -0,0 +1,222 @@
+package com.quckapp.user.service;
+
+import com.quckapp.user.domain.entity.User;
+import com.quckapp.user.domain.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalesces concurrent single-user lookups into batched {@code findByIdIn} queries.
+ *
+ * The first id to arrive opens a short collection window; every id requested
+ * before it closes (or until the batch is full) is resolved by one query, and
+ * each waiter is completed individually. Concurrent requests for the same id
+ * share one in-flight future.
+ *
+ * Explicit batches go through {@link #loadAll}, which splits them into
+ * fixed-size chunks padded to a single IN-list shape.
+ *
+ * Callers wait at most {@code app.users.batch-loader.timeout} for a batch; past
+ * that (a wedged fetch thread, a saturated pool) they query directly instead.
+ */
+@Component
+@Slf4j
+public class UserBatchLoader {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final int chunkSize;
+    private final long timeoutNanos;
+
+    private final ConcurrentMap<UUID, CompletableFuture<Optional<User>>> inFlight = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private List<UUID> pending = new ArrayList<>();
+    private long windowStartedAt;
+    private long generation;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService fetchExecutor;
+
+    private final DistributionSummary batchSize;
+    private final Timer windowLatency;
+    private final Counter deduplicated;
+    private final Counter timeouts;
+
+    public UserBatchLoader(UserRepository userRepository, MeterRegistry meterRegistry,
+                           @Value("${app.users.batch-loader.enabled:true}") boolean enabled,
+                           @Value("${app.users.batch-loader.window:2ms}") Duration window,
+                           @Value("${app.users.batch-loader.max-batch-size:256}") int maxBatchSize,
+                           @Value("${app.users.batch-loader.fetch-threads:4}") int fetchThreads,
+                           @Value("${app.users.batch-loader.chunk-size:64}") int chunkSize,
+                           @Value("${app.users.batch-loader.timeout:2s}") Duration timeout) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.chunkSize = chunkSize;
+        this.timeoutNanos = timeout.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("user-batch-loader-window"));
+        this.fetchExecutor = Executors.newFixedThreadPool(fetchThreads, daemon("user-batch-loader-fetch"));
+        this.batchSize = DistributionSummary.builder("users.loader.batch.size")
+            .description("Ids resolved per coalesced findByIdIn query").register(meterRegistry);
+        this.windowLatency = Timer.builder("users.loader.window")
+            .description("Time from the first id entering a batch until the batch is dispatched").register(meterRegistry);
+        this.deduplicated = Counter.builder("users.loader.deduplicated")
+            .description("Lookups that joined an in-flight request for the same id").register(meterRegistry);
+        this.timeouts = Counter.builder("users.loader.timeouts")
+            .description("Waits for a batch that timed out and fell back to a direct query").register(meterRegistry);
+    }
+
+    /**
+     * Resolve a user, blocking until its batch completes or the timeout passes. When batching
+     * is disabled, or the batch is late, the lookup runs directly in the caller's transaction.
+     */
+    public Optional<User> get(UUID id) {
+        if (!enabled) return userRepository.findById(id);
+        Optional<User> user = await(load(id), System.nanoTime() + timeoutNanos);
+        return user != null ? user : userRepository.findById(id);
+    }
+
+    public CompletableFuture<Optional<User>> load(UUID id) {
+        CompletableFuture<Optional<User>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<User>> existing = inFlight.putIfAbsent(id, created);
+        if (existing != null) {
+            deduplicated.increment();
+            return existing;
+        }
+        enqueue(id);
+        return created;
+    }
+
+    /**
+     * Resolve a batch of distinct ids. Chunks are fetched in parallel on the
+     * loader's threads, or sequentially in the caller's transaction when
+     * batching is disabled.
+     */
+    public Map<UUID, User> loadAll(List<UUID> ids) {
+        List<List<UUID>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunks.add(padded(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        Map<UUID, User> found = new HashMap<>();
+        if (!enabled || chunks.size() == 1) {
+            chunks.forEach(chunk -> userRepository.findByIdIn(chunk).forEach(user -> found.put(user.getId(), user)));
+            return found;
+        }
+        List<CompletableFuture<List<User>>> futures = chunks.stream()
+            .map(chunk -> CompletableFuture.supplyAsync(() -> userRepository.findByIdIn(chunk), fetchExecutor))
+            .toList();
+        long deadline = System.nanoTime() + timeoutNanos;
+        for (int i = 0; i < chunks.size(); i++) {
+            List<User> users = await(futures.get(i), deadline);
+            if (users == null) users = userRepository.findByIdIn(chunks.get(i));
+            users.forEach(user -> found.put(user.getId(), user));
+        }
+        return found;
+    }
+
+    /** The future's value, or null if it is not done by the deadline; failures are rethrown unwrapped */
+    private <T> T await(CompletableFuture<T> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            log.warn("Batched user lookup did not finish within {} ms, querying directly", timeoutNanos / 1_000_000);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batched user lookup", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Repeat the last id so every chunk binds exactly {@code chunkSize} parameters
+     * and the database sees one statement shape.
+     */
+    private List<UUID> padded(List<UUID> chunk) {
+        if (chunk.size() == chunkSize) return List.copyOf(chunk);
+        List<UUID> padded = new ArrayList<>(chunkSize);
+        padded.addAll(chunk);
+        UUID last = chunk.get(chunk.size() - 1);
+        while (padded.size() < chunkSize) padded.add(last);
+        return padded;
+    }
+
+    private void enqueue(UUID id) {
+        synchronized (lock) {
+            pending.add(id);
+            if (pending.size() >= maxBatchSize) {
+                dispatch();
+            } else if (pending.size() == 1) {
+                windowStartedAt = System.nanoTime();
+                long scheduledGeneration = generation;
+                scheduler.schedule(() -> flush(scheduledGeneration), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private void flush(long scheduledGeneration) {
+        synchronized (lock) {
+            // A full batch may already have been dispatched, in which case this timer belongs to a closed window
+            if (scheduledGeneration == generation && !pending.isEmpty()) dispatch();
+        }
+    }
+
+    /** Must be called while holding {@code lock}. */
+    private void dispatch() {
+        List<UUID> batch = pending;
+        pending = new ArrayList<>();
+        generation++;
+        windowLatency.record(System.nanoTime() - windowStartedAt, TimeUnit.NANOSECONDS);
+        batchSize.record(batch.size());
+        fetchExecutor.execute(() -> resolve(batch));
+    }
+
+    private void resolve(List<UUID> batch) {
+        try {
+            Map<UUID, User> found = userRepository.findByIdIn(batch).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+            for (UUID id : batch) {
+                CompletableFuture<Optional<User>> future = inFlight.remove(id);
+                if (future != null) future.complete(Optional.ofNullable(found.get(id)));
+            }
+        } catch (Exception e) {
+            log.error("Batched user lookup of {} ids failed", batch.size(), e);
+            for (UUID id : batch) {
+                CompletableFuture<Optional<User>> future = inFlight.remove(id);
+                if (future != null) future.completeExceptionally(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdown();
+        fetchExecutor.shutdown();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package com.quckapp.user.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.repository.UserRepository;
+import com.quckapp.user.domain.repository.UserRepository.ExportView;
+import com.quckapp.user.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Bulk export of the directory as NDJSON or CSV, written straight to the response stream.
+ *
+ * Rows come from one forward-only streamed query in id order, so memory stays flat however
+ * many users there are. Every record carries its id; passing the last id received as
+ * {@code after} resumes an interrupted export where it stopped.
+ */
+@Component
+@Slf4j
+public class UserExporter {
+
+    private static final UUID START = new UUID(0, 0);
+
+    /** No root separator: each record is ended with a newline instead */
+    private static final JsonFactory JSON = new JsonFactoryBuilder().rootValueSeparator((String) null).build();
+
+    /** Free-text columns hold arbitrary user input and get formula neutralization in CSV */
+    private static final List<Column> COLUMNS = List.of(
+        new Column("id", ExportView::getId, false),
+        new Column("email", ExportView::getEmail, true),
+        new Column("username", ExportView::getUsername, true),
+        new Column("displayName", ExportView::getDisplayName, true),
+        new Column("avatarUrl", ExportView::getAvatarUrl, true),
+        new Column("phone", ExportView::getPhone, false),
+        new Column("timezone", ExportView::getTimezone, false),
+        new Column("locale", ExportView::getLocale, false),
+        new Column("status", ExportView::getStatus, false),
+        new Column("emailVerified", ExportView::isEmailVerified, false),
+        new Column("phoneVerified", ExportView::isPhoneVerified, false),
+        new Column("lastLoginAt", ExportView::getLastLoginAt, false),
+        new Column("createdAt", ExportView::getCreatedAt, false),
+        new Column("updatedAt", ExportView::getUpdatedAt, false));
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int flushRows;
+
+    public UserExporter(UserRepository userRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.users.export.flush-rows:1000}") int flushRows) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.flushRows = flushRows;
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) return format;
+            }
+            throw new BadRequestException("Unsupported export format: " + value);
+        }
+    }
+
+    /** Write users with the status (all when null) and an id after {@code after} (from the start when null); returns the row count */
+    public long export(UserStatus status, UUID after, Format format, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        try {
+            long rows = readOnlyTransaction.execute(tx -> {
+                try (Stream<ExportView> users = userRepository.streamForExport(status, after != null ? after : START)) {
+                    return format == Format.CSV ? writeCsv(users, out) : writeNdjson(users, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("Exported {} users as {} in {} ms", rows, format, (System.nanoTime() - started) / 1_000_000);
+            return rows;
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the read-only transaction has been rolled back
+            log.debug("User export aborted after {} ms", (System.nanoTime() - started) / 1_000_000, e);
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(Stream<ExportView> users, OutputStream out) throws IOException {
+        long rows = 0;
+        try (JsonGenerator json = JSON.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            for (ExportView user : (Iterable<ExportView>) users::iterator) {
+                json.writeStartObject();
+                for (Column column : COLUMNS) {
+                    json.writeFieldName(column.name());
+                    Object value = column.value().apply(user);
+                    if (value == null) json.writeNull();
+                    else if (value instanceof Boolean flag) json.writeBoolean(flag);
+                    else json.writeString(value.toString());
+                }
+                json.writeEndObject();
+                json.writeRaw('\n');
+                if (++rows % flushRows == 0) json.flush();
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Stream<ExportView> users, OutputStream out) throws IOException {
+        long rows = 0;
+        Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        csv.write(String.join(",", COLUMNS.stream().map(Column::name).toList()));
+        csv.write("\r\n");
+        for (ExportView user : (Iterable<ExportView>) users::iterator) {
+            for (int i = 0; i < COLUMNS.size(); i++) {
+                if (i > 0) csv.write(',');
+                Column column = COLUMNS.get(i);
+                Object value = column.value().apply(user);
+                if (value != null) csv.write(csvField(value.toString(), column.freeText()));
+            }
+            csv.write("\r\n");
+            if (++rows % flushRows == 0) csv.flush();
+        }
+        csv.flush();
+        return rows;
+    }
+
+    /**
+     * RFC 4180 quoting: fields with a comma, quote or line break are quoted, with quotes doubled.
+     * A free-text field a spreadsheet would read as a formula (leading =, +, -, @, tab or CR) is
+     * prefixed with a single quote first, so it opens as text instead of being evaluated. Other
+     * columns are validated or generated values, such as E.164 phones, and are left as they are.
+     */
+    static String csvField(String value, boolean freeText) {
+        if (freeText && !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) value = "'" + value;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private record Column(String name, Function<ExportView, Object> value, boolean freeText) {}
+}
@@ -1,23 +1,36 @@
 package com.quckapp.user.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quckapp.user.cache.UserCache;
 import com.quckapp.user.domain.entity.User;
 import com.quckapp.user.domain.entity.User.UserStatus;
 import com.quckapp.user.domain.entity.UserPreferences;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
 import com.quckapp.user.domain.entity.UserProfile;
 import com.quckapp.user.domain.repository.*;
 import com.quckapp.user.dto.UserDtos.*;
 import com.quckapp.user.exception.*;
+import com.quckapp.user.index.UserIdentityIndex;
+import com.quckapp.user.notification.NotificationRoutingTable;
+import com.quckapp.user.warmup.HotUserTracker;
 import com.quckapp.user.kafka.UserEventPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.UUID;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -25,51 +38,149 @@ import java.util.UUID;
 @Transactional
 public class UserService {
 
+    /** customSettings values are plain JSON, so no modules are needed to read them */
+    private static final ObjectMapper CUSTOM_SETTINGS_JSON = new ObjectMapper();
+
     private final UserRepository userRepository;
     private final UserProfileRepository profileRepository;
     private final UserPreferencesRepository preferencesRepository;
     private final UserEventPublisher eventPublisher;
+    private final UserBatchLoader userBatchLoader;
+    private final UserCache userCache;
+    private final UserIdentityIndex identityIndex;
+    private final HotUserTracker hotUserTracker;
+    private final NotificationRoutingTable routingTable;
+
+    @Value("${app.search.full-text.enabled:false}")
+    private boolean fullTextSearchEnabled;
+
+    /** Must match the server's ngram_token_size: the index holds no shorter terms */
+    @Value("${app.search.full-text.ngram-token-size:2}")
+    private int ngramTokenSize = 2;
+
+    @Value("${app.users.batch.max-ids:500}")
+    private int batchMaxIds = 500;
 
+    @Value("${app.users.changes.max-limit:1000}")
+    private int changesMaxLimit = 1000;
+
+    /** Rows updated more recently than this are left for the next poll, until their transactions have surely committed */
+    @Value("${app.users.changes.settle-lag:5s}")
+    private Duration changesSettleLag = Duration.ofSeconds(5);
+
+    /** When set, signup writes only the users row; default profile and preferences are synthesized until first written. */
+    @Value("${app.users.storage.sparse-defaults:false}")
+    private boolean sparseDefaults;
+
+    /**
+     * The UNIQUE constraints are authoritative: the insert is attempted directly and a duplicate-key
+     * error is mapped to the offending field. Existence queries only run for values the identity
+     * index reports as possibly taken, to reject obvious duplicates before the insert.
+     */
     public UserResponse createUser(CreateUserRequest request) {
         log.info("Creating user with email: {}", request.getEmail());
-        if (userRepository.existsByEmail(request.getEmail())) throw new DuplicateResourceException("Email already exists");
-        if (userRepository.existsByUsername(request.getUsername())) throw new DuplicateResourceException("Username already exists");
+        String email = request.getEmail().toLowerCase();
+        String username = request.getUsername().toLowerCase();
+        if (identityIndex.mightContainEmail(email) && userRepository.existsByEmail(email)) throw new DuplicateResourceException("Email already exists");
+        if (identityIndex.mightContainUsername(username) && userRepository.existsByUsername(username)) throw new DuplicateResourceException("Username already exists");
 
         User user = User.builder()
-            .email(request.getEmail().toLowerCase())
-            .username(request.getUsername().toLowerCase())
+            .email(email)
+            .username(username)
             .displayName(request.getDisplayName())
             .avatarUrl(request.getAvatarUrl())
             .phone(request.getPhone())
             .timezone(request.getTimezone() != null ? request.getTimezone() : "UTC")
             .locale(request.getLocale() != null ? request.getLocale() : "en")
             .build();
-        user = userRepository.save(user);
+        try {
+            user = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw toDuplicateResourceException(e);
+        }
+        identityIndex.add(email, username);
+        userCache.forgetMissing(List.of("email:" + email, "username:" + username));
 
-        profileRepository.save(UserProfile.builder().user(user).build());
-        preferencesRepository.save(UserPreferences.builder().user(user).build());
+        if (!sparseDefaults) {
+            profileRepository.save(UserProfile.builder().user(user).build());
+            preferencesRepository.save(UserPreferences.builder().user(user).build());
+        }
+        routingTable.update(user, null);
         eventPublisher.publishUserCreated(user);
 
         return mapToUserResponse(user);
     }
 
-    @Cacheable(value = "users", key = "#id")
-    @Transactional(readOnly = true)
+    /**
+     * Misses load once per key across instances (see {@link UserCache#getOrLoad}) and are
+     * coalesced by {@link UserBatchLoader}; SUPPORTS keeps a waiting request from holding a
+     * pooled connection while its batch fills. Fills never replace a newer written-through entry.
+     *
+     * Known-missing ids are answered before the read-through, so they take no lease. A new miss
+     * is remembered inside the load, before its lease is released, and the loader returns null
+     * rather than throwing, so instances waiting on that lease find the negative entry at once.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public UserResponse getUserById(UUID id) {
-        return mapToUserResponse(userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found")));
+        hotUserTracker.recordAccess(id);
+        String lookupKey = "id:" + id;
+        if (userCache.isKnownMissing(lookupKey)) throw UserNotFoundException.INSTANCE;
+        UserResponse user = userCache.getOrLoad(id, () -> {
+            if (userCache.isKnownMissing(lookupKey)) return null;
+            UserResponse loaded = loadUser(id);
+            if (loaded == null) userCache.markMissing(lookupKey);
+            return loaded;
+        });
+        if (user == null) throw UserNotFoundException.INSTANCE;
+        return user;
     }
 
-    @Transactional(readOnly = true)
+    /** Uncached read of one user, or null when there is none; refreshes hot entries (see {@link CacheRefreshLoaders}) */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public UserResponse loadUser(UUID id) {
+        return userBatchLoader.get(id).map(this::mapToUserResponse).orElse(null);
+    }
+
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public UserResponse getUserByEmail(String email) {
-        return mapToUserResponse(userRepository.findByEmail(email.toLowerCase()).orElseThrow(() -> new ResourceNotFoundException("User not found")));
+        String normalized = email.toLowerCase();
+        return getUserByAlias(UserCache.USERS_BY_EMAIL, normalized, "email:" + normalized, () -> userRepository.findByEmail(normalized));
     }
 
-    @Transactional(readOnly = true)
+    /** Mention resolution goes through here, so a warm lookup is two near-cache reads and no query */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public UserResponse getUserByUsername(String username) {
-        return mapToUserResponse(userRepository.findByUsername(username.toLowerCase()).orElseThrow(() -> new ResourceNotFoundException("User not found")));
+        String normalized = username.toLowerCase();
+        return getUserByAlias(UserCache.USERS_BY_USERNAME, normalized, "username:" + normalized, () -> userRepository.findByUsername(normalized));
+    }
+
+    /** Resolve alias to id, then id to the cached user; on any miss load the row and cache it under all three keys */
+    private UserResponse getUserByAlias(String aliasCache, String alias, String lookupKey, Supplier<Optional<User>> finder) {
+        UUID id = userCache.resolveAlias(aliasCache, alias);
+        UserResponse cached = id != null ? userCache.get(id) : null;
+        if (cached != null) return cached;
+        UserResponse user = mapToUserResponse(findOrRememberMissing(lookupKey, finder));
+        userCache.put(user);
+        return user;
+    }
+
+    /** Flushed so the response and the cache entry carry the incremented version; a concurrent update fails with 409 */
+    private UserResponse saveAndWriteThrough(User user) {
+        userRepository.saveAndFlush(user);
+        UserResponse response = mapToUserResponse(user);
+        userCache.writeThrough(response);
+        return response;
+    }
+
+    /** Lookups that recently found nothing are answered from the users-missing cache until it expires or a signup claims the key */
+    private User findOrRememberMissing(String lookupKey, Supplier<Optional<User>> finder) {
+        if (userCache.isKnownMissing(lookupKey)) throw UserNotFoundException.INSTANCE;
+        Optional<User> user = finder.get();
+        if (user.isPresent()) return user.get();
+        userCache.markMissing(lookupKey);
+        throw UserNotFoundException.INSTANCE;
     }
 
-    @CacheEvict(value = "users", key = "#id")
     public UserResponse updateUser(UUID id, UpdateUserRequest request) {
         User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found"));
         if (request.getDisplayName() != null) user.setDisplayName(request.getDisplayName());
@@ -77,53 +188,214 @@ public class UserService {
         if (request.getPhone() != null) user.setPhone(request.getPhone());
         if (request.getTimezone() != null) user.setTimezone(request.getTimezone());
         if (request.getLocale() != null) user.setLocale(request.getLocale());
-        user = userRepository.save(user);
+        UserResponse response = saveAndWriteThrough(user);
+        if (request.getTimezone() != null) routingTable.updateTimezone(id, user.getTimezone());
         eventPublisher.publishUserUpdated(user);
-        return mapToUserResponse(user);
+        return response;
     }
 
-    @CacheEvict(value = "users", key = "#id")
     public void deactivateUser(UUID id) {
         User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found"));
         user.setStatus(UserStatus.INACTIVE);
-        userRepository.save(user);
+        saveAndWriteThrough(user);
+        routingTable.updateStatus(id, user.getStatus());
         eventPublisher.publishUserDeactivated(user);
     }
 
-    @CacheEvict(value = "users", key = "#id")
     public void suspendUser(UUID id) {
         User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found"));
         user.setStatus(UserStatus.SUSPENDED);
-        userRepository.save(user);
+        saveAndWriteThrough(user);
+        routingTable.updateStatus(id, user.getStatus());
         eventPublisher.publishUserSuspended(user);
     }
 
     @Transactional(readOnly = true)
     public PageResponse<UserSummaryResponse> searchUsers(SearchUsersRequest request) {
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), Sort.by("displayName"));
-        Page<User> users = request.getStatus() != null
-            ? userRepository.searchUsers(request.getQuery(), request.getStatus(), pageable)
-            : userRepository.searchAllUsers(request.getQuery(), pageable);
+        if (request.getCursor() != null) return searchUsersAfterCursor(request);
+        Page<User> users;
+        if (useFullText(request.getQuery())) {
+            // Native n-gram index query; ordering by display_name, id is part of the SQL
+            Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+            String phrase = toFullTextPhrase(request.getQuery());
+            users = request.getStatus() != null
+                ? userRepository.fullTextSearchUsers(phrase, request.getStatus().name(), pageable)
+                : userRepository.fullTextSearchAllUsers(phrase, pageable);
+        } else {
+            Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), Sort.by("displayName"));
+            users = request.getStatus() != null
+                ? userRepository.searchUsers(request.getQuery(), request.getStatus(), pageable)
+                : userRepository.searchAllUsers(request.getQuery(), pageable);
+        }
         return PageResponse.<UserSummaryResponse>builder()
             .content(users.getContent().stream().map(this::mapToUserSummaryResponse).toList())
             .page(users.getNumber()).size(users.getSize()).totalElements(users.getTotalElements())
             .totalPages(users.getTotalPages()).first(users.isFirst()).last(users.isLast()).build();
     }
 
+    /**
+     * Keyset pagination over (displayName, id): seeks past the cursor instead of scanning an offset, and skips the COUNT query.
+     * totalElements and totalPages are reported as -1.
+     */
+    private PageResponse<UserSummaryResponse> searchUsersAfterCursor(SearchUsersRequest request) {
+        SearchCursor cursor = SearchCursor.decode(request.getCursor());
+        Pageable pageable = PageRequest.of(0, request.getSize());
+        Slice<User> users;
+        if (useFullText(request.getQuery())) {
+            String phrase = toFullTextPhrase(request.getQuery());
+            users = request.getStatus() != null
+                ? userRepository.fullTextSearchUsersAfter(phrase, request.getStatus().name(), cursor.displayName(), cursor.id(), pageable)
+                : userRepository.fullTextSearchAllUsersAfter(phrase, cursor.displayName(), cursor.id(), pageable);
+        } else {
+            users = request.getStatus() != null
+                ? userRepository.searchUsersAfter(request.getQuery(), request.getStatus(), cursor.displayName(), cursor.id(), pageable)
+                : userRepository.searchAllUsersAfter(request.getQuery(), cursor.displayName(), cursor.id(), pageable);
+        }
+        List<User> content = users.getContent();
+        String nextCursor = null;
+        if (users.hasNext() && !content.isEmpty()) {
+            User lastRow = content.get(content.size() - 1);
+            nextCursor = new SearchCursor(lastRow.getDisplayName(), lastRow.getId()).encode();
+        }
+        return PageResponse.<UserSummaryResponse>builder()
+            .content(content.stream().map(this::mapToUserSummaryResponse).toList())
+            .page(0).size(request.getSize()).totalElements(-1).totalPages(-1)
+            .first(cursor.isStart()).last(nextCursor == null).nextCursor(nextCursor).build();
+    }
+
+    /**
+     * Directory delta for client sync: users changed after the watermark in (updatedAt, id) order, with
+     * users who are no longer active returned as tombstones. The feed stops {@code settle-lag} short of
+     * now, so a transaction that stamped updatedAt earlier but commits later is not skipped.
+     */
     @Transactional(readOnly = true)
+    public DirectoryChangesResponse getDirectoryChanges(String since, int limit) {
+        if (limit < 1 || limit > changesMaxLimit) throw new BadRequestException("limit must be between 1 and " + changesMaxLimit);
+        ChangeWatermark from = ChangeWatermark.decode(since);
+        Instant until = Instant.now().minus(changesSettleLag);
+        Slice<User> changed = userRepository.findChangedAfter(from.updatedAt(), from.id(), until, PageRequest.of(0, limit));
+        List<UserSummaryResponse> upserts = new ArrayList<>();
+        List<UUID> removedIds = new ArrayList<>();
+        for (User user : changed) {
+            if (user.isActive()) upserts.add(mapToUserSummaryResponse(user));
+            else removedIds.add(user.getId());
+        }
+        ChangeWatermark next;
+        if (changed.hasNext()) {
+            User lastRow = changed.getContent().get(changed.getNumberOfElements() - 1);
+            next = new ChangeWatermark(lastRow.getUpdatedAt(), lastRow.getId());
+        } else {
+            // Everything up to until has been returned; never move a watermark backwards
+            next = until.isAfter(from.updatedAt()) ? ChangeWatermark.through(until) : from;
+        }
+        return DirectoryChangesResponse.builder().upserts(upserts).removedIds(removedIds)
+            .watermark(next.encode()).hasMore(changed.hasNext()).build();
+    }
+
+    /**
+     * Resolve users in request order, once per distinct id. Cached users come from
+     * one bulk cache read; only the misses are loaded and then written back.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<UserSummaryResponse> getUsersByIds(List<UUID> ids) {
-        return userRepository.findByIdIn(ids).stream().map(this::mapToUserSummaryResponse).toList();
+        if (ids.size() > batchMaxIds) throw new BadRequestException("At most " + batchMaxIds + " ids can be requested per batch");
+        List<UUID> distinct = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.isEmpty()) return List.of();
+
+        Map<UUID, UserResponse> users = new HashMap<>(userCache.getAll(distinct));
+        List<UUID> misses = distinct.stream().filter(id -> !users.containsKey(id)).toList();
+        if (!misses.isEmpty()) {
+            Map<UUID, UserResponse> loaded = new HashMap<>();
+            userBatchLoader.loadAll(misses).forEach((id, user) -> loaded.put(id, mapToUserResponse(user)));
+            userCache.putAll(loaded);
+            users.putAll(loaded);
+        }
+        return distinct.stream().map(users::get).filter(Objects::nonNull).map(this::mapToUserSummaryResponse).toList();
+    }
+
+    /**
+     * Recipients that should get a notification on the channel right now: an active user
+     * with the channel enabled, outside quiet hours. Served from the routing table, so no
+     * user rows are read.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public NotificationEligibilityResponse getNotificationEligibility(NotificationEligibilityRequest request) {
+        List<UUID> ids = request.getRecipientIds();
+        if (ids.size() > batchMaxIds) throw new BadRequestException("At most " + batchMaxIds + " ids can be requested per batch");
+        return NotificationEligibilityResponse.builder().channel(request.getChannel())
+            .eligibleIds(routingTable.eligible(ids, request.getChannel(), Instant.now())).build();
+    }
+
+    /**
+     * Ids of active users whose preferences have every named flag in {@code set} on and every one in
+     * {@code clear} off, in id order. Users still on the defaults match too. Page with the previous
+     * response's nextCursor.
+     */
+    @Transactional(readOnly = true)
+    public PageResponse<UUID> findUserIdsByPreferences(Collection<String> set, Collection<String> clear, String cursor, int size) {
+        if (size < 1 || size > batchMaxIds) throw new BadRequestException("size must be between 1 and " + batchMaxIds);
+        UUID afterId;
+        try {
+            afterId = cursor == null || cursor.isBlank() ? new UUID(0, 0) : UUID.fromString(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        Slice<UUID> ids = userRepository.findIdsByPreferenceFlags(UserStatus.ACTIVE, preferenceMask(set), preferenceMask(clear),
+            afterId, PageRequest.of(0, size));
+        List<UUID> content = ids.getContent();
+        String nextCursor = ids.hasNext() && !content.isEmpty() ? content.get(content.size() - 1).toString() : null;
+        return PageResponse.<UUID>builder()
+            .content(content).page(0).size(size).totalElements(-1).totalPages(-1)
+            .first(afterId.equals(new UUID(0, 0))).last(nextCursor == null).nextCursor(nextCursor).build();
+    }
+
+    private static int preferenceMask(Collection<String> properties) {
+        int mask = 0;
+        for (String property : properties == null ? List.<String>of() : properties) {
+            PreferenceFlag flag = PreferenceFlag.forProperty(property);
+            if (flag == null) throw new BadRequestException("Unknown preference flag: " + property);
+            mask |= flag.mask();
+        }
+        return mask;
+    }
+
+    /**
+     * Served from the identity index: names it rules out never reach the database, and
+     * SUPPORTS avoids borrowing a connection for them.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public AvailabilityResponse checkAvailability(String username, String email) {
+        if (username == null && email == null) throw new BadRequestException("username or email is required");
+        AvailabilityResponse.AvailabilityResponseBuilder response = AvailabilityResponse.builder();
+        if (username != null) {
+            String normalized = username.toLowerCase();
+            response.username(normalized).usernameAvailable(!identityIndex.isUsernameTaken(normalized));
+        }
+        if (email != null) {
+            String normalized = email.toLowerCase();
+            response.email(normalized).emailAvailable(!identityIndex.isEmailTaken(normalized));
+        }
+        return response.build();
     }
 
+    @Cacheable(value = UserCache.PROFILES, key = "#userId", sync = true)
     @Transactional(readOnly = true)
     public ProfileResponse getProfile(UUID userId) {
+        return loadProfile(userId);
+    }
+
+    /** Uncached read behind {@link #getProfile}, also used to refresh hot entries (see {@link CacheRefreshLoaders}) */
+    @Transactional(readOnly = true)
+    public ProfileResponse loadProfile(UUID userId) {
         User user = userRepository.findByIdWithProfile(userId).orElseThrow(() -> new ResourceNotFoundException("User not found"));
         UserProfile profile = user.getProfile();
-        if (profile == null) { profile = profileRepository.save(UserProfile.builder().user(user).build()); }
+        if (profile == null) {
+            profile = sparseDefaults ? UserProfile.builder().userId(user.getId()).build()
+                : profileRepository.save(UserProfile.builder().user(user).build());
+        }
         return mapToProfileResponse(profile);
     }
 
-    @CacheEvict(value = "users", key = "#userId")
     public ProfileResponse updateProfile(UUID userId, UpdateProfileRequest request) {
         User user = userRepository.findByIdWithProfile(userId).orElseThrow(() -> new ResourceNotFoundException("User not found"));
         UserProfile profile = user.getProfile() != null ? user.getProfile() : UserProfile.builder().user(user).build();
@@ -140,43 +412,152 @@ public class UserService {
         if (request.getTwitterUrl() != null) profile.setTwitterUrl(request.getTwitterUrl());
         if (request.getGithubUrl() != null) profile.setGithubUrl(request.getGithubUrl());
         profile = profileRepository.save(profile);
+        userCache.evictAfterCommit(UserCache.PROFILES, userId);
         eventPublisher.publishProfileUpdated(userId, profile);
         return mapToProfileResponse(profile);
     }
 
+    @Cacheable(value = UserCache.PREFERENCES, key = "#userId", sync = true)
     @Transactional(readOnly = true)
     public PreferencesResponse getPreferences(UUID userId) {
+        return loadPreferences(userId);
+    }
+
+    /** Uncached read behind {@link #getPreferences}, also used to refresh hot entries (see {@link CacheRefreshLoaders}) */
+    @Transactional(readOnly = true)
+    public PreferencesResponse loadPreferences(UUID userId) {
         User user = userRepository.findByIdWithPreferences(userId).orElseThrow(() -> new ResourceNotFoundException("User not found"));
         UserPreferences pref = user.getPreferences();
-        if (pref == null) { pref = preferencesRepository.save(UserPreferences.builder().user(user).build()); }
+        if (pref == null) {
+            pref = sparseDefaults ? UserPreferences.builder().userId(user.getId()).build()
+                : preferencesRepository.save(UserPreferences.builder().user(user).build());
+        }
         return mapToPreferencesResponse(pref);
     }
 
-    @CacheEvict(value = "users", key = "#userId")
     public PreferencesResponse updatePreferences(UUID userId, UpdatePreferencesRequest request) {
         User user = userRepository.findByIdWithPreferences(userId).orElseThrow(() -> new ResourceNotFoundException("User not found"));
         UserPreferences pref = user.getPreferences() != null ? user.getPreferences() : UserPreferences.builder().user(user).build();
-        if (request.getPushEnabled() != null) pref.setPushEnabled(request.getPushEnabled());
-        if (request.getEmailEnabled() != null) pref.setEmailEnabled(request.getEmailEnabled());
-        if (request.getSmsEnabled() != null) pref.setSmsEnabled(request.getSmsEnabled());
+        setFlag(pref, PreferenceFlag.PUSH_ENABLED, request.getPushEnabled());
+        setFlag(pref, PreferenceFlag.EMAIL_ENABLED, request.getEmailEnabled());
+        setFlag(pref, PreferenceFlag.SMS_ENABLED, request.getSmsEnabled());
+        setFlag(pref, PreferenceFlag.QUIET_HOURS_ENABLED, request.getQuietHoursEnabled());
+        setFlag(pref, PreferenceFlag.DESKTOP_NOTIFICATIONS, request.getDesktopNotifications());
+        setFlag(pref, PreferenceFlag.SOUND_ENABLED, request.getSoundEnabled());
+        setFlag(pref, PreferenceFlag.COMPACT_MODE, request.getCompactMode());
+        setFlag(pref, PreferenceFlag.SIDEBAR_COLLAPSED, request.getSidebarCollapsed());
+        setFlag(pref, PreferenceFlag.SHOW_UNREAD_ONLY, request.getShowUnreadOnly());
+        setFlag(pref, PreferenceFlag.MESSAGE_PREVIEW, request.getMessagePreview());
+        setFlag(pref, PreferenceFlag.ENTER_TO_SEND, request.getEnterToSend());
+        setFlag(pref, PreferenceFlag.MARKDOWN_ENABLED, request.getMarkdownEnabled());
+        setFlag(pref, PreferenceFlag.EMOJI_SUGGESTIONS_ENABLED, request.getEmojiSuggestionsEnabled());
+        setFlag(pref, PreferenceFlag.SHOW_ONLINE_STATUS, request.getShowOnlineStatus());
+        setFlag(pref, PreferenceFlag.SHOW_TYPING_INDICATOR, request.getShowTypingIndicator());
+        setFlag(pref, PreferenceFlag.SHOW_READ_RECEIPTS, request.getShowReadReceipts());
+        setFlag(pref, PreferenceFlag.REDUCED_MOTION, request.getReducedMotion());
+        setFlag(pref, PreferenceFlag.HIGH_CONTRAST, request.getHighContrast());
+        if (request.getQuietHoursStart() != null) pref.setQuietHoursStart(request.getQuietHoursStart());
+        if (request.getQuietHoursEnd() != null) pref.setQuietHoursEnd(request.getQuietHoursEnd());
         if (request.getTheme() != null) pref.setTheme(request.getTheme());
         if (request.getLanguage() != null) pref.setLanguage(request.getLanguage());
-        if (request.getShowOnlineStatus() != null) pref.setShowOnlineStatus(request.getShowOnlineStatus());
         if (request.getFontSize() != null) pref.setFontSize(request.getFontSize());
         if (request.getCustomSettings() != null) pref.setCustomSettings(request.getCustomSettings());
         pref = preferencesRepository.save(pref);
+        userCache.evictAfterCommit(UserCache.PREFERENCES, userId);
+        routingTable.update(user, pref);
         eventPublisher.publishPreferencesUpdated(userId, pref);
         return mapToPreferencesResponse(pref);
     }
 
+    /**
+     * Apply a JSON Merge Patch (RFC 7396) to customSettings inside the database: keys set to
+     * null are removed and nested objects merge. Nothing is read first, so concurrent syncs of
+     * different keys cannot overwrite each other; the theme carried by the PREFERENCES_UPDATED
+     * event is read after the upsert, under its row lock.
+     */
+    public void mergeCustomSettings(UUID userId, JsonNode patch) {
+        if (patch == null || !patch.isObject()) throw new BadRequestException("Merge patch must be a JSON object");
+        try {
+            preferencesRepository.mergeCustomSettings(userId, patch.toString());
+        } catch (DataIntegrityViolationException e) {
+            // The only constraint an upsert of custom_settings can break is the users foreign key
+            throw new ResourceNotFoundException("User not found");
+        }
+        userCache.evictAfterCommit(UserCache.PREFERENCES, userId);
+        eventPublisher.publishPreferencesUpdated(userId, preferencesRepository.findTheme(userId).orElse(null));
+    }
+
+    /** One customSettings value, read with JSON_EXTRACT instead of loading the whole document */
+    @Transactional(readOnly = true)
+    public JsonNode getCustomSetting(UUID userId, String key) {
+        Optional<String> value = preferencesRepository.findCustomSetting(userId, customSettingPath(key));
+        if (value.isEmpty()) {
+            if (!userRepository.existsById(userId)) throw new ResourceNotFoundException("User not found");
+            throw new ResourceNotFoundException("Custom setting not found: " + key);
+        }
+        try {
+            return CUSTOM_SETTINGS_JSON.readTree(value.get());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored custom setting " + key + " is not valid JSON", e);
+        }
+    }
+
+    /** JSON path of a top-level member; quoting makes dots, brackets and spaces in the key literal */
+    static String customSettingPath(String key) {
+        if (key == null || key.isBlank()) throw new BadRequestException("Custom setting key is required");
+        return "$.\"" + key.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    /**
+     * The n-gram parser indexes nothing shorter than ngram_token_size, so a phrase that is empty
+     * once quotes are stripped, or has a shorter word, matches no rows; those queries use LIKE.
+     */
+    private boolean useFullText(String query) {
+        if (!fullTextSearchEnabled) return false;
+        String term = query.replace("\"", " ").trim();
+        if (term.isEmpty()) return false;
+        for (String word : term.split("\\s+")) {
+            if (word.codePointCount(0, word.length()) < ngramTokenSize) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Quote the query as a boolean-mode phrase so the n-gram parser matches it as a contiguous substring.
+     * Double quotes are the only character that is not literal inside a phrase.
+     */
+    static String toFullTextPhrase(String query) {
+        return '"' + query.replace("\"", " ").trim() + '"';
+    }
+
+    /** MySQL reports duplicates as "Duplicate entry '...' for key 'users.email'"; the key names the column */
+    static RuntimeException toDuplicateResourceException(DataIntegrityViolationException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && sql.getErrorCode() == 1062 && sql.getMessage() != null) {
+                String message = sql.getMessage();
+                int key = message.lastIndexOf(" for key ");
+                String keyName = key >= 0 ? message.substring(key) : "";
+                if (keyName.contains("email")) return new DuplicateResourceException("Email already exists");
+                if (keyName.contains("username")) return new DuplicateResourceException("Username already exists");
+            }
+        }
+        return e;
+    }
+
     private UserResponse mapToUserResponse(User u) {
         return UserResponse.builder().id(u.getId()).email(u.getEmail()).username(u.getUsername())
             .displayName(u.getDisplayName()).avatarUrl(u.getAvatarUrl()).phone(u.getPhone())
-            .timezone(u.getTimezone()).locale(u.getLocale()).status(u.getStatus())
+            .timezone(u.getTimezone()).locale(u.getLocale()).status(u.getStatus()).version(u.getVersion())
             .emailVerified(u.isEmailVerified()).phoneVerified(u.isPhoneVerified())
             .lastLoginAt(u.getLastLoginAt()).createdAt(u.getCreatedAt()).updatedAt(u.getUpdatedAt()).build();
     }
 
+    private UserSummaryResponse mapToUserSummaryResponse(UserResponse u) {
+        return UserSummaryResponse.builder().id(u.getId()).username(u.getUsername())
+            .displayName(u.getDisplayName() != null ? u.getDisplayName() : u.getUsername())
+            .avatarUrl(u.getAvatarUrl()).status(u.getStatus()).build();
+    }
+
     private UserSummaryResponse mapToUserSummaryResponse(User u) {
         return UserSummaryResponse.builder().id(u.getId()).username(u.getUsername())
             .displayName(u.getEffectiveDisplayName()).avatarUrl(u.getAvatarUrl()).status(u.getStatus()).build();
@@ -191,9 +572,13 @@ public class UserService {
     }
 
     private PreferencesResponse mapToPreferencesResponse(UserPreferences p) {
-        return PreferencesResponse.builder().userId(p.getUserId()).pushEnabled(p.isPushEnabled())
-            .emailEnabled(p.isEmailEnabled()).smsEnabled(p.isSmsEnabled()).theme(p.getTheme())
-            .language(p.getLanguage()).showOnlineStatus(p.isShowOnlineStatus()).fontSize(p.getFontSize())
+        return PreferencesResponse.builder().userId(p.getUserId()).flags(p.getFlags())
+            .quietHoursStart(p.getQuietHoursStart()).quietHoursEnd(p.getQuietHoursEnd()).theme(p.getTheme())
+            .language(p.getLanguage()).fontSize(p.getFontSize())
             .customSettings(p.getCustomSettings()).updatedAt(p.getUpdatedAt()).build();
     }
+
+    private static void setFlag(UserPreferences preferences, PreferenceFlag flag, Boolean on) {
+        if (on != null) preferences.set(flag, on);
+    }
 }
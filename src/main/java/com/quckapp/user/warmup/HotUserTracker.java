@@ -0,0 +1,99 @@
+package com.quckapp.user.warmup;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sampled access frequency of users, shared through a Redis sorted set so a new
+ * instance can warm its caches with the users the fleet reads most.
+ *
+ * Reads are sampled and counted in memory, then flushed as one pipelined batch of
+ * ZINCRBYs. Scores decay on a fixed interval (one instance per interval, guarded by
+ * a SET NX key) so the ranking follows recent traffic, and the set is trimmed to the
+ * highest-ranked {@code max-tracked} users.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HotUserTracker {
+
+    static final String KEY = "users:hot";
+    private static final String DECAY_GUARD_KEY = "users:hot:decayed";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ConcurrentHashMap<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+
+    @Value("${app.warmup.tracking.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.tracking.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${app.warmup.tracking.max-tracked:10000}")
+    private int maxTracked;
+
+    @Value("${app.warmup.tracking.decay-factor:0.5}")
+    private double decayFactor;
+
+    @Value("${app.warmup.tracking.decay-interval:1h}")
+    private Duration decayInterval;
+
+    public void recordAccess(UUID userId) {
+        if (!enabled || ThreadLocalRandom.current().nextDouble() >= sampleRate) return;
+        if (pending.size() >= maxTracked && !pending.containsKey(userId)) return;
+        pending.computeIfAbsent(userId, id -> new LongAdder()).increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.warmup.tracking.flush-interval-ms:60000}")
+    public void flush() {
+        if (!enabled || pending.isEmpty()) return;
+        Map<UUID, Long> counts = new HashMap<>();
+        for (UUID id : new ArrayList<>(pending.keySet())) {
+            LongAdder count = pending.remove(id);
+            if (count != null) counts.put(id, count.sum());
+        }
+        byte[] key = KEY.getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                counts.forEach((id, count) -> connection.zSetCommands()
+                    .zIncrBy(key, count, id.toString().getBytes(StandardCharsets.UTF_8)));
+                connection.zSetCommands().zRemRange(key, 0, -(maxTracked + 1L));
+                return null;
+            });
+            decayIfDue();
+        } catch (RuntimeException e) {
+            log.warn("Flush of {} hot user counts failed: {}", counts.size(), e.getMessage());
+        }
+    }
+
+    /** Ids of the most-read users, hottest first; empty when Redis is unavailable */
+    public List<UUID> topUsers(int limit) {
+        if (limit <= 0) return List.of();
+        try {
+            Set<String> ids = stringRedisTemplate.opsForZSet().reverseRange(KEY, 0, limit - 1L);
+            return ids == null ? List.of() : ids.stream().map(UUID::fromString).toList();
+        } catch (RuntimeException e) {
+            log.warn("Read of hot users failed: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private void decayIfDue() {
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(DECAY_GUARD_KEY, "1", decayInterval))) return;
+        stringRedisTemplate.opsForZSet().unionAndStore(KEY, List.of(), KEY, Aggregate.SUM, Weights.of(decayFactor));
+    }
+}
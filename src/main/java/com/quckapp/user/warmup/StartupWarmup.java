@@ -0,0 +1,176 @@
+package com.quckapp.user.warmup;
+
+import com.quckapp.user.dto.UserDtos.UserSummaryResponse;
+import com.quckapp.user.security.jwt.JwtService;
+import com.quckapp.user.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Warms a new instance before it takes traffic.
+ *
+ * Application runners complete before Spring Boot reports the readiness state
+ * {@code ACCEPTING_TRAFFIC}, so the readiness probe stays down until this finishes.
+ * Steps: open the pool's {@code minimum-idle} connections, load the hottest users
+ * ({@link HotUserTracker}) into the caches, then run the hot {@link UserService}
+ * and {@link JwtService} paths until the JIT has compiled them. Every step is
+ * best-effort and bounded by {@code app.warmup.timeout}; progress is served by
+ * {@link WarmupEndpoint}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+
+    static final String CONNECTIONS = "connections";
+    static final String CACHES = "caches";
+    static final String JIT = "jit";
+
+    static final String WARMUP_TOKEN_TYPE = "warmup";
+
+    private final DataSource dataSource;
+    private final HotUserTracker hotUserTracker;
+    private final UserService userService;
+    private final JwtService jwtService;
+    private final WarmupProgress progress = new WarmupProgress(List.of(CONNECTIONS, CACHES, JIT));
+
+    @Value("${app.warmup.hot-users:2000}")
+    private int hotUsers;
+
+    @Value("${app.warmup.jit-iterations:10000}")
+    private int jitIterations;
+
+    @Value("${app.warmup.timeout:60s}")
+    private Duration timeout;
+
+    @Value("${app.users.batch.max-ids:500}")
+    private int batchMaxIds;
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${jwt.issuer:quckapp-auth-local}")
+    private String jwtIssuer;
+
+    public WarmupProgress getProgress() {
+        return progress;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        progress.start();
+        runStep(CONNECTIONS, () -> openConnections(deadline));
+        List<UUID> hot = new ArrayList<>();
+        runStep(CACHES, () -> hot.addAll(preloadHotUsers(deadline)));
+        runStep(JIT, () -> exerciseHotPaths(hot, deadline));
+        progress.finish();
+        log.info("Warm-up finished in {} ms: {}", progress.elapsedMillis(), progress.summary());
+    }
+
+    private void runStep(String name, Runnable step) {
+        progress.begin(name);
+        try {
+            step.run();
+            progress.complete(name);
+        } catch (RuntimeException e) {
+            log.warn("Warm-up step {} failed: {}", name, e.getMessage());
+            progress.fail(name, e.getMessage());
+        }
+    }
+
+    /** Borrow minimum-idle connections at once, so the pool has opened them all before the first request */
+    private void openConnections(long deadline) {
+        int minimumIdle = dataSource instanceof HikariDataSource hikari ? Math.max(1, hikari.getMinimumIdle()) : 1;
+        progress.total(CONNECTIONS, minimumIdle);
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            for (int i = 0; i < minimumIdle && System.nanoTime() < deadline; i++) {
+                Connection connection = dataSource.getConnection();
+                borrowed.add(connection);
+                connection.isValid(1);
+                progress.advance(CONNECTIONS, 1);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("could not open connection " + (borrowed.size() + 1), e);
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Returning warm-up connection failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Batch reads fill L2 for misses and L1 for every hit, the same path a hot client takes */
+    private List<UUID> preloadHotUsers(long deadline) {
+        List<UUID> ids = hotUserTracker.topUsers(hotUsers);
+        progress.total(CACHES, ids.size());
+        for (int from = 0; from < ids.size() && System.nanoTime() < deadline; from += batchMaxIds) {
+            List<UUID> chunk = ids.subList(from, Math.min(ids.size(), from + batchMaxIds));
+            userService.getUsersByIds(chunk);
+            progress.advance(CACHES, chunk.size());
+        }
+        return ids;
+    }
+
+    /**
+     * The warm-up token is not an access token, so {@link JwtService#authenticate} runs the full
+     * signature and claim checks on every iteration and rejects it: it is never served from the
+     * verified-token cache, and it could not authenticate a request if it leaked.
+     */
+    private void exerciseHotPaths(List<UUID> hot, long deadline) {
+        progress.total(JIT, jitIterations);
+        String token = warmupToken();
+        List<UUID> sample = hot.subList(0, Math.min(hot.size(), 20));
+        UserSummaryResponse known = sample.isEmpty() ? null
+            : userService.getUsersByIds(sample).stream().findFirst().orElse(null);
+
+        for (int i = 0; i < jitIterations && System.nanoTime() < deadline; i++) {
+            jwtService.toPrincipal(jwtService.extractAllClaims(token));
+            jwtService.authenticate(token);
+            if (!sample.isEmpty()) userService.getUsersByIds(sample);
+            if (known != null) {
+                userService.getUserById(known.getId());
+                userService.getUserByUsername(known.getUsername());
+            }
+            progress.advance(JIT, 1);
+        }
+    }
+
+    /** A short-lived token for a random subject, signed like client tokens but with a type no endpoint accepts */
+    private String warmupToken() {
+        Instant now = Instant.now();
+        return Jwts.builder()
+            .subject(UUID.randomUUID().toString())
+            .issuer(jwtIssuer)
+            .claim("type", WARMUP_TOKEN_TYPE)
+            .claim("email", "warmup@quckapp.invalid")
+            .issuedAt(Date.from(now))
+            .expiration(Date.from(now.plus(timeout).plusSeconds(60)))
+            .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret)))
+            .compact();
+    }
+}
@@ -0,0 +1,27 @@
+package com.quckapp.user.warmup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code /actuator/warmup}: state of the startup warm-up and each of its steps,
+ * so a rollout can see why an instance is not ready yet.
+ */
+@Component
+@Endpoint(id = "warmup")
+@RequiredArgsConstructor
+public class WarmupEndpoint {
+
+    private final ObjectProvider<StartupWarmup> startupWarmup;
+
+    @ReadOperation
+    public Map<String, Object> progress() {
+        StartupWarmup warmup = startupWarmup.getIfAvailable();
+        return warmup != null ? warmup.getProgress().toMap() : Map.of("state", "DISABLED");
+    }
+}
@@ -0,0 +1,108 @@
+package com.quckapp.user.warmup;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe progress of the startup warm-up, read by {@link WarmupEndpoint}
+ * while {@link StartupWarmup} updates it.
+ */
+public class WarmupProgress {
+
+    public enum State { PENDING, RUNNING, COMPLETED, FAILED }
+
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private volatile State state = State.PENDING;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    WarmupProgress(List<String> stepNames) {
+        stepNames.forEach(name -> steps.put(name, new Step()));
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void finish() {
+        finishedAt = Instant.now();
+        state = steps.values().stream().anyMatch(step -> step.state == State.FAILED) ? State.FAILED : State.COMPLETED;
+    }
+
+    void begin(String step) {
+        steps.get(step).state = State.RUNNING;
+        steps.get(step).startedAt = Instant.now();
+    }
+
+    void total(String step, long total) {
+        steps.get(step).total = total;
+    }
+
+    void advance(String step, long count) {
+        steps.get(step).done.addAndGet(count);
+    }
+
+    void complete(String step) {
+        steps.get(step).finishedAt = Instant.now();
+        steps.get(step).state = State.COMPLETED;
+    }
+
+    void fail(String step, String error) {
+        steps.get(step).error = error;
+        steps.get(step).finishedAt = Instant.now();
+        steps.get(step).state = State.FAILED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    long elapsedMillis() {
+        return millisBetween(startedAt, finishedAt);
+    }
+
+    String summary() {
+        return steps.entrySet().stream()
+            .map(e -> e.getKey() + "=" + e.getValue().done.get() + "/" + e.getValue().total + " " + e.getValue().state)
+            .collect(Collectors.joining(", "));
+    }
+
+    /** Snapshot for the actuator endpoint */
+    public Map<String, Object> toMap() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("state", state);
+        snapshot.put("startedAt", startedAt);
+        snapshot.put("elapsedMillis", elapsedMillis());
+        Map<String, Object> stepSnapshots = new LinkedHashMap<>();
+        steps.forEach((name, step) -> {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("state", step.state);
+            s.put("done", step.done.get());
+            s.put("total", step.total);
+            s.put("elapsedMillis", millisBetween(step.startedAt, step.finishedAt));
+            if (step.error != null) s.put("error", step.error);
+            stepSnapshots.put(name, s);
+        });
+        snapshot.put("steps", stepSnapshots);
+        return snapshot;
+    }
+
+    private static long millisBetween(Instant start, Instant end) {
+        if (start == null) return 0;
+        return (end != null ? end : Instant.now()).toEpochMilli() - start.toEpochMilli();
+    }
+
+    private static final class Step {
+        private volatile State state = State.PENDING;
+        private volatile long total;
+        private final AtomicLong done = new AtomicLong();
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+    }
+}
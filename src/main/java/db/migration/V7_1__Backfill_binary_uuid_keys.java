@@ -0,0 +1,31 @@
+package db.migration;
+
+import com.quckapp.user.migration.UuidBinaryBackfill;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.Duration;
+
+/**
+ * Step 2b of the CHAR(36) -> BINARY(16) key migration: fills the binary keys of
+ * rows written before V6 that UuidBinaryBackfill has not reached (every row if it
+ * was skipped). Runs outside a Flyway transaction so each batch commits on its own
+ * and no UPDATE locks the whole table.
+ */
+public class V7_1__Backfill_binary_uuid_keys extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 5000;
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(context.getConnection(), true);
+        new UuidBinaryBackfill(new JdbcTemplate(dataSource), BATCH_SIZE, Duration.ZERO).run();
+    }
+}
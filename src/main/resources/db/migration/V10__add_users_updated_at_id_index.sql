@@ -0,0 +1,8 @@
+-- QuckApp User Service - keyset index for the directory change feed
+--
+-- Serves ORDER BY updated_at, id and the (updated_at, id) > (?, ?) seek predicate
+-- of GET /api/users/changes, so each poll reads only the rows changed since the
+-- client's watermark. The id is read from id_bin until the binary key migration's
+-- contract step makes it the primary key.
+
+CREATE INDEX idx_users_updated_at_id ON users (updated_at, id_bin);
@@ -0,0 +1,12 @@
+-- Single-leader lease for OutboxRelay: only the instance holding it drains the
+-- outbox, so events for one user are sent in order and no row lock is held while
+-- waiting on Kafka. Times are on the database clock (DATETIME keeps the epoch
+-- placeholder valid in any session time zone).
+
+CREATE TABLE outbox_relay_lease (
+    name VARCHAR(64) PRIMARY KEY,
+    owner VARCHAR(64) NULL,
+    lease_until DATETIME(6) NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+INSERT INTO outbox_relay_lease (name, owner, lease_until) VALUES ('user-events', NULL, '1970-01-01 00:00:00');
@@ -0,0 +1,9 @@
+-- Drops the V3 keyset index on (display_name, id). Search now orders and seeks on
+-- (display_name, id_bin), served by idx_users_display_name_id_bin from V7, so the
+-- CHAR(36) variant only costs a second index write per insert and rename.
+--
+-- This does not make inserts cheaper than before V6: CHAR(36) id is still the
+-- clustered primary key and the binary columns still carry their own indexes and
+-- triggers. That gain is deferred to the contract step (see V7).
+
+ALTER TABLE users DROP INDEX idx_users_display_name_id, ALGORITHM=INPLACE, LOCK=NONE;
@@ -0,0 +1,14 @@
+-- QuckApp User Service - n-gram full-text index for user search
+--
+-- Replaces the leading-wildcard LIKE scans in user search with an inverted
+-- index of character n-grams (ngram_token_size, default 2) over email,
+-- username and display_name. A quoted phrase query then matches any substring
+-- of at least ngram_token_size characters.
+--
+-- The ngram parser drops every n-gram that contains a stopword, and the
+-- default InnoDB list includes single letters such as 'a' and 'i', so
+-- stopwords are disabled for this session before the index is built.
+
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+ALTER TABLE users ADD FULLTEXT INDEX ft_users_search (email, username, display_name) WITH PARSER ngram;
@@ -0,0 +1,6 @@
+-- QuckApp User Service - keyset pagination index for user search
+--
+-- Serves ORDER BY display_name, id and the (display_name, id) > (?, ?) seek
+-- predicate of cursor-based search without a filesort or OFFSET scan.
+
+CREATE INDEX idx_users_display_name_id ON users (display_name, id);
@@ -0,0 +1,12 @@
+-- Transactional outbox for user events, drained to Kafka by OutboxRelay
+
+CREATE TABLE user_event_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(64) NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    payload MEDIUMBLOB NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+    sent_at TIMESTAMP(6) NULL,
+    INDEX idx_outbox_sent_at_id (sent_at, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,4 @@
+-- Wire format of each outbox payload, relayed as the content-type record header
+
+ALTER TABLE user_event_outbox
+    ADD COLUMN content_type VARCHAR(100) NOT NULL DEFAULT 'application/json' AFTER event_type;
@@ -0,0 +1,35 @@
+-- Step 1 of the CHAR(36) -> BINARY(16) key migration (expand).
+--
+-- Adds nullable binary shadow columns and keeps both representations in step on
+-- insert, so instances still running the previous build (which write the CHAR
+-- keys) and this one (which writes the binary keys) can share the schema during
+-- a rolling deploy. The CHAR keys get an empty default so inserts that only set
+-- the binary key are accepted; the triggers fill in the other column.
+--
+-- Existing ids keep their values (they are referenced by other services); only
+-- newly created users get UUIDv7 keys. V7_1 fills the shadow columns of older
+-- rows in batches on its own; on large tables, stop at this version
+-- (FLYWAY_TARGET=6) and run UuidBinaryBackfill first so the rollout does not
+-- wait on it.
+
+ALTER TABLE users
+    ADD COLUMN id_bin BINARY(16) NULL,
+    ALTER COLUMN id SET DEFAULT '';
+ALTER TABLE user_profiles
+    ADD COLUMN user_id_bin BINARY(16) NULL,
+    ALTER COLUMN user_id SET DEFAULT '';
+ALTER TABLE user_preferences
+    ADD COLUMN user_id_bin BINARY(16) NULL,
+    ALTER COLUMN user_id SET DEFAULT '';
+
+CREATE TRIGGER trg_users_id_bin_insert BEFORE INSERT ON users FOR EACH ROW
+    SET NEW.id_bin = COALESCE(NEW.id_bin, UUID_TO_BIN(NULLIF(NEW.id, ''))),
+        NEW.id = IF(NEW.id = '', BIN_TO_UUID(NEW.id_bin), NEW.id);
+
+CREATE TRIGGER trg_user_profiles_user_id_bin_insert BEFORE INSERT ON user_profiles FOR EACH ROW
+    SET NEW.user_id_bin = COALESCE(NEW.user_id_bin, UUID_TO_BIN(NULLIF(NEW.user_id, ''))),
+        NEW.user_id = IF(NEW.user_id = '', BIN_TO_UUID(NEW.user_id_bin), NEW.user_id);
+
+CREATE TRIGGER trg_user_preferences_user_id_bin_insert BEFORE INSERT ON user_preferences FOR EACH ROW
+    SET NEW.user_id_bin = COALESCE(NEW.user_id_bin, UUID_TO_BIN(NULLIF(NEW.user_id, ''))),
+        NEW.user_id = IF(NEW.user_id = '', BIN_TO_UUID(NEW.user_id_bin), NEW.user_id);
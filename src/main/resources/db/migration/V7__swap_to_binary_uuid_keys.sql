@@ -0,0 +1,26 @@
+-- Step 2 of the CHAR(36) -> BINARY(16) key migration: index the binary keys so
+-- this build can read through them. Nothing is dropped and every ALTER runs
+-- in place with concurrent DML.
+--
+-- UUID_TO_BIN without the swap flag keeps the canonical byte order, which is
+-- what Hibernate binds for preferred_uuid_jdbc_type=BINARY and keeps UUIDv7
+-- keys time-ordered. Rows written before V6 that UuidBinaryBackfill has not
+-- reached are filled by V7_1 in short committed batches, outside any Flyway
+-- transaction.
+--
+-- The contract step ships in a later release, once no instance reads the CHAR
+-- keys: drop the triggers, the CHAR columns and their foreign keys, and make the
+-- binary columns the primary and foreign keys. Until then CHAR(36) id stays the
+-- clustered primary key, so inserts still land at random positions in it and
+-- every secondary index still carries the 36-byte key.
+
+ALTER TABLE users
+    ADD UNIQUE INDEX uk_users_id_bin (id_bin),
+    ADD INDEX idx_users_display_name_id_bin (display_name, id_bin),
+    ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE user_profiles
+    ADD UNIQUE INDEX uk_user_profiles_user_id_bin (user_id_bin),
+    ALGORITHM=INPLACE, LOCK=NONE;
+ALTER TABLE user_preferences
+    ADD UNIQUE INDEX uk_user_preferences_user_id_bin (user_id_bin),
+    ALGORITHM=INPLACE, LOCK=NONE;
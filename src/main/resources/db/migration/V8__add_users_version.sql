@@ -0,0 +1,4 @@
+-- Optimistic lock version, also stamped on cached users so stale cache writes can be rejected
+
+ALTER TABLE users
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0 AFTER status;
@@ -0,0 +1,113 @@
+-- Packs the boolean preference columns into one INT bitset. Bit positions match
+-- UserPreferences.PreferenceFlag; NULLs take the old column defaults (65075 with
+-- every column at its default).
+--
+-- Expand step only: the boolean columns stay, so instances of the previous build
+-- keep reading and writing them during a rolling deploy. The triggers keep both
+-- representations in sync whichever build wrote the row:
+-- - a write that changes flags (this build) is copied into the booleans;
+-- - any other write (the previous build) recomputes flags from the booleans.
+-- An insert counts as changing flags when flags is not the column default.
+-- A later release drops the triggers and the boolean columns, once no instance of
+-- the previous build is left.
+
+ALTER TABLE user_preferences
+    ADD COLUMN flags INT NOT NULL DEFAULT 65075 AFTER user_id;
+
+UPDATE user_preferences SET flags =
+      (COALESCE(push_enabled, TRUE)                << 0)
+    | (COALESCE(email_enabled, TRUE)               << 1)
+    | (COALESCE(sms_enabled, FALSE)                << 2)
+    | (COALESCE(quiet_hours_enabled, FALSE)        << 3)
+    | (COALESCE(desktop_notifications, TRUE)       << 4)
+    | (COALESCE(sound_enabled, TRUE)               << 5)
+    | (COALESCE(compact_mode, FALSE)               << 6)
+    | (COALESCE(sidebar_collapsed, FALSE)          << 7)
+    | (COALESCE(show_unread_only, FALSE)           << 8)
+    | (COALESCE(message_preview, TRUE)             << 9)
+    | (COALESCE(enter_to_send, TRUE)               << 10)
+    | (COALESCE(markdown_enabled, TRUE)            << 11)
+    | (COALESCE(emoji_suggestions_enabled, TRUE)   << 12)
+    | (COALESCE(show_online_status, TRUE)          << 13)
+    | (COALESCE(show_typing_indicator, TRUE)       << 14)
+    | (COALESCE(show_read_receipts, TRUE)          << 15)
+    | (COALESCE(reduced_motion, FALSE)             << 16)
+    | (COALESCE(high_contrast, FALSE)              << 17);
+
+CREATE TRIGGER trg_user_preferences_flags_insert BEFORE INSERT ON user_preferences FOR EACH ROW
+SET NEW.push_enabled = IF(NEW.flags <> 65075, (NEW.flags >> 0) & 1, NEW.push_enabled),
+    NEW.email_enabled = IF(NEW.flags <> 65075, (NEW.flags >> 1) & 1, NEW.email_enabled),
+    NEW.sms_enabled = IF(NEW.flags <> 65075, (NEW.flags >> 2) & 1, NEW.sms_enabled),
+    NEW.quiet_hours_enabled = IF(NEW.flags <> 65075, (NEW.flags >> 3) & 1, NEW.quiet_hours_enabled),
+    NEW.desktop_notifications = IF(NEW.flags <> 65075, (NEW.flags >> 4) & 1, NEW.desktop_notifications),
+    NEW.sound_enabled = IF(NEW.flags <> 65075, (NEW.flags >> 5) & 1, NEW.sound_enabled),
+    NEW.compact_mode = IF(NEW.flags <> 65075, (NEW.flags >> 6) & 1, NEW.compact_mode),
+    NEW.sidebar_collapsed = IF(NEW.flags <> 65075, (NEW.flags >> 7) & 1, NEW.sidebar_collapsed),
+    NEW.show_unread_only = IF(NEW.flags <> 65075, (NEW.flags >> 8) & 1, NEW.show_unread_only),
+    NEW.message_preview = IF(NEW.flags <> 65075, (NEW.flags >> 9) & 1, NEW.message_preview),
+    NEW.enter_to_send = IF(NEW.flags <> 65075, (NEW.flags >> 10) & 1, NEW.enter_to_send),
+    NEW.markdown_enabled = IF(NEW.flags <> 65075, (NEW.flags >> 11) & 1, NEW.markdown_enabled),
+    NEW.emoji_suggestions_enabled = IF(NEW.flags <> 65075, (NEW.flags >> 12) & 1, NEW.emoji_suggestions_enabled),
+    NEW.show_online_status = IF(NEW.flags <> 65075, (NEW.flags >> 13) & 1, NEW.show_online_status),
+    NEW.show_typing_indicator = IF(NEW.flags <> 65075, (NEW.flags >> 14) & 1, NEW.show_typing_indicator),
+    NEW.show_read_receipts = IF(NEW.flags <> 65075, (NEW.flags >> 15) & 1, NEW.show_read_receipts),
+    NEW.reduced_motion = IF(NEW.flags <> 65075, (NEW.flags >> 16) & 1, NEW.reduced_motion),
+    NEW.high_contrast = IF(NEW.flags <> 65075, (NEW.flags >> 17) & 1, NEW.high_contrast),
+    NEW.flags =
+          (COALESCE(NEW.push_enabled, TRUE)                << 0)
+        | (COALESCE(NEW.email_enabled, TRUE)               << 1)
+        | (COALESCE(NEW.sms_enabled, FALSE)                << 2)
+        | (COALESCE(NEW.quiet_hours_enabled, FALSE)        << 3)
+        | (COALESCE(NEW.desktop_notifications, TRUE)       << 4)
+        | (COALESCE(NEW.sound_enabled, TRUE)               << 5)
+        | (COALESCE(NEW.compact_mode, FALSE)               << 6)
+        | (COALESCE(NEW.sidebar_collapsed, FALSE)          << 7)
+        | (COALESCE(NEW.show_unread_only, FALSE)           << 8)
+        | (COALESCE(NEW.message_preview, TRUE)             << 9)
+        | (COALESCE(NEW.enter_to_send, TRUE)               << 10)
+        | (COALESCE(NEW.markdown_enabled, TRUE)            << 11)
+        | (COALESCE(NEW.emoji_suggestions_enabled, TRUE)   << 12)
+        | (COALESCE(NEW.show_online_status, TRUE)          << 13)
+        | (COALESCE(NEW.show_typing_indicator, TRUE)       << 14)
+        | (COALESCE(NEW.show_read_receipts, TRUE)          << 15)
+        | (COALESCE(NEW.reduced_motion, FALSE)             << 16)
+        | (COALESCE(NEW.high_contrast, FALSE)              << 17);
+
+CREATE TRIGGER trg_user_preferences_flags_update BEFORE UPDATE ON user_preferences FOR EACH ROW
+SET NEW.push_enabled = IF(NEW.flags <> OLD.flags, (NEW.flags >> 0) & 1, NEW.push_enabled),
+    NEW.email_enabled = IF(NEW.flags <> OLD.flags, (NEW.flags >> 1) & 1, NEW.email_enabled),
+    NEW.sms_enabled = IF(NEW.flags <> OLD.flags, (NEW.flags >> 2) & 1, NEW.sms_enabled),
+    NEW.quiet_hours_enabled = IF(NEW.flags <> OLD.flags, (NEW.flags >> 3) & 1, NEW.quiet_hours_enabled),
+    NEW.desktop_notifications = IF(NEW.flags <> OLD.flags, (NEW.flags >> 4) & 1, NEW.desktop_notifications),
+    NEW.sound_enabled = IF(NEW.flags <> OLD.flags, (NEW.flags >> 5) & 1, NEW.sound_enabled),
+    NEW.compact_mode = IF(NEW.flags <> OLD.flags, (NEW.flags >> 6) & 1, NEW.compact_mode),
+    NEW.sidebar_collapsed = IF(NEW.flags <> OLD.flags, (NEW.flags >> 7) & 1, NEW.sidebar_collapsed),
+    NEW.show_unread_only = IF(NEW.flags <> OLD.flags, (NEW.flags >> 8) & 1, NEW.show_unread_only),
+    NEW.message_preview = IF(NEW.flags <> OLD.flags, (NEW.flags >> 9) & 1, NEW.message_preview),
+    NEW.enter_to_send = IF(NEW.flags <> OLD.flags, (NEW.flags >> 10) & 1, NEW.enter_to_send),
+    NEW.markdown_enabled = IF(NEW.flags <> OLD.flags, (NEW.flags >> 11) & 1, NEW.markdown_enabled),
+    NEW.emoji_suggestions_enabled = IF(NEW.flags <> OLD.flags, (NEW.flags >> 12) & 1, NEW.emoji_suggestions_enabled),
+    NEW.show_online_status = IF(NEW.flags <> OLD.flags, (NEW.flags >> 13) & 1, NEW.show_online_status),
+    NEW.show_typing_indicator = IF(NEW.flags <> OLD.flags, (NEW.flags >> 14) & 1, NEW.show_typing_indicator),
+    NEW.show_read_receipts = IF(NEW.flags <> OLD.flags, (NEW.flags >> 15) & 1, NEW.show_read_receipts),
+    NEW.reduced_motion = IF(NEW.flags <> OLD.flags, (NEW.flags >> 16) & 1, NEW.reduced_motion),
+    NEW.high_contrast = IF(NEW.flags <> OLD.flags, (NEW.flags >> 17) & 1, NEW.high_contrast),
+    NEW.flags =
+          (COALESCE(NEW.push_enabled, TRUE)                << 0)
+        | (COALESCE(NEW.email_enabled, TRUE)               << 1)
+        | (COALESCE(NEW.sms_enabled, FALSE)                << 2)
+        | (COALESCE(NEW.quiet_hours_enabled, FALSE)        << 3)
+        | (COALESCE(NEW.desktop_notifications, TRUE)       << 4)
+        | (COALESCE(NEW.sound_enabled, TRUE)               << 5)
+        | (COALESCE(NEW.compact_mode, FALSE)               << 6)
+        | (COALESCE(NEW.sidebar_collapsed, FALSE)          << 7)
+        | (COALESCE(NEW.show_unread_only, FALSE)           << 8)
+        | (COALESCE(NEW.message_preview, TRUE)             << 9)
+        | (COALESCE(NEW.enter_to_send, TRUE)               << 10)
+        | (COALESCE(NEW.markdown_enabled, TRUE)            << 11)
+        | (COALESCE(NEW.emoji_suggestions_enabled, TRUE)   << 12)
+        | (COALESCE(NEW.show_online_status, TRUE)          << 13)
+        | (COALESCE(NEW.show_typing_indicator, TRUE)       << 14)
+        | (COALESCE(NEW.show_read_receipts, TRUE)          << 15)
+        | (COALESCE(NEW.reduced_motion, FALSE)             << 16)
+        | (COALESCE(NEW.high_contrast, FALSE)              << 17);
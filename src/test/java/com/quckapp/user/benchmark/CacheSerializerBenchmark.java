@@ -0,0 +1,112 @@
+package com.quckapp.user.benchmark;
+
+import com.quckapp.user.cache.CompactCacheSerializer;
+import com.quckapp.user.cache.CompactCacheSerializer.CachedType;
+import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.dto.UserDtos.ProfileResponse;
+import com.quckapp.user.dto.UserDtos.UserResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of cache values in the legacy JSON format ({@code json*})
+ * and the compact Smile format ({@code compact*}), for a user entry and for a
+ * profile with a long bio, which the compact format also LZ4-compresses.
+ * Encoded sizes are asserted by {@code CompactCacheSerializerTest}, not measured here.
+ *
+ * Run with: ./mvnw test-compile exec:exec -Pbenchmark -Djmh.args="CacheSerializerBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class CacheSerializerBenchmark {
+
+    private RedisSerializer<Object> json;
+    private RedisSerializer<Object> compact;
+    private UserResponse user;
+    private ProfileResponse profile;
+    private byte[] jsonUser;
+    private byte[] compactUser;
+    private byte[] jsonProfile;
+    private byte[] compactProfile;
+
+    @Setup
+    public void setUp() {
+        json = new GenericJackson2JsonRedisSerializer();
+        compact = new CompactCacheSerializer(List.of(
+                CachedType.versioned(1, UserResponse.class, UserResponse::getVersion),
+                CachedType.of(2, ProfileResponse.class)), 512, true, json);
+
+        user = UserResponse.builder()
+                .id(UUID.randomUUID())
+                .email("bench@example.com")
+                .username("benchuser")
+                .displayName("Bench User")
+                .avatarUrl("https://cdn.quckapp.com/avatars/bench.png")
+                .timezone("Europe/London")
+                .locale("en-GB")
+                .status(UserStatus.ACTIVE)
+                .version(42)
+                .emailVerified(true)
+                .build();
+        profile = ProfileResponse.builder()
+                .userId(user.getId())
+                .title("Staff Engineer")
+                .department("Platform")
+                .location("London")
+                .bio("Builds the messaging platform; previously search and storage infrastructure. ".repeat(12))
+                .build();
+
+        jsonUser = json.serialize(user);
+        compactUser = compact.serialize(user);
+        jsonProfile = json.serialize(profile);
+        compactProfile = compact.serialize(profile);
+    }
+
+    @Benchmark
+    public byte[] jsonEncodeUser() {
+        return json.serialize(user);
+    }
+
+    @Benchmark
+    public byte[] compactEncodeUser() {
+        return compact.serialize(user);
+    }
+
+    @Benchmark
+    public Object jsonDecodeUser() {
+        return json.deserialize(jsonUser);
+    }
+
+    @Benchmark
+    public Object compactDecodeUser() {
+        return compact.deserialize(compactUser);
+    }
+
+    @Benchmark
+    public byte[] jsonEncodeProfile() {
+        return json.serialize(profile);
+    }
+
+    @Benchmark
+    public byte[] compactEncodeProfile() {
+        return compact.serialize(profile);
+    }
+
+    @Benchmark
+    public Object jsonDecodeProfile() {
+        return json.deserialize(jsonProfile);
+    }
+
+    @Benchmark
+    public Object compactDecodeProfile() {
+        return compact.deserialize(compactProfile);
+    }
+}
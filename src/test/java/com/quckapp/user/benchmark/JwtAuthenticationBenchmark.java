@@ -0,0 +1,107 @@
+package com.quckapp.user.benchmark;
+
+import com.quckapp.user.security.jwt.JwtService;
+import com.quckapp.user.security.jwt.JwtUserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of JWT authentication.
+ *
+ * {@code legacyFilterPath} replays what JwtAuthenticationFilter used to do: seven
+ * independent parses, each decoding the secret and building a new parser.
+ * {@code singleParse} is JwtService.authenticate with the verified-token cache
+ * disabled, and {@code cachedRepeat} is the same call for a token seen before.
+ *
+ * Run with: ./mvnw test-compile exec:exec -Pbenchmark -Djmh.args="JwtAuthenticationBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = "bG9jYWwtZGV2LXNlY3JldC1rZXktZm9yLXRlc3Rpbmctb25seS0zMi1jaGFycw==";
+    private static final String ISSUER = "quckapp-auth-local";
+
+    private JwtService jwtService;
+    private JwtService cachingJwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = newJwtService(0);
+        cachingJwtService = newJwtService(10_000);
+
+        token = Jwts.builder()
+                .subject(UUID.randomUUID().toString())
+                .issuer(ISSUER)
+                .claim("type", "access")
+                .claim("email", "bench@example.com")
+                .claim("externalId", "ext-123")
+                .claim("sessionId", UUID.randomUUID().toString())
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(signingKey())
+                .compact();
+        cachingJwtService.authenticate(token);
+    }
+
+    @Benchmark
+    public JwtUserPrincipal singleParse() {
+        return jwtService.authenticate(token).orElseThrow();
+    }
+
+    @Benchmark
+    public JwtUserPrincipal cachedRepeat() {
+        return cachingJwtService.authenticate(token).orElseThrow();
+    }
+
+    @Benchmark
+    public JwtUserPrincipal legacyFilterPath() {
+        Claims validated = legacyParse(token);
+        if (!ISSUER.equals(validated.getIssuer()) || legacyParse(token).getExpiration().before(new Date())) {
+            throw new IllegalStateException("invalid token");
+        }
+        if (!"access".equals(legacyParse(token).get("type", String.class))) {
+            throw new IllegalStateException("not an access token");
+        }
+        return JwtUserPrincipal.builder()
+                .userId(UUID.fromString(legacyParse(token).getSubject()))
+                .email(legacyParse(token).get("email", String.class))
+                .externalId(legacyParse(token).get("externalId", String.class))
+                .sessionId(legacyParse(token).get("sessionId", String.class))
+                .build();
+    }
+
+    private static JwtService newJwtService(long verifiedCacheMaximumSize) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(service, "expectedIssuer", ISSUER);
+        ReflectionTestUtils.setField(service, "verifiedCacheMaximumSize", verifiedCacheMaximumSize);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+                .verifyWith(signingKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private static SecretKey signingKey() {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+    }
+}
@@ -0,0 +1,170 @@
+package com.quckapp.user.cache;
+
+import com.quckapp.user.cache.CompactCacheSerializer.CachedType;
+import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
+import com.quckapp.user.dto.UserDtos.PreferencesResponse;
+import com.quckapp.user.dto.UserDtos.ProfileResponse;
+import com.quckapp.user.dto.UserDtos.UserResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for CompactCacheSerializer
+ */
+@DisplayName("CompactCacheSerializer Tests")
+class CompactCacheSerializerTest {
+
+    private static final List<CachedType<?>> TYPES = List.of(
+            CachedType.versioned(1, UserResponse.class, UserResponse::getVersion),
+            CachedType.of(2, ProfileResponse.class),
+            CachedType.of(3, PreferencesResponse.class).withMixIn(CachedPreferencesMixIn.class),
+            CachedType.of(4, String.class));
+
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final CompactCacheSerializer compact = new CompactCacheSerializer(TYPES, 512, true, json);
+
+    private static UserResponse user() {
+        return UserResponse.builder()
+                .id(UUID.randomUUID())
+                .email("test@example.com")
+                .username("testuser")
+                .displayName("Test User")
+                .timezone("Europe/London")
+                .locale("en-GB")
+                .status(UserStatus.ACTIVE)
+                .version(7)
+                .build();
+    }
+
+    private static PreferencesResponse preferences() {
+        return PreferencesResponse.builder()
+                .userId(UUID.randomUUID())
+                .flags(PreferenceFlag.SMS_ENABLED.apply(PreferenceFlag.DEFAULTS, true))
+                .theme("dark")
+                .language("en")
+                .fontSize(14)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Compact Format Tests")
+    class CompactFormatTests {
+
+        @Test
+        @DisplayName("should round-trip a user")
+        void shouldRoundTripUser() {
+            UserResponse user = user();
+
+            assertThat(compact.deserialize(compact.serialize(user))).isEqualTo(user);
+        }
+
+        @Test
+        @DisplayName("should write the format version, type id and row version in the header")
+        void shouldWriteHeader() {
+            ByteBuffer header = ByteBuffer.wrap(compact.serialize(user()));
+
+            assertThat(header.get()).isEqualTo(CompactCacheSerializer.FORMAT_V1);
+            assertThat(header.get() & CompactCacheSerializer.FLAG_VERSIONED).isNotZero();
+            assertThat(header.get()).isEqualTo((byte) 1);
+            assertThat(header.getLong()).isEqualTo(7);
+        }
+
+        @Test
+        @DisplayName("should compress large values and still round-trip them")
+        void shouldCompressLargeValues() {
+            ProfileResponse profile = ProfileResponse.builder()
+                    .userId(UUID.randomUUID())
+                    .bio("Platform engineer. ".repeat(100))
+                    .build();
+
+            byte[] bytes = compact.serialize(profile);
+
+            assertThat(bytes[1] & CompactCacheSerializer.FLAG_LZ4).isNotZero();
+            assertThat(bytes.length).isLessThan(500).isLessThan(json.serialize(profile).length / 3);
+            assertThat(compact.deserialize(bytes)).isEqualTo(profile);
+        }
+
+        @Test
+        @DisplayName("should be much smaller than the JSON format")
+        void shouldBeSmallerThanJson() {
+            UserResponse user = user();
+
+            assertThat(compact.serialize(user).length).isLessThan(json.serialize(user).length / 2);
+        }
+
+        @Test
+        @DisplayName("should store preference flags as one int instead of boolean properties")
+        void shouldStorePreferenceFlagsPacked() {
+            CompactCacheSerializer booleanForm = new CompactCacheSerializer(
+                    List.of(CachedType.of(3, PreferencesResponse.class)), 512, true, json);
+            PreferencesResponse preferences = preferences();
+
+            byte[] packed = compact.serialize(preferences);
+
+            assertThat(compact.deserialize(packed)).isEqualTo(preferences);
+            assertThat(packed.length).isLessThan(booleanForm.serialize(preferences).length / 2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Compatibility Tests")
+    class CompatibilityTests {
+
+        @Test
+        @DisplayName("should read entries written in the legacy JSON format")
+        void shouldReadLegacyJson() {
+            assertThat(compact.deserialize(json.serialize("550e8400-e29b-41d4-a716-446655440000")))
+                    .isEqualTo("550e8400-e29b-41d4-a716-446655440000");
+        }
+
+        @Test
+        @DisplayName("should write JSON while compact writes are off, and read either")
+        void shouldWriteJsonWhenCompactWritesAreOff() {
+            CompactCacheSerializer jsonWriter = new CompactCacheSerializer(TYPES, 512, false, json);
+            UserResponse user = user();
+
+            assertThat(jsonWriter.serialize(user)[0]).isEqualTo((byte) '{');
+            assertThat(jsonWriter.deserialize(compact.serialize(user))).isEqualTo(user);
+        }
+
+        @Test
+        @DisplayName("should read preferences cached as boolean properties")
+        void shouldReadBooleanPreferences() {
+            CompactCacheSerializer booleanForm = new CompactCacheSerializer(
+                    List.of(CachedType.of(3, PreferencesResponse.class)), 512, true, json);
+            PreferencesResponse preferences = preferences();
+
+            assertThat(compact.deserialize(booleanForm.serialize(preferences))).isEqualTo(preferences);
+            assertThat(compact.deserialize(json.serialize(preferences))).isEqualTo(preferences);
+        }
+
+        @Test
+        @DisplayName("should read an unknown format version or type id as a miss")
+        void shouldTreatUnknownFormatsAsMisses() {
+            byte[] newerFormat = compact.serialize(user());
+            newerFormat[0] = 0x02;
+            byte[] unknownType = compact.serialize(user());
+            unknownType[2] = 99;
+
+            assertThat(compact.deserialize(newerFormat)).isNull();
+            assertThat(compact.deserialize(unknownType)).isNull();
+        }
+
+        @Test
+        @DisplayName("should reject duplicate type ids")
+        void shouldRejectDuplicateTypeIds() {
+            assertThatThrownBy(() -> new CompactCacheSerializer(
+                    List.of(CachedType.of(1, String.class), CachedType.of(1, Boolean.class)), 512, true, json))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.quckapp.user.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quckapp.user.cache.TwoTierCacheManager.StampedeSpec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TwoTierCache
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TwoTierCache Tests")
+class TwoTierCacheTest {
+
+    @Mock
+    private Cache remoteCache;
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TwoTierCache cache;
+    private UUID key;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoTierCache("users", Caffeine.newBuilder().maximumSize(100).build(),
+                remoteCache, invalidationPublisher, meterRegistry);
+        key = UUID.randomUUID();
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("cache.tiered.gets")
+                .tags("cache", "users", "tier", tier, "result", result).functionCounter().count();
+    }
+
+    @Nested
+    @DisplayName("Read Path Tests")
+    class ReadPathTests {
+
+        @Test
+        @DisplayName("should promote L2 hits into L1")
+        void shouldPromoteRemoteHitsIntoLocal() {
+            when(remoteCache.get(key)).thenReturn(new SimpleValueWrapper("value"));
+
+            assertThat(cache.get(key).get()).isEqualTo("value");
+            assertThat(cache.get(key).get()).isEqualTo("value");
+
+            verify(remoteCache, times(1)).get(key);
+            assertThat(gets("l2", "hit")).isEqualTo(1);
+            assertThat(gets("l1", "hit")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should record a miss when neither tier has the key")
+        void shouldRecordMiss() {
+            when(remoteCache.get(key)).thenReturn(null);
+
+            assertThat(cache.get(key)).isNull();
+            assertThat(gets("l2", "miss")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should load once and write the loaded value to L2")
+        void shouldLoadOnceAndWriteThrough() {
+            when(remoteCache.get(key)).thenReturn(null);
+
+            String first = cache.get(key, () -> "loaded");
+            String second = cache.get(key, () -> "reloaded");
+
+            assertThat(first).isEqualTo("loaded");
+            assertThat(second).isEqualTo("loaded");
+            verify(remoteCache).putIfAbsent(key, "loaded");
+        }
+
+        @Test
+        @DisplayName("should keep an L2 value written while the load ran")
+        void shouldKeepConcurrentlyWrittenValue() {
+            when(remoteCache.get(key)).thenReturn(null);
+            when(remoteCache.putIfAbsent(key, "loaded")).thenReturn(new SimpleValueWrapper("written"));
+
+            assertThat(cache.get(key, () -> "loaded")).isEqualTo("written");
+        }
+
+        @Test
+        @DisplayName("should share one load between concurrent misses without holding up other keys")
+        void shouldShareConcurrentLoads() throws Exception {
+            when(remoteCache.get(any())).thenReturn(null);
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<String> first = executor.submit(() -> cache.get(key, () -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "loaded";
+                }));
+                assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+                Future<String> second = executor.submit(() -> cache.get(key, () -> "second"));
+
+                assertThat(cache.get(UUID.randomUUID(), () -> "other")).isEqualTo("other");
+                release.countDown();
+
+                assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+                assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        @DisplayName("should load directly when a concurrent load takes longer than the load wait")
+        void shouldStopWaitingForSlowLoad() throws Exception {
+            TwoTierCache bounded = new TwoTierCache("profiles", Caffeine.newBuilder().maximumSize(100).build(),
+                    remoteCache, invalidationPublisher, null, false, Duration.ofMillis(50), meterRegistry);
+            when(remoteCache.get(any())).thenReturn(null);
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<String> first = executor.submit(() -> bounded.get(key, () -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "slow";
+                }));
+                assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+                assertThat(bounded.get(key, () -> "direct")).isEqualTo("direct");
+                assertThat(meterRegistry.get("cache.tiered.load.wait.timeouts").tags("cache", "profiles").functionCounter().count())
+                        .isEqualTo(1);
+                release.countDown();
+                assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Stampede Protection Tests")
+    class StampedeTests {
+
+        @Mock
+        private StringRedisTemplate redisTemplate;
+
+        @Mock
+        private ValueOperations<String, String> valueOperations;
+
+        private TwoTierCache guarded(Duration remoteTtl) {
+            StampedeGuard guard = new StampedeGuard("users", new StampedeSpec(remoteTtl, Duration.ofSeconds(5), Duration.ofMillis(200), 1.0),
+                    redisTemplate, new GenericJackson2JsonRedisSerializer(), Runnable::run, "instance-1", meterRegistry);
+            return new TwoTierCache("users", Caffeine.newBuilder().maximumSize(100).build(),
+                    remoteCache, invalidationPublisher, guard, false, Duration.ofSeconds(2), meterRegistry);
+        }
+
+        @Test
+        @DisplayName("should wait for the lease holder's value instead of loading")
+        void shouldWaitForLeaseHolder() {
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.setIfAbsent(eq("lease:users::" + key), eq("instance-1"), any(Duration.class))).thenReturn(false);
+            when(remoteCache.get(key)).thenReturn(null, null, new SimpleValueWrapper("filled"));
+            when(redisTemplate.hasKey("lease:users::" + key)).thenReturn(true);
+
+            String value = guarded(Duration.ofMinutes(15)).get(key, () -> {
+                throw new AssertionError("loaded despite the lease");
+            });
+
+            assertThat(value).isEqualTo("filled");
+            verify(remoteCache, never()).putIfAbsent(any(), any());
+        }
+
+        @Test
+        @DisplayName("should stop waiting once the lease is released without a fill")
+        void shouldStopWaitingOnReleasedLease() {
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.setIfAbsent(eq("lease:users::" + key), eq("instance-1"), any(Duration.class))).thenReturn(false);
+            when(remoteCache.get(key)).thenReturn(null);
+            when(redisTemplate.hasKey("lease:users::" + key)).thenReturn(false);
+
+            long started = System.nanoTime();
+            assertThat(guarded(Duration.ofMinutes(15)).<String>get(key, () -> null)).isNull();
+
+            assertThat(System.nanoTime() - started).isLessThan(Duration.ofMillis(150).toNanos());
+            verify(redisTemplate, times(1)).hasKey("lease:users::" + key);
+        }
+
+        @Test
+        @DisplayName("should load under the lease and release it")
+        void shouldLoadUnderLease() {
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.setIfAbsent(eq("lease:users::" + key), eq("instance-1"), any(Duration.class))).thenReturn(true);
+            when(remoteCache.get(key)).thenReturn(null);
+
+            assertThat(guarded(Duration.ofMinutes(15)).get(key, () -> "loaded")).isEqualTo("loaded");
+
+            verify(remoteCache).putIfAbsent(key, "loaded");
+            verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("lease:users::" + key)), eq("instance-1"));
+        }
+
+        @Test
+        @DisplayName("should refresh an entry at its expiry in the background and serve the old value meanwhile")
+        @SuppressWarnings("unchecked")
+        void shouldRefreshEarly() {
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.setIfAbsent(eq("lease:users::" + key), eq("instance-1"), any(Duration.class))).thenReturn(true);
+            when(redisTemplate.execute(any(RedisScript.class), any(), any(), anyList(), any(Object[].class))).thenReturn(1L);
+            when(remoteCache.get(key)).thenReturn(null);
+            TwoTierCache cache = guarded(Duration.ZERO);
+            cache.setRefreshLoader(k -> "refreshed");
+
+            assertThat(cache.get(key, () -> "loaded")).isEqualTo("loaded");
+            assertThat(cache.get(key, () -> "per-call")).isEqualTo("loaded");
+            assertThat(cache.get(key, () -> "per-call")).isEqualTo("refreshed");
+            assertThat(meterRegistry.get("cache.stampede.refreshes").tags("cache", "users").counter().count()).isPositive();
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalidation Tests")
+    class InvalidationTests {
+
+        @Test
+        @DisplayName("should evict both tiers and broadcast the key")
+        void shouldEvictBothTiers() {
+            cache.put(key, "value");
+
+            cache.evict(key);
+
+            verify(remoteCache).evict(key);
+            verify(invalidationPublisher, times(2)).publishEvict("users", key.toString());
+            when(remoteCache.get(key)).thenReturn(null);
+            assertThat(cache.get(key)).isNull();
+        }
+
+        @Test
+        @DisplayName("should write negative entries to both tiers without broadcasting, but broadcast their eviction")
+        void shouldNotBroadcastNegativeWrites() {
+            TwoTierCache missing = new TwoTierCache("users-missing", Caffeine.newBuilder().maximumSize(100).build(),
+                    remoteCache, invalidationPublisher, null, true, Duration.ofSeconds(2), meterRegistry);
+
+            missing.put("email:gone@example.com", Boolean.TRUE);
+
+            verify(remoteCache).put("email:gone@example.com", Boolean.TRUE);
+            verifyNoInteractions(invalidationPublisher);
+            assertThat(missing.get("email:gone@example.com").get()).isEqualTo(Boolean.TRUE);
+
+            missing.evict("email:gone@example.com");
+
+            verify(invalidationPublisher).publishEvict("users-missing", "email:gone@example.com");
+        }
+
+        @Test
+        @DisplayName("should drop only the L1 entry on a remote invalidation")
+        void shouldEvictLocalOnly() {
+            cache.put(key, "value");
+
+            cache.evictLocal(key.toString());
+
+            verify(remoteCache, never()).evict(any());
+            when(remoteCache.get(key)).thenReturn(new SimpleValueWrapper("fresh"));
+            assertThat(cache.get(key).get()).isEqualTo("fresh");
+        }
+
+        @Test
+        @DisplayName("should not copy an L2 read into L1 when an invalidation arrived during the read")
+        void shouldSkipFillRacingInvalidation() {
+            when(remoteCache.get(key)).thenAnswer(invocation -> {
+                cache.evictLocal(key.toString());
+                return new SimpleValueWrapper("stale");
+            }).thenReturn(new SimpleValueWrapper("fresh"));
+
+            assertThat(cache.get(key).get()).isEqualTo("stale");
+            assertThat(cache.get(key).get()).isEqualTo("fresh");
+            assertThat(cache.get(key).get()).isEqualTo("fresh");
+
+            verify(remoteCache, times(2)).get(key);
+        }
+
+        @Test
+        @DisplayName("should not let a racing bulk read overwrite a newer local write")
+        void shouldSkipFillAfterLocalWrite() {
+            long generation = cache.generation(key);
+            cache.putLocal(key, "written");
+
+            cache.fillLocal(key, "read-before-write", generation);
+
+            assertThat(cache.get(key).get()).isEqualTo("written");
+        }
+    }
+}
@@ -2,10 +2,13 @@ package com.quckapp.user.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
 import com.quckapp.user.dto.UserDtos.*;
 import com.quckapp.user.exception.DuplicateResourceException;
 import com.quckapp.user.exception.GlobalExceptionHandler;
 import com.quckapp.user.exception.ResourceNotFoundException;
+import com.quckapp.user.notification.NotificationChannel;
+import com.quckapp.user.service.UserExporter;
 import com.quckapp.user.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,12 +18,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -35,6 +44,9 @@ class UserControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UserExporter userExporter;
+
     private MockMvc mockMvc;
     private ObjectMapper objectMapper;
 
@@ -49,7 +61,8 @@ class UserControllerTest {
         objectMapper = new ObjectMapper();
         objectMapper.findAndRegisterModules();
 
-        UserController controller = new UserController(userService);
+        UserController controller = new UserController(userService, userExporter);
+        ReflectionTestUtils.setField(controller, "exportTimeout", Duration.ofMinutes(30));
         mockMvc = MockMvcBuilders.standaloneSetup(controller)
                 .setControllerAdvice(new GlobalExceptionHandler())
                 .build();
@@ -90,12 +103,9 @@ class UserControllerTest {
 
         testPreferencesResponse = PreferencesResponse.builder()
                 .userId(testUserId)
-                .pushEnabled(true)
-                .emailEnabled(true)
-                .smsEnabled(false)
+                .flags(PreferenceFlag.DEFAULTS)
                 .theme("dark")
                 .language("en")
-                .showOnlineStatus(true)
                 .fontSize(14)
                 .updatedAt(Instant.now())
                 .build();
@@ -372,6 +382,94 @@ class UserControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Preference Flag Query Tests")
+    class PreferenceFlagQueryTests {
+
+        @Test
+        @DisplayName("should pass the flag names and cursor to the service")
+        void shouldFindIdsByPreferences() throws Exception {
+            when(userService.findUserIdsByPreferences(List.of("pushEnabled", "showOnlineStatus"), List.of("smsEnabled"), null, 500))
+                    .thenReturn(PageResponse.<UUID>builder().content(List.of(testUserId)).last(true).build());
+
+            mockMvc.perform(get("/api/users/ids/by-preferences")
+                            .param("set", "pushEnabled", "showOnlineStatus").param("clear", "smsEnabled"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.content[0]").value(testUserId.toString()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Directory Changes Tests")
+    class DirectoryChangesTests {
+
+        @Test
+        @DisplayName("should return changes since the watermark")
+        void shouldReturnChanges() throws Exception {
+            DirectoryChangesResponse changes = DirectoryChangesResponse.builder()
+                    .upserts(List.of(UserSummaryResponse.builder().id(testUserId).username("testuser").build()))
+                    .removedIds(List.of()).watermark("next").hasMore(false).build();
+            when(userService.getDirectoryChanges("previous", 200)).thenReturn(changes);
+
+            mockMvc.perform(get("/api/users/changes").param("since", "previous").param("limit", "200"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.upserts[0].id").value(testUserId.toString()))
+                    .andExpect(jsonPath("$.data.watermark").value("next"))
+                    .andExpect(jsonPath("$.data.hasMore").value(false));
+        }
+
+        @Test
+        @DisplayName("should start a full sync without a watermark")
+        void shouldStartFullSync() throws Exception {
+            when(userService.getDirectoryChanges(null, 500)).thenReturn(DirectoryChangesResponse.builder()
+                    .upserts(List.of()).removedIds(List.of()).watermark("next").build());
+
+            mockMvc.perform(get("/api/users/changes"))
+                    .andExpect(status().isOk());
+
+            verify(userService).getDirectoryChanges(null, 500);
+        }
+    }
+
+    @Nested
+    @DisplayName("Export Users Tests")
+    class ExportUsersTests {
+
+        @Test
+        @DisplayName("should stream the export as an attachment")
+        void shouldStreamExport() throws Exception {
+            UUID after = UUID.randomUUID();
+            when(userExporter.export(eq(UserStatus.ACTIVE), eq(after), eq(UserExporter.Format.CSV), any(OutputStream.class)))
+                    .thenAnswer(invocation -> {
+                        invocation.getArgument(3, OutputStream.class).write("id\r\n".getBytes(StandardCharsets.UTF_8));
+                        return 0L;
+                    });
+
+            MvcResult result = mockMvc.perform(get("/api/users/export")
+                            .param("status", "active").param("after", after.toString()).param("format", "csv"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(30).toMillis());
+
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("text/csv"))
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"users.csv\""))
+                    .andExpect(content().string("id\r\n"));
+        }
+
+        @Test
+        @DisplayName("should return 400 for an unknown format or status")
+        void shouldRejectInvalidParameters() throws Exception {
+            mockMvc.perform(get("/api/users/export").param("format", "xml"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/users/export").param("status", "unknown"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(userExporter);
+        }
+    }
+
     @Nested
     @DisplayName("Batch Get Users Tests")
     class BatchGetUsersTests {
@@ -406,6 +504,57 @@ class UserControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Notification Eligibility Tests")
+    class NotificationEligibilityTests {
+
+        @Test
+        @DisplayName("should return the eligible recipients")
+        void shouldReturnEligibleRecipients() throws Exception {
+            NotificationEligibilityRequest request = NotificationEligibilityRequest.builder()
+                    .recipientIds(List.of(testUserId, UUID.randomUUID())).channel(NotificationChannel.PUSH).build();
+            when(userService.getNotificationEligibility(any(NotificationEligibilityRequest.class))).thenReturn(
+                    NotificationEligibilityResponse.builder().channel(NotificationChannel.PUSH).eligibleIds(List.of(testUserId)).build());
+
+            mockMvc.perform(post("/api/users/notification-eligibility")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.channel").value("PUSH"))
+                    .andExpect(jsonPath("$.data.eligibleIds[0]").value(testUserId.toString()));
+        }
+
+        @Test
+        @DisplayName("should reject a request without a channel")
+        void shouldRejectMissingChannel() throws Exception {
+            mockMvc.perform(post("/api/users/notification-eligibility")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"recipientIds\":[\"" + testUserId + "\"]}"))
+                    .andExpect(status().isBadRequest());
+
+            verifyNoInteractions(userService);
+        }
+    }
+
+    @Nested
+    @DisplayName("Availability Tests")
+    class AvailabilityTests {
+
+        @Test
+        @DisplayName("should report username and email availability")
+        void shouldReportAvailability() throws Exception {
+            when(userService.checkAvailability("john_doe", "john@example.com")).thenReturn(AvailabilityResponse.builder()
+                    .username("john_doe").usernameAvailable(true).email("john@example.com").emailAvailable(false).build());
+
+            mockMvc.perform(get("/api/users/availability")
+                            .param("username", "john_doe")
+                            .param("email", "john@example.com"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.usernameAvailable").value(true))
+                    .andExpect(jsonPath("$.data.emailAvailable").value(false));
+        }
+    }
+
     @Nested
     @DisplayName("Profile Tests")
     class ProfileTests {
@@ -488,6 +637,8 @@ class UserControllerTest {
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.success").value(true))
                     .andExpect(jsonPath("$.data.pushEnabled").value(true))
+                    .andExpect(jsonPath("$.data.smsEnabled").value(false))
+                    .andExpect(jsonPath("$.data.flags").doesNotExist())
                     .andExpect(jsonPath("$.data.theme").value("dark"))
                     .andExpect(jsonPath("$.data.language").value("en"));
 
@@ -541,5 +692,40 @@ class UserControllerTest {
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isNotFound());
         }
+
+        @Test
+        @DisplayName("should pass a merge patch for custom settings to the service")
+        void shouldMergeCustomSettings() throws Exception {
+            mockMvc.perform(patch("/api/users/{id}/preferences/custom-settings", testUserId)
+                            .contentType(UserController.MERGE_PATCH_JSON_VALUE)
+                            .content("{\"sidebarWidth\": 280, \"pinned\": null}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.success").value(true))
+                    .andExpect(jsonPath("$.message").value("Custom settings updated"));
+
+            verify(userService).mergeCustomSettings(eq(testUserId),
+                    argThat(patch -> patch.get("sidebarWidth").asInt() == 280 && patch.get("pinned").isNull()));
+        }
+
+        @Test
+        @DisplayName("should return one custom setting")
+        void shouldGetCustomSetting() throws Exception {
+            when(userService.getCustomSetting(testUserId, "layout"))
+                    .thenReturn(objectMapper.readTree("{\"sidebarWidth\": 280}"));
+
+            mockMvc.perform(get("/api/users/{id}/preferences/custom-settings/{key}", testUserId, "layout"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.sidebarWidth").value(280));
+        }
+
+        @Test
+        @DisplayName("should return 404 for a missing custom setting")
+        void shouldReturn404ForMissingCustomSetting() throws Exception {
+            when(userService.getCustomSetting(testUserId, "layout"))
+                    .thenThrow(new ResourceNotFoundException("Custom setting not found: layout"));
+
+            mockMvc.perform(get("/api/users/{id}/preferences/custom-settings/{key}", testUserId, "layout"))
+                    .andExpect(status().isNotFound());
+        }
     }
 }
@@ -0,0 +1,58 @@
+package com.quckapp.user.domain.entity;
+
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for UserPreferences.PreferenceFlag
+ */
+@DisplayName("PreferenceFlag Tests")
+class PreferenceFlagTest {
+
+    @Test
+    @DisplayName("should keep DEFAULTS, the column default, in line with each flag's default")
+    void shouldMatchDefaults() {
+        int defaults = Arrays.stream(PreferenceFlag.values())
+                .filter(PreferenceFlag::defaultValue)
+                .mapToInt(PreferenceFlag::mask)
+                .reduce(0, (a, b) -> a | b);
+
+        assertThat(PreferenceFlag.DEFAULTS).isEqualTo(defaults);
+        assertThat(UserPreferences.builder().build().getFlags()).isEqualTo(defaults);
+    }
+
+    @Test
+    @DisplayName("should give every flag its own bit")
+    void shouldUseDistinctBits() {
+        assertThat(Arrays.stream(PreferenceFlag.values()).mapToInt(PreferenceFlag::mask).distinct())
+                .hasSize(PreferenceFlag.values().length)
+                .allMatch(mask -> Integer.bitCount(mask) == 1);
+    }
+
+    @Test
+    @DisplayName("should set and clear one flag without touching the others")
+    void shouldSetAndClear() {
+        UserPreferences preferences = UserPreferences.builder().build();
+
+        preferences.set(PreferenceFlag.PUSH_ENABLED, false);
+        preferences.set(PreferenceFlag.HIGH_CONTRAST, true);
+
+        assertThat(preferences.is(PreferenceFlag.PUSH_ENABLED)).isFalse();
+        assertThat(preferences.is(PreferenceFlag.HIGH_CONTRAST)).isTrue();
+        assertThat(preferences.getFlags() & ~PreferenceFlag.maskOf(PreferenceFlag.PUSH_ENABLED, PreferenceFlag.HIGH_CONTRAST))
+                .isEqualTo(PreferenceFlag.DEFAULTS & ~PreferenceFlag.PUSH_ENABLED.mask());
+    }
+
+    @Test
+    @DisplayName("should map API property names to flags")
+    void shouldMapPropertyNames() {
+        assertThat(PreferenceFlag.forProperty("pushEnabled")).isEqualTo(PreferenceFlag.PUSH_ENABLED);
+        assertThat(PreferenceFlag.forProperty("emojiSuggestionsEnabled")).isEqualTo(PreferenceFlag.EMOJI_SUGGESTIONS_ENABLED);
+        assertThat(PreferenceFlag.forProperty("theme")).isNull();
+    }
+}
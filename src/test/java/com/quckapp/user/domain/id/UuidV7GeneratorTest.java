@@ -0,0 +1,46 @@
+package com.quckapp.user.domain.id;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for UuidV7Generator
+ */
+@DisplayName("UuidV7Generator Tests")
+class UuidV7GeneratorTest {
+
+    @Test
+    @DisplayName("should set the version and variant bits")
+    void shouldSetVersionAndVariant() {
+        UUID id = UuidV7Generator.next();
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should embed the current Unix millisecond timestamp")
+    void shouldEmbedTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+
+        long embedded = id.getMostSignificantBits() >>> 16;
+        assertThat(embedded).isBetween(before, System.currentTimeMillis() + 1_000);
+    }
+
+    @Test
+    @DisplayName("should issue strictly increasing ids in unsigned byte order")
+    void shouldBeMonotonic() {
+        UUID previous = UuidV7Generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7Generator.next();
+            assertThat(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()))
+                    .isPositive();
+            previous = next;
+        }
+    }
+}
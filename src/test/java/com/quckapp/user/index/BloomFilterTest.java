@@ -0,0 +1,51 @@
+package com.quckapp.user.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for BloomFilter
+ */
+@DisplayName("BloomFilter Tests")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("should contain every inserted value")
+    void shouldContainInsertedValues() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i + "@example.com"));
+
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("user" + i + "@example.com"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should keep false positives near the configured rate")
+    void shouldBoundFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("user" + i));
+
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("other" + i)).count();
+
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    @DisplayName("should size bits and hashes from the expected insertions")
+    void shouldSizeFromExpectedInsertions() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        assertThat(filter.bitCount()).isBetween(9_500_000L, 9_700_000L);
+        assertThat(filter.hashCount()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("should reject invalid sizing")
+    void shouldRejectInvalidSizing() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1.0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
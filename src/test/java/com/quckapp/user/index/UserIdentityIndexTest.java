@@ -0,0 +1,122 @@
+package com.quckapp.user.index;
+
+import com.quckapp.user.domain.repository.UserRepository;
+import com.quckapp.user.domain.repository.UserRepository.IdentityView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserIdentityIndex
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserIdentityIndex Tests")
+class UserIdentityIndexTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserIdentityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserIdentityIndex(userRepository, transactionManager, true, 1_000, 0.01, 100);
+    }
+
+    private static IdentityView identity(String email, String username) {
+        return new IdentityView() {
+            @Override public String getEmail() { return email; }
+            @Override public String getUsername() { return username; }
+        };
+    }
+
+    private void rebuildWith(IdentityView... identities) {
+        when(userRepository.count()).thenReturn((long) identities.length);
+        when(userRepository.streamIdentities()).thenReturn(Stream.of(identities));
+        index.rebuild();
+    }
+
+    @Nested
+    @DisplayName("Before Rebuild Tests")
+    class BeforeRebuildTests {
+
+        @Test
+        @DisplayName("should treat every value as possibly taken")
+        void shouldReportEverythingAsPossiblyTaken() {
+            assertThat(index.mightContainEmail("anyone@example.com")).isTrue();
+            assertThat(index.mightContainUsername("anyone")).isTrue();
+        }
+
+        @Test
+        @DisplayName("should fall back to the database for exact answers")
+        void shouldFallBackToDatabase() {
+            when(userRepository.existsByUsername("anyone")).thenReturn(false);
+
+            assertThat(index.isUsernameTaken("anyone")).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("After Rebuild Tests")
+    class AfterRebuildTests {
+
+        @BeforeEach
+        void rebuild() {
+            rebuildWith(identity("taken@example.com", "taken"));
+        }
+
+        @Test
+        @DisplayName("should answer clearly free values without querying the database")
+        void shouldNotQueryForFreeValues() {
+            assertThat(index.isUsernameTaken("free-name")).isFalse();
+            assertThat(index.isEmailTaken("free@example.com")).isFalse();
+
+            verify(userRepository, never()).existsByUsername(any());
+            verify(userRepository, never()).existsByEmail(any());
+        }
+
+        @Test
+        @DisplayName("should confirm a hit once and remember it")
+        void shouldConfirmHitsOnce() {
+            when(userRepository.existsByUsername("taken")).thenReturn(true);
+
+            assertThat(index.isUsernameTaken("Taken")).isTrue();
+            assertThat(index.isUsernameTaken("taken")).isTrue();
+
+            verify(userRepository, times(1)).existsByUsername("taken");
+        }
+
+        @Test
+        @DisplayName("should include values added after the rebuild")
+        void shouldIncludeAddedValues() {
+            index.add("New@Example.com", "NewUser");
+
+            assertThat(index.mightContainEmail("new@example.com")).isTrue();
+            assertThat(index.mightContainUsername("newuser")).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("should keep reporting values as possibly taken when the rebuild fails")
+    void shouldSurviveRebuildFailure() {
+        when(userRepository.count()).thenThrow(new IllegalStateException("database unavailable"));
+
+        index.rebuild();
+
+        assertThat(index.mightContainUsername("anyone")).isTrue();
+    }
+}
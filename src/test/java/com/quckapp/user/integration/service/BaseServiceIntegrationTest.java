@@ -47,15 +47,30 @@ import org.springframework.test.context.TestPropertySource;
     "spring.flyway.locations=classpath:db/migration",
     "spring.jpa.hibernate.ddl-auto=none",
     "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQLDialect",
-    "spring.jpa.properties.hibernate.type.preferred_uuid_jdbc_type=CHAR",
+    "spring.jpa.properties.hibernate.type.preferred_uuid_jdbc_type=BINARY",
 
     // Disable Kafka auto-configuration
     "spring.kafka.bootstrap-servers=",
     "spring.kafka.consumer.group-id=test",
+    "app.kafka.outbox.relay.enabled=false",
+    "app.kafka.identity-index.listener.enabled=false",
+    "app.kafka.notification-routing.listener.enabled=false",
 
     // Disable Redis health indicator
     "management.health.redis.enabled=false",
 
+    // Disable the near cache and its pub/sub listener
+    "app.cache.near.enabled=false",
+
+    // InnoDB only indexes full-text rows at commit, and these tests roll back
+    "app.search.full-text.enabled=false",
+
+    // Batched lookups run on loader threads, outside the test transaction
+    "app.users.batch-loader.enabled=false",
+
+    // Warm-up reads the hot-user set from Redis, which is mocked here
+    "app.warmup.enabled=false",
+
     // Logging
     "logging.level.com.quckapp.user=DEBUG"
 })
@@ -70,7 +85,7 @@ public abstract class BaseServiceIntegrationTest {
         @Bean
         @Primary
         public CacheManager testCacheManager() {
-            return new ConcurrentMapCacheManager("users");
+            return new ConcurrentMapCacheManager("users", "profiles", "preferences");
         }
 
         @Bean
@@ -1,20 +1,28 @@
 package com.quckapp.user.integration.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.quckapp.user.domain.entity.User;
 import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
 import com.quckapp.user.domain.repository.UserPreferencesRepository;
 import com.quckapp.user.domain.repository.UserProfileRepository;
 import com.quckapp.user.domain.repository.UserRepository;
 import com.quckapp.user.dto.UserDtos.*;
 import com.quckapp.user.exception.DuplicateResourceException;
 import com.quckapp.user.exception.ResourceNotFoundException;
+import com.quckapp.user.service.UserExporter;
 import com.quckapp.user.service.UserService;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -37,6 +45,9 @@ class UserServiceIntegrationTest extends BaseServiceIntegrationTest {
     @Autowired
     private UserPreferencesRepository preferencesRepository;
 
+    @Autowired
+    private UserExporter userExporter;
+
     @Nested
     @DisplayName("User Creation Operations")
     class UserCreationOperations {
@@ -92,9 +103,9 @@ class UserServiceIntegrationTest extends BaseServiceIntegrationTest {
         }
 
         @Test
-        @DisplayName("Should create profile and preferences for new user")
+        @DisplayName("Should defer profile and preferences rows until first written")
         @Transactional
-        void shouldCreateProfileAndPreferencesForNewUser() {
+        void shouldDeferProfileAndPreferencesForNewUser() {
             // Given
             String email = "withprofile_" + System.currentTimeMillis() + "@test.com";
             String username = "withprofileuser" + System.currentTimeMillis();
@@ -105,9 +116,16 @@ class UserServiceIntegrationTest extends BaseServiceIntegrationTest {
 
             // When
             UserResponse response = userService.createUser(request);
+            flushAndClear();
 
             // Then
-            assertThat(profileRepository.findById(response.getId())).isPresent();
+            assertThat(profileRepository.findById(response.getId())).isEmpty();
+            assertThat(preferencesRepository.findById(response.getId())).isEmpty();
+            assertThat(userService.getPreferences(response.getId()).getTheme()).isEqualTo("system");
+            assertThat(preferencesRepository.findById(response.getId())).isEmpty();
+
+            userService.updatePreferences(response.getId(), UpdatePreferencesRequest.builder().theme("dark").build());
+            flushAndClear();
             assertThat(preferencesRepository.findById(response.getId())).isPresent();
         }
 
@@ -482,6 +500,58 @@ class UserServiceIntegrationTest extends BaseServiceIntegrationTest {
             // Then
             assertThat(result).isEmpty();
         }
+
+        @Test
+        @DisplayName("Should page directory changes by watermark with tombstones")
+        @Transactional
+        void shouldPageDirectoryChangesByWatermark() {
+            // Given
+            String suffix = UUID.randomUUID().toString().substring(0, 8);
+            UserResponse active = createTestUserWithUsername("active_" + suffix, "active_" + suffix + "@test.com");
+            UserResponse suspended = createTestUserWithUsername("suspended_" + suffix, "suspended_" + suffix + "@test.com");
+            userService.suspendUser(suspended.getId());
+            flushAndClear();
+            // Older than any other row, so a full sync returns these two first
+            entityManager.createNativeQuery("UPDATE users SET updated_at = '1971-01-01 00:00:00' WHERE id_bin IN (:ids)")
+                    .setParameter("ids", List.of(active.getId(), suspended.getId()))
+                    .executeUpdate();
+
+            // When
+            DirectoryChangesResponse first = userService.getDirectoryChanges(null, 1);
+            DirectoryChangesResponse second = userService.getDirectoryChanges(first.getWatermark(), 1);
+
+            // Then
+            assertThat(first.isHasMore()).isTrue();
+            assertThat(first.getUpserts().size() + first.getRemovedIds().size()).isEqualTo(1);
+            assertThat(Stream.concat(first.getUpserts().stream(), second.getUpserts().stream()).map(UserSummaryResponse::getId))
+                    .contains(active.getId()).doesNotContain(suspended.getId());
+            assertThat(Stream.concat(first.getRemovedIds().stream(), second.getRemovedIds().stream()))
+                    .containsExactly(suspended.getId());
+        }
+
+        @Test
+        @DisplayName("Should export users by status and resume after an id")
+        @Transactional
+        void shouldExportUsersByStatus() throws Exception {
+            // Given
+            String suffix = UUID.randomUUID().toString().substring(0, 8);
+            UserResponse first = createTestUserWithUsername("export1_" + suffix, "export1_" + suffix + "@test.com");
+            UserResponse second = createTestUserWithUsername("export2_" + suffix, "export2_" + suffix + "@test.com");
+            userService.suspendUser(second.getId());
+            flushAndClear();
+
+            // When
+            ByteArrayOutputStream suspended = new ByteArrayOutputStream();
+            userExporter.export(UserStatus.SUSPENDED, null, UserExporter.Format.NDJSON, suspended);
+            ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+            userExporter.export(null, first.getId(), UserExporter.Format.CSV, resumed);
+
+            // Then
+            assertThat(suspended.toString(StandardCharsets.UTF_8))
+                    .contains("\"username\":\"export2_" + suffix + "\"")
+                    .doesNotContain("export1_" + suffix);
+            assertThat(resumed.toString(StandardCharsets.UTF_8)).startsWith("id,email,").doesNotContain(first.getId().toString());
+        }
     }
 
     @Nested
@@ -640,6 +710,59 @@ class UserServiceIntegrationTest extends BaseServiceIntegrationTest {
             assertThat(updated.isEmailEnabled()).isTrue();
         }
 
+        @Test
+        @DisplayName("Should find users by preference flags with a bitwise query, including users on defaults")
+        @Transactional
+        void shouldFindUsersByPreferenceFlags() {
+            // Given
+            String suffix = UUID.randomUUID().toString().substring(0, 8);
+            UserResponse visible = createTestUserWithUsername("visible_" + suffix, "visible_" + suffix + "@test.com");
+            UserResponse hidden = createTestUserWithUsername("hidden_" + suffix, "hidden_" + suffix + "@test.com");
+            UserResponse untouched = createTestUserWithUsername("defaults_" + suffix, "defaults_" + suffix + "@test.com");
+            flushAndClear();
+            userService.updatePreferences(visible.getId(), UpdatePreferencesRequest.builder().pushEnabled(true).build());
+            userService.updatePreferences(hidden.getId(), UpdatePreferencesRequest.builder().showOnlineStatus(false).build());
+            flushAndClear();
+
+            // When
+            List<UUID> ids = userRepository.findIdsByPreferenceFlags(UserStatus.ACTIVE,
+                    PreferenceFlag.maskOf(PreferenceFlag.PUSH_ENABLED, PreferenceFlag.SHOW_ONLINE_STATUS),
+                    PreferenceFlag.SMS_ENABLED.mask(), new UUID(0, 0), PageRequest.of(0, 100_000)).getContent();
+
+            // Then
+            assertThat(ids).contains(visible.getId(), untouched.getId()).doesNotContain(hidden.getId());
+        }
+
+        @Test
+        @DisplayName("Should merge custom settings in the database and read single keys")
+        @Transactional
+        void shouldMergeCustomSettingsInDatabase() throws Exception {
+            // Given
+            ObjectMapper objectMapper = new ObjectMapper();
+            UserResponse user = createTestUser();
+            flushAndClear();
+
+            // When
+            userService.mergeCustomSettings(user.getId(), objectMapper.readTree("{\"layout\": {\"sidebarWidth\": 280}, \"pinned\": [\"general\"]}"));
+            userService.mergeCustomSettings(user.getId(), objectMapper.readTree("{\"layout\": {\"density\": \"compact\"}, \"pinned\": null}"));
+            flushAndClear();
+
+            // Then
+            JsonNode layout = userService.getCustomSetting(user.getId(), "layout");
+            assertThat(layout.get("sidebarWidth").asInt()).isEqualTo(280);
+            assertThat(layout.get("density").asText()).isEqualTo("compact");
+            assertThatThrownBy(() -> userService.getCustomSetting(user.getId(), "pinned"))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("Should throw when merging custom settings for non-existent user")
+        @Transactional
+        void shouldThrowWhenMergingCustomSettingsForNonExistentUser() {
+            assertThatThrownBy(() -> userService.mergeCustomSettings(UUID.randomUUID(), new ObjectMapper().createObjectNode().put("a", 1)))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+
         @Test
         @DisplayName("Should throw when getting preferences for non-existent user")
         @Transactional
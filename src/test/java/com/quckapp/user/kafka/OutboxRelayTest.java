@@ -0,0 +1,183 @@
+package com.quckapp.user.kafka;
+
+import com.quckapp.user.domain.entity.OutboxEvent;
+import com.quckapp.user.domain.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxRelay
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxRelay Tests")
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxRepository;
+
+    @Mock
+    private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new OutboxRelay(outboxRepository, kafkaTemplate, new TransactionTemplate(transactionManager),
+                new SimpleMeterRegistry(), 2, Duration.ofSeconds(1), Duration.ofHours(24));
+    }
+
+    private void holdLease() {
+        when(outboxRepository.acquireLease(eq(OutboxRelay.LEASE_NAME), anyString(), eq(2000L))).thenReturn(1);
+    }
+
+    private void keepLease() {
+        when(outboxRepository.renewLease(eq(OutboxRelay.LEASE_NAME), anyString(), eq(2000L))).thenReturn(1);
+    }
+
+    private OutboxEvent event(long id) {
+        return event(id, "user-" + id);
+    }
+
+    private OutboxEvent event(long id, String key) {
+        return OutboxEvent.builder().id(id).topic("quckapp.users.events").messageKey(key)
+                .eventType("USER_UPDATED").contentType(AvroUserEventCodec.CONTENT_TYPE).payload(new byte[]{1, 2, 3}).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<SendResult<String, byte[]>> acked() {
+        return CompletableFuture.completedFuture(mock(SendResult.class));
+    }
+
+    @Test
+    @DisplayName("should send the batch and mark every delivered row sent in one update")
+    void shouldMarkDeliveredRowsSent() {
+        holdLease();
+        keepLease();
+        when(outboxRepository.findUnsentBatch(2)).thenReturn(List.of(event(1), event(2)), List.of());
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(acked());
+
+        relay.relay();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ProducerRecord<String, byte[]>> records = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(records.capture());
+        ProducerRecord<String, byte[]> first = records.getAllValues().get(0);
+        assertThat(first.key()).isEqualTo("user-1");
+        assertThat(new String(first.headers().lastHeader(OutboxRelay.EVENT_TYPE_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo("USER_UPDATED");
+        assertThat(new String(first.headers().lastHeader(UserEventCodec.CONTENT_TYPE_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(AvroUserEventCodec.CONTENT_TYPE);
+        verify(outboxRepository).markSent(eq(List.of(1L, 2L)), any());
+    }
+
+    @Test
+    @DisplayName("should leave failed rows unsent and stop draining")
+    void shouldLeaveFailedRowsUnsent() {
+        holdLease();
+        keepLease();
+        when(outboxRepository.findUnsentBatch(2)).thenReturn(List.of(event(1), event(2)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(acked())
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        relay.relay();
+
+        verify(outboxRepository, times(1)).findUnsentBatch(2);
+        verify(outboxRepository).markSent(eq(List.of(1L)), any());
+    }
+
+    @Test
+    @DisplayName("should do nothing when the outbox is empty")
+    void shouldSkipEmptyOutbox() {
+        holdLease();
+        when(outboxRepository.findUnsentBatch(2)).thenReturn(List.of());
+
+        relay.relay();
+
+        verifyNoInteractions(kafkaTemplate);
+        verify(outboxRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    @DisplayName("should hold back later events for a key whose earlier event failed")
+    void shouldHoldBackEventsBehindAFailure() {
+        holdLease();
+        keepLease();
+        relay = new OutboxRelay(outboxRepository, kafkaTemplate, new TransactionTemplate(transactionManager),
+                new SimpleMeterRegistry(), 3, Duration.ofSeconds(1), Duration.ofHours(24));
+        when(outboxRepository.findUnsentBatch(3)).thenReturn(List.of(event(1, "user-a"), event(2, "user-a"), event(3, "user-b")));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")))
+                .thenReturn(acked())
+                .thenReturn(acked());
+
+        relay.relay();
+
+        verify(outboxRepository).markSent(eq(List.of(3L)), any());
+    }
+
+    @Test
+    @DisplayName("should give up on acks still pending at the batch deadline")
+    void shouldStopWaitingAtBatchDeadline() {
+        holdLease();
+        keepLease();
+        when(outboxRepository.findUnsentBatch(2)).thenReturn(List.of(event(1), event(2)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(acked())
+                .thenReturn(new CompletableFuture<>());
+
+        long started = System.nanoTime();
+        relay.relay();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        verify(outboxRepository).markSent(eq(List.of(1L)), any());
+    }
+
+    @Test
+    @DisplayName("should not mark rows sent once the lease has been lost")
+    void shouldNotMarkAfterLosingLease() {
+        holdLease();
+        when(outboxRepository.renewLease(anyString(), anyString(), anyLong())).thenReturn(0);
+        when(outboxRepository.findUnsentBatch(2)).thenReturn(List.of(event(1), event(2)));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(acked());
+
+        relay.relay();
+
+        verify(outboxRepository, times(1)).findUnsentBatch(2);
+        verify(outboxRepository, never()).markSent(any(), any());
+    }
+
+    @Test
+    @DisplayName("should not relay while another instance holds the lease")
+    void shouldWaitForLease() {
+        when(outboxRepository.acquireLease(anyString(), anyString(), anyLong())).thenReturn(0);
+
+        relay.relay();
+
+        verify(outboxRepository, never()).findUnsentBatch(anyInt());
+        verifyNoInteractions(kafkaTemplate);
+    }
+}
@@ -0,0 +1,115 @@
+package com.quckapp.user.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quckapp.user.kafka.UserEvents.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for the user event codecs
+ */
+@DisplayName("UserEventCodec Tests")
+class UserEventCodecTest {
+
+    private static final UUID USER_ID = UUID.randomUUID();
+    private static final Instant NOW = Instant.ofEpochMilli(System.currentTimeMillis());
+
+    private final AvroUserEventCodec avro = new AvroUserEventCodec(new UserEventSchemaRegistry());
+    private final JsonUserEventCodec json = new JsonUserEventCodec(new ObjectMapper());
+
+    static Stream<UserEvent> events() {
+        return Stream.of(
+                event(UserEventType.USER_CREATED, new UserCreated(USER_ID, "test@example.com", "testuser")),
+                event(UserEventType.USER_UPDATED, new UserUpdated(USER_ID, "test@example.com", "Test User")),
+                event(UserEventType.USER_DEACTIVATED, new UserStatusChanged(USER_ID, "test@example.com")),
+                event(UserEventType.USER_SUSPENDED, new UserStatusChanged(USER_ID, "test@example.com")),
+                event(UserEventType.PROFILE_UPDATED, new ProfileUpdated(USER_ID, "Working from home")),
+                event(UserEventType.PROFILE_UPDATED, new ProfileUpdated(USER_ID, null)),
+                event(UserEventType.PREFERENCES_UPDATED, new PreferencesUpdated(USER_ID, "dark")));
+    }
+
+    private static UserEvent event(UserEventType type, EventData data) {
+        return new UserEvent(type, USER_ID, NOW, "user-service", data);
+    }
+
+    @Nested
+    @DisplayName("Avro Codec Tests")
+    class AvroCodecTests {
+
+        @ParameterizedTest
+        @MethodSource("com.quckapp.user.kafka.UserEventCodecTest#events")
+        @DisplayName("should round-trip every event type")
+        void shouldRoundTrip(UserEvent event) {
+            assertThat(avro.decode(avro.encode(event))).isEqualTo(event);
+        }
+
+        @Test
+        @DisplayName("should frame messages with the magic byte and schema id")
+        void shouldFrameWithSchemaId() {
+            byte[] encoded = avro.encode(events().findFirst().orElseThrow());
+
+            assertThat(encoded[0]).isZero();
+            assertThat(encoded[4]).isEqualTo((byte) UserEventSchemaRegistry.CURRENT_SCHEMA_ID);
+        }
+
+        @Test
+        @DisplayName("should be much smaller than the JSON envelope")
+        void shouldBeSmallerThanJson() {
+            UserEvent event = events().findFirst().orElseThrow();
+
+            assertThat(avro.encode(event).length).isLessThan(json.encode(event).length / 2);
+        }
+
+        @Test
+        @DisplayName("should reject unknown schema ids")
+        void shouldRejectUnknownSchemaIds() {
+            byte[] encoded = avro.encode(events().findFirst().orElseThrow());
+            encoded[4] = 99;
+
+            assertThatThrownBy(() -> avro.decode(encoded)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("JSON Codec Tests")
+    class JsonCodecTests {
+
+        @ParameterizedTest
+        @MethodSource("com.quckapp.user.kafka.UserEventCodecTest#events")
+        @DisplayName("should round-trip every event type")
+        void shouldRoundTrip(UserEvent event) {
+            assertThat(json.decode(json.encode(event))).isEqualTo(event);
+        }
+    }
+
+    @Nested
+    @DisplayName("Codec Lookup Tests")
+    class CodecLookupTests {
+
+        private final UserEventCodecs codecs = new UserEventCodecs(List.of(json, avro));
+
+        @Test
+        @DisplayName("should find the codec for each content type")
+        void shouldFindByContentType() {
+            assertThat(codecs.forContentType(AvroUserEventCodec.CONTENT_TYPE)).containsSame(avro);
+            assertThat(codecs.forContentType(JsonUserEventCodec.CONTENT_TYPE)).containsSame(json);
+        }
+
+        @Test
+        @DisplayName("should read records without the header as JSON and reject unknown types")
+        void shouldDefaultToJson() {
+            assertThat(codecs.forContentType(null)).containsSame(json);
+            assertThat(codecs.forContentType("application/xml")).isEmpty();
+        }
+    }
+}
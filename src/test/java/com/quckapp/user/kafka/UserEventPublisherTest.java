@@ -1,8 +1,12 @@
 package com.quckapp.user.kafka;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quckapp.user.domain.entity.OutboxEvent;
 import com.quckapp.user.domain.entity.User;
 import com.quckapp.user.domain.entity.UserPreferences;
 import com.quckapp.user.domain.entity.UserProfile;
+import com.quckapp.user.domain.repository.OutboxEventRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,12 +15,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,7 +34,9 @@ import static org.mockito.Mockito.*;
 class UserEventPublisherTest {
 
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private OutboxEventRepository outboxRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     private UserEventPublisher userEventPublisher;
 
@@ -40,7 +45,7 @@ class UserEventPublisherTest {
 
     @BeforeEach
     void setUp() {
-        userEventPublisher = new UserEventPublisher(kafkaTemplate);
+        userEventPublisher = new UserEventPublisher(outboxRepository, new JsonUserEventCodec(objectMapper));
         ReflectionTestUtils.setField(userEventPublisher, "userEventsTopic", "quckapp.users.events");
 
         testUserId = UUID.randomUUID();
@@ -52,18 +57,19 @@ class UserEventPublisherTest {
                 .build();
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    private void mockKafkaSendSuccess() {
-        CompletableFuture future = new CompletableFuture();
-        future.complete(null);
-        given(kafkaTemplate.send(anyString(), anyString(), any())).willReturn(future);
+    private OutboxEvent capturedOutboxEvent() {
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxRepository).save(captor.capture());
+        return captor.getValue();
+    }
+
+    private Map<String, Object> capturedEvent() throws IOException {
+        return objectMapper.readValue(capturedOutboxEvent().getPayload(), new TypeReference<>() {});
     }
 
-    @SuppressWarnings({"unchecked", "rawtypes"})
-    private void mockKafkaSendFailure() {
-        CompletableFuture future = new CompletableFuture();
-        future.completeExceptionally(new RuntimeException("Kafka send failed"));
-        given(kafkaTemplate.send(anyString(), anyString(), any())).willReturn(future);
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> data(Map<String, Object> event) {
+        return (Map<String, Object>) event.get("data");
     }
 
     @Nested
@@ -71,36 +77,29 @@ class UserEventPublisherTest {
     class PublishUserCreatedTests {
 
         @Test
-        @DisplayName("should publish USER_CREATED event with correct data")
-        void shouldPublishUserCreatedEvent() {
-            mockKafkaSendSuccess();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
-
+        @DisplayName("should record USER_CREATED event with correct data")
+        void shouldPublishUserCreatedEvent() throws IOException {
             userEventPublisher.publishUserCreated(testUser);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
+            Map<String, Object> event = capturedEvent();
             assertThat(event.get("eventType")).isEqualTo("USER_CREATED");
             assertThat(event.get("userId")).isEqualTo(testUserId.toString());
             assertThat(event.get("source")).isEqualTo("user-service");
             assertThat(event.get("timestamp")).isNotNull();
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
+            Map<String, Object> data = data(event);
             assertThat(data.get("id")).isEqualTo(testUserId.toString());
             assertThat(data.get("email")).isEqualTo("test@example.com");
             assertThat(data.get("username")).isEqualTo("testuser");
         }
 
         @Test
-        @DisplayName("should handle send failure gracefully")
-        void shouldHandleSendFailureGracefully() {
-            mockKafkaSendFailure();
-
-            assertThatCode(() -> userEventPublisher.publishUserCreated(testUser))
-                    .doesNotThrowAnyException();
+        @DisplayName("should propagate outbox write failures to fail the caller's transaction")
+        void shouldPropagateOutboxFailures() {
+            given(outboxRepository.save(any())).willThrow(new IllegalStateException("database unavailable"));
 
-            verify(kafkaTemplate).send(anyString(), anyString(), any());
+            assertThatThrownBy(() -> userEventPublisher.publishUserCreated(testUser))
+                    .isInstanceOf(IllegalStateException.class);
         }
     }
 
@@ -109,19 +108,14 @@ class UserEventPublisherTest {
     class PublishUserUpdatedTests {
 
         @Test
-        @DisplayName("should publish USER_UPDATED event with correct data")
-        void shouldPublishUserUpdatedEvent() {
-            mockKafkaSendSuccess();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
-
+        @DisplayName("should record USER_UPDATED event with correct data")
+        void shouldPublishUserUpdatedEvent() throws IOException {
             userEventPublisher.publishUserUpdated(testUser);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
+            Map<String, Object> event = capturedEvent();
             assertThat(event.get("eventType")).isEqualTo("USER_UPDATED");
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
+            Map<String, Object> data = data(event);
             assertThat(data.get("id")).isEqualTo(testUserId.toString());
             assertThat(data.get("email")).isEqualTo("test@example.com");
             assertThat(data.get("displayName")).isEqualTo("Test User");
@@ -129,28 +123,12 @@ class UserEventPublisherTest {
 
         @Test
         @DisplayName("should handle null displayName")
-        void shouldHandleNullDisplayName() {
-            mockKafkaSendSuccess();
+        void shouldHandleNullDisplayName() throws IOException {
             testUser.setDisplayName(null);
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
 
             userEventPublisher.publishUserUpdated(testUser);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
-            assertThat(data.get("displayName")).isEqualTo("");
-        }
-
-        @Test
-        @DisplayName("should handle send failure gracefully")
-        void shouldHandleSendFailureGracefully() {
-            mockKafkaSendFailure();
-
-            assertThatCode(() -> userEventPublisher.publishUserUpdated(testUser))
-                    .doesNotThrowAnyException();
+            assertThat(data(capturedEvent()).get("displayName")).isEqualTo("");
         }
     }
 
@@ -159,31 +137,17 @@ class UserEventPublisherTest {
     class PublishUserDeactivatedTests {
 
         @Test
-        @DisplayName("should publish USER_DEACTIVATED event with correct data")
-        void shouldPublishUserDeactivatedEvent() {
-            mockKafkaSendSuccess();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
-
+        @DisplayName("should record USER_DEACTIVATED event with correct data")
+        void shouldPublishUserDeactivatedEvent() throws IOException {
             userEventPublisher.publishUserDeactivated(testUser);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
+            Map<String, Object> event = capturedEvent();
             assertThat(event.get("eventType")).isEqualTo("USER_DEACTIVATED");
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
+            Map<String, Object> data = data(event);
             assertThat(data.get("id")).isEqualTo(testUserId.toString());
             assertThat(data.get("email")).isEqualTo("test@example.com");
         }
-
-        @Test
-        @DisplayName("should handle send failure gracefully")
-        void shouldHandleSendFailureGracefully() {
-            mockKafkaSendFailure();
-
-            assertThatCode(() -> userEventPublisher.publishUserDeactivated(testUser))
-                    .doesNotThrowAnyException();
-        }
     }
 
     @Nested
@@ -191,31 +155,17 @@ class UserEventPublisherTest {
     class PublishUserSuspendedTests {
 
         @Test
-        @DisplayName("should publish USER_SUSPENDED event with correct data")
-        void shouldPublishUserSuspendedEvent() {
-            mockKafkaSendSuccess();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
-
+        @DisplayName("should record USER_SUSPENDED event with correct data")
+        void shouldPublishUserSuspendedEvent() throws IOException {
             userEventPublisher.publishUserSuspended(testUser);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
+            Map<String, Object> event = capturedEvent();
             assertThat(event.get("eventType")).isEqualTo("USER_SUSPENDED");
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
+            Map<String, Object> data = data(event);
             assertThat(data.get("id")).isEqualTo(testUserId.toString());
             assertThat(data.get("email")).isEqualTo("test@example.com");
         }
-
-        @Test
-        @DisplayName("should handle send failure gracefully")
-        void shouldHandleSendFailureGracefully() {
-            mockKafkaSendFailure();
-
-            assertThatCode(() -> userEventPublisher.publishUserSuspended(testUser))
-                    .doesNotThrowAnyException();
-        }
     }
 
     @Nested
@@ -223,57 +173,37 @@ class UserEventPublisherTest {
     class PublishProfileUpdatedTests {
 
         @Test
-        @DisplayName("should publish PROFILE_UPDATED event with custom status")
-        void shouldPublishProfileUpdatedEventWithCustomStatus() {
-            mockKafkaSendSuccess();
+        @DisplayName("should record PROFILE_UPDATED event with custom status")
+        void shouldPublishProfileUpdatedEventWithCustomStatus() throws IOException {
             UserProfile profile = UserProfile.builder()
                     .userId(testUserId)
                     .customStatus("Working from home")
                     .build();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
 
             userEventPublisher.publishProfileUpdated(testUserId, profile);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
+            Map<String, Object> event = capturedEvent();
             assertThat(event.get("eventType")).isEqualTo("PROFILE_UPDATED");
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
+            Map<String, Object> data = data(event);
             assertThat(data.get("userId")).isEqualTo(testUserId.toString());
             assertThat(data.get("customStatus")).isEqualTo("Working from home");
         }
 
         @Test
-        @DisplayName("should publish PROFILE_UPDATED event without custom status")
-        void shouldPublishProfileUpdatedEventWithoutCustomStatus() {
-            mockKafkaSendSuccess();
+        @DisplayName("should record PROFILE_UPDATED event without custom status")
+        void shouldPublishProfileUpdatedEventWithoutCustomStatus() throws IOException {
             UserProfile profile = UserProfile.builder()
                     .userId(testUserId)
                     .customStatus(null)
                     .build();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
 
             userEventPublisher.publishProfileUpdated(testUserId, profile);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
+            Map<String, Object> data = data(capturedEvent());
             assertThat(data.get("userId")).isEqualTo(testUserId.toString());
             assertThat(data).doesNotContainKey("customStatus");
         }
-
-        @Test
-        @DisplayName("should handle send failure gracefully")
-        void shouldHandleSendFailureGracefully() {
-            mockKafkaSendFailure();
-            UserProfile profile = UserProfile.builder().userId(testUserId).build();
-
-            assertThatCode(() -> userEventPublisher.publishProfileUpdated(testUserId, profile))
-                    .doesNotThrowAnyException();
-        }
     }
 
     @Nested
@@ -281,130 +211,49 @@ class UserEventPublisherTest {
     class PublishPreferencesUpdatedTests {
 
         @Test
-        @DisplayName("should publish PREFERENCES_UPDATED event with correct data")
-        void shouldPublishPreferencesUpdatedEvent() {
-            mockKafkaSendSuccess();
+        @DisplayName("should record PREFERENCES_UPDATED event with correct data")
+        void shouldPublishPreferencesUpdatedEvent() throws IOException {
             UserPreferences preferences = UserPreferences.builder()
                     .userId(testUserId)
                     .theme("dark")
                     .build();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
 
             userEventPublisher.publishPreferencesUpdated(testUserId, preferences);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
+            Map<String, Object> event = capturedEvent();
             assertThat(event.get("eventType")).isEqualTo("PREFERENCES_UPDATED");
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
+            Map<String, Object> data = data(event);
             assertThat(data.get("userId")).isEqualTo(testUserId.toString());
             assertThat(data.get("theme")).isEqualTo("dark");
         }
-
-        @Test
-        @DisplayName("should publish with system theme")
-        void shouldPublishWithSystemTheme() {
-            mockKafkaSendSuccess();
-            UserPreferences preferences = UserPreferences.builder()
-                    .userId(testUserId)
-                    .theme("system")
-                    .build();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
-
-            userEventPublisher.publishPreferencesUpdated(testUserId, preferences);
-
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
-
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = (Map<String, Object>) event.get("data");
-            assertThat(data.get("theme")).isEqualTo("system");
-        }
-
-        @Test
-        @DisplayName("should handle send failure gracefully")
-        void shouldHandleSendFailureGracefully() {
-            mockKafkaSendFailure();
-            UserPreferences preferences = UserPreferences.builder()
-                    .userId(testUserId)
-                    .theme("light")
-                    .build();
-
-            assertThatCode(() -> userEventPublisher.publishPreferencesUpdated(testUserId, preferences))
-                    .doesNotThrowAnyException();
-        }
     }
 
     @Nested
-    @DisplayName("Event Structure Tests")
-    class EventStructureTests {
+    @DisplayName("Outbox Row Tests")
+    class OutboxRowTests {
 
         @Test
-        @DisplayName("should include timestamp in all events")
-        void shouldIncludeTimestampInAllEvents() {
-            mockKafkaSendSuccess();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
-
-            userEventPublisher.publishUserCreated(testUser);
+        @DisplayName("should address the row to the user events topic keyed by userId")
+        void shouldUseTopicAndUserIdKey() {
+            userEventPublisher.publishUserDeactivated(testUser);
 
-            verify(kafkaTemplate).send(anyString(), anyString(), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
-            assertThat(event.get("timestamp")).isNotNull();
-            assertThat(event.get("timestamp").toString()).isNotEmpty();
+            OutboxEvent outboxEvent = capturedOutboxEvent();
+            assertThat(outboxEvent.getTopic()).isEqualTo("quckapp.users.events");
+            assertThat(outboxEvent.getMessageKey()).isEqualTo(testUserId.toString());
+            assertThat(outboxEvent.getEventType()).isEqualTo("USER_DEACTIVATED");
+            assertThat(outboxEvent.getContentType()).isEqualTo(JsonUserEventCodec.CONTENT_TYPE);
+            assertThat(outboxEvent.getSentAt()).isNull();
         }
 
         @Test
-        @DisplayName("should include source in all events")
-        void shouldIncludeSourceInAllEvents() {
-            mockKafkaSendSuccess();
-            ArgumentCaptor<Map<String, Object>> eventCaptor = ArgumentCaptor.forClass(Map.class);
-
+        @DisplayName("should record one row per event")
+        void shouldRecordOneRowPerEvent() {
+            userEventPublisher.publishUserCreated(testUser);
             userEventPublisher.publishUserUpdated(testUser);
-
-            verify(kafkaTemplate).send(anyString(), anyString(), eventCaptor.capture());
-            Map<String, Object> event = eventCaptor.getValue();
-            assertThat(event.get("source")).isEqualTo("user-service");
-        }
-
-        @Test
-        @DisplayName("should use userId as Kafka key")
-        void shouldUseUserIdAsKafkaKey() {
-            mockKafkaSendSuccess();
-
             userEventPublisher.publishUserDeactivated(testUser);
 
-            verify(kafkaTemplate).send(eq("quckapp.users.events"), eq(testUserId.toString()), any());
-        }
-    }
-
-    @Nested
-    @DisplayName("Error Handling Tests")
-    class ErrorHandlingTests {
-
-        @Test
-        @DisplayName("should handle KafkaTemplate exception gracefully")
-        void shouldHandleKafkaTemplateExceptionGracefully() {
-            given(kafkaTemplate.send(anyString(), anyString(), any()))
-                    .willThrow(new RuntimeException("Kafka unavailable"));
-
-            assertThatCode(() -> userEventPublisher.publishUserCreated(testUser))
-                    .doesNotThrowAnyException();
-        }
-
-        @Test
-        @DisplayName("should handle multiple consecutive failures")
-        void shouldHandleMultipleConsecutiveFailures() {
-            given(kafkaTemplate.send(anyString(), anyString(), any()))
-                    .willThrow(new RuntimeException("Kafka unavailable"));
-
-            assertThatCode(() -> {
-                userEventPublisher.publishUserCreated(testUser);
-                userEventPublisher.publishUserUpdated(testUser);
-                userEventPublisher.publishUserDeactivated(testUser);
-            }).doesNotThrowAnyException();
-
-            verify(kafkaTemplate, times(3)).send(anyString(), anyString(), any());
+            verify(outboxRepository, times(3)).save(any(OutboxEvent.class));
         }
     }
 }
@@ -0,0 +1,265 @@
+package com.quckapp.user.notification;
+
+import com.quckapp.user.domain.entity.User;
+import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.entity.UserPreferences;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
+import com.quckapp.user.domain.repository.UserRepository;
+import com.quckapp.user.domain.repository.UserRepository.RoutingView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NotificationRoutingTable
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NotificationRoutingTable Tests")
+class NotificationRoutingTableTest {
+
+    private static final Instant NOON_UTC = Instant.parse("2026-01-15T12:00:00Z");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NotificationRoutingTable routingTable;
+
+    @BeforeEach
+    void setUp() {
+        routingTable = new NotificationRoutingTable(userRepository, transactionManager, true);
+    }
+
+    private void rebuildWith(RoutingView... rows) {
+        when(userRepository.count()).thenReturn((long) rows.length);
+        when(userRepository.streamRoutes()).thenReturn(Stream.of(rows));
+        routingTable.rebuild();
+    }
+
+    @Nested
+    @DisplayName("Channel Tests")
+    class ChannelTests {
+
+        @Test
+        @DisplayName("should keep only recipients with the channel enabled, once each in request order")
+        void shouldFilterByChannel() {
+            Row smsOn = Row.channels(true, true, true);
+            Row smsOff = Row.channels(true, true, false);
+            rebuildWith(smsOn, smsOff);
+
+            assertThat(routingTable.eligible(List.of(smsOff.userId, smsOn.userId, smsOn.userId), NotificationChannel.SMS, NOON_UTC))
+                    .containsExactly(smsOn.userId);
+            assertThat(routingTable.eligible(List.of(smsOff.userId, smsOn.userId), NotificationChannel.PUSH, NOON_UTC))
+                    .containsExactly(smsOff.userId, smsOn.userId);
+        }
+
+        @Test
+        @DisplayName("should apply the defaults to users without a preferences row")
+        void shouldApplyDefaults() {
+            Row defaults = Row.channels(PreferenceFlag.DEFAULTS);
+            rebuildWith(defaults);
+
+            assertThat(routingTable.eligible(List.of(defaults.userId), NotificationChannel.PUSH, NOON_UTC)).containsExactly(defaults.userId);
+            assertThat(routingTable.eligible(List.of(defaults.userId), NotificationChannel.EMAIL, NOON_UTC)).containsExactly(defaults.userId);
+            assertThat(routingTable.eligible(List.of(defaults.userId), NotificationChannel.SMS, NOON_UTC)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should leave out ids that are not users, and inactive or suspended users")
+        void shouldLeaveOutUnknownAndInactiveUsers() {
+            Row active = Row.channels(PreferenceFlag.DEFAULTS);
+            Row inactive = Row.channels(PreferenceFlag.DEFAULTS).withStatus(UserStatus.INACTIVE);
+            Row suspended = Row.channels(PreferenceFlag.DEFAULTS).withStatus(UserStatus.SUSPENDED);
+            rebuildWith(active, inactive, suspended);
+            UUID unknown = UUID.randomUUID();
+
+            assertThat(routingTable.eligible(List.of(unknown, inactive.userId, suspended.userId, active.userId),
+                    NotificationChannel.PUSH, NOON_UTC)).containsExactly(active.userId);
+        }
+
+        @Test
+        @DisplayName("should read the database until the first rebuild completes")
+        void shouldFallBackToDatabase() {
+            Row pushOn = Row.channels(true, true, false);
+            Row pushOff = Row.channels(false, true, false);
+            UUID unknown = UUID.randomUUID();
+            when(userRepository.findRoutes(anyCollection())).thenReturn(List.of(pushOn, pushOff));
+
+            assertThat(routingTable.eligible(List.of(pushOff.userId, unknown, pushOn.userId), NotificationChannel.PUSH, NOON_UTC))
+                    .containsExactly(pushOn.userId);
+        }
+    }
+
+    @Nested
+    @DisplayName("Quiet Hours Tests")
+    class QuietHoursTests {
+
+        @Test
+        @DisplayName("should hold every channel inside a same-day quiet window")
+        void shouldHoldInsideSameDayWindow() {
+            Row row = Row.quiet(LocalTime.of(9, 0), LocalTime.of(17, 0), "UTC");
+            rebuildWith(row);
+
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, NOON_UTC)).isEmpty();
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.EMAIL, NOON_UTC)).isEmpty();
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, Instant.parse("2026-01-15T17:00:00Z")))
+                    .containsExactly(row.userId);
+        }
+
+        @Test
+        @DisplayName("should convert an overnight window from the user's zone to UTC")
+        void shouldHandleOvernightWindowInZone() {
+            // 22:00-07:00 in Kolkata (UTC+05:30) is 16:30-01:30 UTC
+            Row row = Row.quiet(LocalTime.of(22, 0), LocalTime.of(7, 0), "Asia/Kolkata");
+            rebuildWith(row);
+
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, Instant.parse("2026-01-15T20:00:00Z"))).isEmpty();
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, Instant.parse("2026-01-16T01:00:00Z"))).isEmpty();
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, Instant.parse("2026-01-16T01:30:00Z")))
+                    .containsExactly(row.userId);
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, NOON_UTC)).containsExactly(row.userId);
+        }
+
+        @Test
+        @DisplayName("should treat an unknown time zone as UTC")
+        void shouldTreatUnknownZoneAsUtc() {
+            Row row = Row.quiet(LocalTime.of(9, 0), LocalTime.of(17, 0), "Not/AZone");
+            rebuildWith(row);
+
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, NOON_UTC)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Update Tests")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("should apply saved preferences without reading the database")
+        void shouldApplySavedPreferences() {
+            rebuildWith();
+            UUID userId = UUID.randomUUID();
+            User user = User.builder().id(userId).timezone("UTC").build();
+            UserPreferences preferences = UserPreferences.builder().userId(userId)
+                    .flags(PreferenceFlag.maskOf(PreferenceFlag.SMS_ENABLED, PreferenceFlag.QUIET_HOURS_ENABLED))
+                    .quietHoursStart(LocalTime.of(11, 0)).quietHoursEnd(LocalTime.of(13, 0)).build();
+
+            routingTable.update(user, preferences);
+
+            assertThat(routingTable.eligible(List.of(userId), NotificationChannel.SMS, NOON_UTC)).isEmpty();
+            assertThat(routingTable.eligible(List.of(userId), NotificationChannel.SMS, Instant.parse("2026-01-15T14:00:00Z")))
+                    .containsExactly(userId);
+            verify(userRepository, never()).findRoutes(any());
+        }
+
+        @Test
+        @DisplayName("should route a new user with the default preferences")
+        void shouldRouteNewUser() {
+            rebuildWith();
+            User user = User.builder().id(UUID.randomUUID()).timezone("UTC").build();
+
+            routingTable.update(user, null);
+
+            assertThat(routingTable.eligible(List.of(user.getId()), NotificationChannel.EMAIL, NOON_UTC)).containsExactly(user.getId());
+            assertThat(routingTable.eligible(List.of(user.getId()), NotificationChannel.SMS, NOON_UTC)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should stop and resume routing when the status changes")
+        void shouldFollowStatusChanges() {
+            Row row = Row.channels(PreferenceFlag.DEFAULTS);
+            rebuildWith(row);
+
+            routingTable.updateStatus(row.userId, UserStatus.SUSPENDED);
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, NOON_UTC)).isEmpty();
+
+            routingTable.updateStatus(row.userId, UserStatus.ACTIVE);
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, NOON_UTC)).containsExactly(row.userId);
+        }
+
+        @Test
+        @DisplayName("should move the quiet window when the time zone changes")
+        void shouldMoveWindowOnTimezoneChange() {
+            Row row = Row.quiet(LocalTime.of(9, 0), LocalTime.of(17, 0), "UTC");
+            rebuildWith(row);
+
+            routingTable.updateTimezone(row.userId, "Asia/Tokyo");
+
+            // 09:00-17:00 in Tokyo is 00:00-08:00 UTC
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, NOON_UTC)).containsExactly(row.userId);
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.PUSH, Instant.parse("2026-01-15T03:00:00Z"))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should reload a user changed on another instance")
+        void shouldReloadFromDatabase() {
+            Row before = Row.channels(true, true, false);
+            rebuildWith(before);
+            when(userRepository.findRoutes(List.of(before.userId)))
+                    .thenReturn(List.of(new Row(before.userId, UserStatus.ACTIVE, PreferenceFlag.EMAIL_ENABLED.mask(), null, null, "UTC")));
+
+            routingTable.reload(before.userId);
+
+            assertThat(routingTable.eligible(List.of(before.userId), NotificationChannel.PUSH, NOON_UTC)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should stop routing to a user that no longer exists on reload")
+        void shouldDropMissingUserOnReload() {
+            Row row = Row.channels(PreferenceFlag.DEFAULTS);
+            rebuildWith(row);
+            when(userRepository.findRoutes(List.of(row.userId))).thenReturn(List.of());
+
+            routingTable.reload(row.userId);
+
+            assertThat(routingTable.eligible(List.of(row.userId), NotificationChannel.EMAIL, NOON_UTC)).isEmpty();
+        }
+    }
+
+    private record Row(UUID userId, UserStatus status, int flags, LocalTime quietHoursStart, LocalTime quietHoursEnd,
+                       String timezone) implements RoutingView {
+
+        static Row channels(int flags) {
+            return new Row(UUID.randomUUID(), UserStatus.ACTIVE, flags, null, null, "UTC");
+        }
+
+        static Row channels(boolean push, boolean email, boolean sms) {
+            int flags = PreferenceFlag.PUSH_ENABLED.apply(0, push);
+            flags = PreferenceFlag.EMAIL_ENABLED.apply(flags, email);
+            return channels(PreferenceFlag.SMS_ENABLED.apply(flags, sms));
+        }
+
+        static Row quiet(LocalTime start, LocalTime end, String timezone) {
+            return new Row(UUID.randomUUID(), UserStatus.ACTIVE,
+                    PreferenceFlag.QUIET_HOURS_ENABLED.apply(PreferenceFlag.DEFAULTS, true), start, end, timezone);
+        }
+
+        Row withStatus(UserStatus status) {
+            return new Row(userId, status, flags, quietHoursStart, quietHoursEnd, timezone);
+        }
+
+        public UUID getUserId() { return userId; }
+        public UserStatus getStatus() { return status; }
+        public int getFlags() { return flags; }
+        public LocalTime getQuietHoursStart() { return quietHoursStart; }
+        public LocalTime getQuietHoursEnd() { return quietHoursEnd; }
+        public String getTimezone() { return timezone; }
+    }
+}
@@ -0,0 +1,123 @@
+package com.quckapp.user.security.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for JwtService
+ */
+@DisplayName("JwtService Tests")
+class JwtServiceTest {
+
+    private static final String SECRET = "bG9jYWwtZGV2LXNlY3JldC1rZXktZm9yLXRlc3Rpbmctb25seS0zMi1jaGFycw==";
+    private static final String OTHER_SECRET = "b3RoZXItc2VjcmV0LWtleS1mb3ItdGVzdGluZy1vbmx5LTMyLWNoYXJzLWxvbmc=";
+    private static final String ISSUER = "quckapp-auth-local";
+
+    private JwtService jwtService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expectedIssuer", ISSUER);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaximumSize", 100L);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        userId = UUID.randomUUID();
+    }
+
+    private String token(String secret, String issuer, String type, long expiresInMillis) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+        return Jwts.builder()
+                .subject(userId.toString())
+                .issuer(issuer)
+                .claim("type", type)
+                .claim("email", "test@example.com")
+                .claim("sessionId", "session-1")
+                .expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+                .signWith(key)
+                .compact();
+    }
+
+    private long cacheSize() {
+        VerifiedTokenCache cache = (VerifiedTokenCache) ReflectionTestUtils.getField(jwtService, "verifiedTokenCache");
+        return cache.size();
+    }
+
+    @Nested
+    @DisplayName("authenticate Tests")
+    class AuthenticateTests {
+
+        @Test
+        @DisplayName("should resolve principal from a valid access token")
+        void shouldResolvePrincipal() {
+            Optional<JwtUserPrincipal> principal = jwtService.authenticate(token(SECRET, ISSUER, "access", 60_000));
+
+            assertThat(principal).isPresent();
+            assertThat(principal.get().getUserId()).isEqualTo(userId);
+            assertThat(principal.get().getEmail()).isEqualTo("test@example.com");
+            assertThat(principal.get().getSessionId()).isEqualTo("session-1");
+        }
+
+        @Test
+        @DisplayName("should reject refresh tokens")
+        void shouldRejectRefreshTokens() {
+            assertThat(jwtService.authenticate(token(SECRET, ISSUER, "refresh", 60_000))).isEmpty();
+        }
+
+        @Test
+        @DisplayName("should reject tokens from another issuer")
+        void shouldRejectForeignIssuer() {
+            assertThat(jwtService.authenticate(token(SECRET, "someone-else", "access", 60_000))).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Verified Token Cache Tests")
+    class VerifiedTokenCacheTests {
+
+        @Test
+        @DisplayName("should serve repeat authentication from the cache")
+        void shouldCacheVerifiedTokens() {
+            String token = token(SECRET, ISSUER, "access", 60_000);
+
+            JwtUserPrincipal first = jwtService.authenticate(token).orElseThrow();
+            JwtUserPrincipal second = jwtService.authenticate(token).orElseThrow();
+
+            assertThat(second).isSameAs(first);
+            assertThat(cacheSize()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should never cache forged tokens")
+        void shouldNotCacheForgedTokens() {
+            String forged = token(OTHER_SECRET, ISSUER, "access", 60_000);
+
+            assertThat(jwtService.authenticate(forged)).isEmpty();
+            assertThat(jwtService.authenticate(forged)).isEmpty();
+            assertThat(cacheSize()).isZero();
+        }
+
+        @Test
+        @DisplayName("should never cache expired tokens")
+        void shouldNotCacheExpiredTokens() {
+            String expired = token(SECRET, ISSUER, "access", -60_000);
+
+            assertThat(jwtService.authenticate(expired)).isEmpty();
+            assertThat(cacheSize()).isZero();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.quckapp.user.service;
+
+import com.quckapp.user.domain.entity.User;
+import com.quckapp.user.domain.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserBatchLoader
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserBatchLoader Tests")
+class UserBatchLoaderTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserBatchLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loader = new UserBatchLoader(userRepository, meterRegistry, true, Duration.ofMillis(50), 3, 2, 2, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.shutdown();
+    }
+
+    private User user(UUID id) {
+        return User.builder().id(id).email(id + "@example.com").username(id.toString()).build();
+    }
+
+    @Nested
+    @DisplayName("Batching Tests")
+    class BatchingTests {
+
+        @Test
+        @DisplayName("should resolve ids requested within one window with a single query")
+        void shouldCoalesceWindow() {
+            UUID first = UUID.randomUUID();
+            UUID missing = UUID.randomUUID();
+            when(userRepository.findByIdIn(anyList())).thenReturn(List.of(user(first)));
+
+            CompletableFuture<Optional<User>> a = loader.load(first);
+            CompletableFuture<Optional<User>> b = loader.load(missing);
+
+            assertThat(a.join()).map(User::getId).contains(first);
+            assertThat(b.join()).isEmpty();
+            verify(userRepository, times(1)).findByIdIn(argThat(ids -> ids.containsAll(List.of(first, missing))));
+            assertThat(meterRegistry.get("users.loader.batch.size").summary().totalAmount()).isEqualTo(2);
+            assertThat(meterRegistry.get("users.loader.window").timer().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should share one in-flight lookup for the same id")
+        void shouldDeduplicateInFlightIds() {
+            UUID id = UUID.randomUUID();
+            when(userRepository.findByIdIn(List.of(id))).thenReturn(List.of(user(id)));
+
+            CompletableFuture<Optional<User>> a = loader.load(id);
+            CompletableFuture<Optional<User>> b = loader.load(id);
+
+            assertThat(b).isSameAs(a);
+            assertThat(a.join()).isPresent();
+            assertThat(meterRegistry.get("users.loader.deduplicated").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should dispatch as soon as the batch is full")
+        void shouldDispatchFullBatch() {
+            when(userRepository.findByIdIn(anyList())).thenReturn(List.of());
+
+            List<CompletableFuture<Optional<User>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) futures.add(loader.load(UUID.randomUUID()));
+            futures.forEach(CompletableFuture::join);
+
+            verify(userRepository, times(2)).findByIdIn(anyList());
+            assertThat(meterRegistry.get("users.loader.batch.size").summary().max()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should propagate query failures to every waiter")
+        void shouldPropagateFailures() {
+            UUID id = UUID.randomUUID();
+            when(userRepository.findByIdIn(anyList())).thenThrow(new IllegalStateException("db down"));
+
+            assertThatThrownBy(() -> loader.get(id))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("db down");
+        }
+    }
+
+    @Nested
+    @DisplayName("Timeout Tests")
+    class TimeoutTests {
+
+        @Test
+        @DisplayName("should query directly when the batch does not finish in time")
+        void shouldFallBackToDirectLookup() {
+            UserBatchLoader impatient = new UserBatchLoader(userRepository, meterRegistry, true, Duration.ofMillis(1), 3, 1, 2, Duration.ofMillis(100));
+            UUID id = UUID.randomUUID();
+            CountDownLatch release = new CountDownLatch(1);
+            when(userRepository.findByIdIn(anyList())).thenAnswer(invocation -> {
+                release.await();
+                return List.of();
+            });
+            when(userRepository.findById(id)).thenReturn(Optional.of(user(id)));
+            try {
+                assertThat(impatient.get(id)).map(User::getId).contains(id);
+                assertThat(meterRegistry.get("users.loader.timeouts").counter().count()).isEqualTo(1);
+            } finally {
+                release.countDown();
+                impatient.shutdown();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("loadAll Tests")
+    class LoadAllTests {
+
+        @Test
+        @DisplayName("should fetch padded fixed-size chunks")
+        void shouldFetchPaddedChunks() {
+            UUID a = UUID.randomUUID(), b = UUID.randomUUID(), c = UUID.randomUUID();
+            when(userRepository.findByIdIn(List.of(a, b))).thenReturn(List.of(user(a), user(b)));
+            when(userRepository.findByIdIn(List.of(c, c))).thenReturn(List.of(user(c)));
+
+            Map<UUID, User> result = loader.loadAll(List.of(a, b, c));
+
+            assertThat(result).containsOnlyKeys(a, b, c);
+        }
+    }
+
+    @Test
+    @DisplayName("should query directly when batching is disabled")
+    void shouldBypassWhenDisabled() {
+        UserBatchLoader direct = new UserBatchLoader(userRepository, meterRegistry, false, Duration.ofMillis(50), 3, 1, 2, Duration.ofSeconds(5));
+        UUID id = UUID.randomUUID();
+        when(userRepository.findById(id)).thenReturn(Optional.of(user(id)));
+
+        assertThat(direct.get(id)).isPresent();
+        verify(userRepository, never()).findByIdIn(anyList());
+        direct.shutdown();
+    }
+}
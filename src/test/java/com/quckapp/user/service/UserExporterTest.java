@@ -0,0 +1,190 @@
+package com.quckapp.user.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quckapp.user.domain.entity.User.UserStatus;
+import com.quckapp.user.domain.repository.UserRepository;
+import com.quckapp.user.domain.repository.UserRepository.ExportView;
+import com.quckapp.user.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserExporter
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserExporter Tests")
+class UserExporterTest {
+
+    private static final Instant CREATED = Instant.parse("2026-01-15T12:00:00Z");
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new UserExporter(userRepository, transactionManager, 1);
+    }
+
+    @Nested
+    @DisplayName("NDJSON Tests")
+    class NdjsonTests {
+
+        @Test
+        @DisplayName("should write one JSON object per line, from the start when no resume id is given")
+        void shouldWriteOneObjectPerLine() throws Exception {
+            Row first = Row.of("alice", "Alice", UserStatus.ACTIVE);
+            Row second = Row.of("bob", null, UserStatus.SUSPENDED);
+            when(userRepository.streamForExport(null, new UUID(0, 0))).thenReturn(Stream.of(first, second));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            long rows = exporter.export(null, null, UserExporter.Format.NDJSON, out);
+
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+            assertThat(rows).isEqualTo(2);
+            assertThat(lines).hasSize(3);
+            assertThat(lines[2]).isEmpty();
+            JsonNode alice = new ObjectMapper().readTree(lines[0]);
+            assertThat(alice.get("id").asText()).isEqualTo(first.getId().toString());
+            assertThat(alice.get("status").asText()).isEqualTo("ACTIVE");
+            assertThat(alice.get("emailVerified").isBoolean()).isTrue();
+            assertThat(alice.get("createdAt").asText()).isEqualTo("2026-01-15T12:00:00Z");
+            assertThat(new ObjectMapper().readTree(lines[1]).get("displayName").isNull()).isTrue();
+        }
+
+        @Test
+        @DisplayName("should resume after the given id with the status filter")
+        void shouldResumeAfterId() throws Exception {
+            UUID after = UUID.randomUUID();
+            when(userRepository.streamForExport(UserStatus.ACTIVE, after)).thenReturn(Stream.empty());
+
+            long rows = exporter.export(UserStatus.ACTIVE, after, UserExporter.Format.NDJSON, new ByteArrayOutputStream());
+
+            assertThat(rows).isZero();
+        }
+
+        @Test
+        @DisplayName("should close the cursor and rethrow when the client goes away")
+        void shouldRethrowWriteFailure() {
+            Stream<ExportView> users = Stream.<ExportView>of(Row.of("alice", "Alice", UserStatus.ACTIVE));
+            Runnable onClose = mock(Runnable.class);
+            when(userRepository.streamForExport(any(), any())).thenReturn(users.onClose(onClose));
+            OutputStream broken = new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    throw new IOException("Broken pipe");
+                }
+            };
+
+            assertThatThrownBy(() -> exporter.export(null, null, UserExporter.Format.NDJSON, broken))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Broken pipe");
+            verify(onClose).run();
+        }
+    }
+
+    @Nested
+    @DisplayName("CSV Tests")
+    class CsvTests {
+
+        @Test
+        @DisplayName("should write a header and one quoted row per user")
+        void shouldWriteHeaderAndRows() throws Exception {
+            Row user = Row.of("alice", "Smith, \"Al\"", UserStatus.ACTIVE);
+            when(userRepository.streamForExport(any(), any())).thenReturn(Stream.of(user));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            exporter.export(null, null, UserExporter.Format.CSV, out);
+
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+            assertThat(lines[0]).startsWith("id,email,username,displayName,");
+            assertThat(lines[1]).startsWith(user.getId() + ",alice@example.com,alice,\"Smith, \"\"Al\"\"\",,");
+            assertThat(lines[1]).contains(",ACTIVE,true,false,,2026-01-15T12:00:00Z,");
+        }
+
+        @Test
+        @DisplayName("should quote only fields that need it")
+        void shouldQuoteFields() {
+            assertThat(UserExporter.csvField("plain", true)).isEqualTo("plain");
+            assertThat(UserExporter.csvField("a,b", true)).isEqualTo("\"a,b\"");
+            assertThat(UserExporter.csvField("line\nbreak", false)).isEqualTo("\"line\nbreak\"");
+        }
+
+        @Test
+        @DisplayName("should neutralize fields a spreadsheet would evaluate as formulas")
+        void shouldNeutralizeFormulas() {
+            assertThat(UserExporter.csvField("=HYPERLINK(\"http://x\")", true)).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+            assertThat(UserExporter.csvField("+1+1", true)).isEqualTo("'+1+1");
+            assertThat(UserExporter.csvField("-1+1", true)).isEqualTo("'-1+1");
+            assertThat(UserExporter.csvField("@SUM(A1)", true)).isEqualTo("'@SUM(A1)");
+            assertThat(UserExporter.csvField("\tcmd", true)).isEqualTo("'\tcmd");
+            assertThat(UserExporter.csvField("a=b", true)).isEqualTo("a=b");
+        }
+
+        @Test
+        @DisplayName("should neutralize free-text columns but keep E.164 phones as they are")
+        void shouldKeepPhonesIntact() throws Exception {
+            Row user = new Row(UUID.randomUUID(), "=cmd", "-Eve", UserStatus.ACTIVE, "+15551234567");
+            when(userRepository.streamForExport(any(), any())).thenReturn(Stream.of(user));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            exporter.export(null, null, UserExporter.Format.CSV, out);
+
+            String row = out.toString(StandardCharsets.UTF_8).split("\r\n")[1];
+            assertThat(row).startsWith(user.getId() + ",'=cmd@example.com,'=cmd,'-Eve,,+15551234567,UTC,");
+        }
+    }
+
+    @Test
+    @DisplayName("should parse formats by extension and reject others")
+    void shouldParseFormats() {
+        assertThat(UserExporter.Format.parse("CSV")).isEqualTo(UserExporter.Format.CSV);
+        assertThat(UserExporter.Format.parse("ndjson")).isEqualTo(UserExporter.Format.NDJSON);
+        assertThatThrownBy(() -> UserExporter.Format.parse("xml")).isInstanceOf(BadRequestException.class);
+    }
+
+    private record Row(UUID id, String username, String displayName, UserStatus status, String phone) implements ExportView {
+
+        static Row of(String username, String displayName, UserStatus status) {
+            return new Row(UUID.randomUUID(), username, displayName, status, null);
+        }
+
+        public UUID getId() { return id; }
+        public String getEmail() { return username + "@example.com"; }
+        public String getUsername() { return username; }
+        public String getDisplayName() { return displayName; }
+        public String getAvatarUrl() { return null; }
+        public String getPhone() { return phone; }
+        public String getTimezone() { return "UTC"; }
+        public String getLocale() { return "en"; }
+        public UserStatus getStatus() { return status; }
+        public boolean isEmailVerified() { return true; }
+        public boolean isPhoneVerified() { return false; }
+        public Instant getLastLoginAt() { return null; }
+        public Instant getCreatedAt() { return CREATED; }
+        public Instant getUpdatedAt() { return CREATED; }
+    }
+}
@@ -1,15 +1,25 @@
 package com.quckapp.user.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quckapp.user.cache.UserCache;
 import com.quckapp.user.domain.entity.User;
 import com.quckapp.user.domain.entity.User.UserStatus;
 import com.quckapp.user.domain.entity.UserPreferences;
+import com.quckapp.user.domain.entity.UserPreferences.PreferenceFlag;
 import com.quckapp.user.domain.entity.UserProfile;
 import com.quckapp.user.domain.repository.UserPreferencesRepository;
 import com.quckapp.user.domain.repository.UserProfileRepository;
 import com.quckapp.user.domain.repository.UserRepository;
 import com.quckapp.user.dto.UserDtos.*;
+import com.quckapp.user.exception.BadRequestException;
 import com.quckapp.user.exception.DuplicateResourceException;
 import com.quckapp.user.exception.ResourceNotFoundException;
+import com.quckapp.user.exception.UserNotFoundException;
+import com.quckapp.user.index.UserIdentityIndex;
+import com.quckapp.user.notification.NotificationChannel;
+import com.quckapp.user.notification.NotificationRoutingTable;
+import com.quckapp.user.warmup.HotUserTracker;
 import com.quckapp.user.kafka.UserEventPublisher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,12 +29,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.Instant;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -48,6 +65,21 @@ class UserServiceTest {
     @Mock
     private UserEventPublisher eventPublisher;
 
+    @Mock
+    private UserBatchLoader userBatchLoader;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private UserIdentityIndex identityIndex;
+
+    @Mock
+    private HotUserTracker hotUserTracker;
+
+    @Mock
+    private NotificationRoutingTable routingTable;
+
     private UserService userService;
 
     private UUID testUserId;
@@ -57,7 +89,7 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userRepository, profileRepository, preferencesRepository, eventPublisher);
+        userService = new UserService(userRepository, profileRepository, preferencesRepository, eventPublisher, userBatchLoader, userCache, identityIndex, hotUserTracker, routingTable);
 
         testUserId = UUID.randomUUID();
         testUser = User.builder()
@@ -88,12 +120,9 @@ class UserServiceTest {
         testPreferences = UserPreferences.builder()
                 .userId(testUserId)
                 .user(testUser)
-                .pushEnabled(true)
-                .emailEnabled(true)
-                .smsEnabled(false)
+                .flags(PreferenceFlag.DEFAULTS)
                 .theme("dark")
                 .language("en")
-                .showOnlineStatus(true)
                 .fontSize(14)
                 .build();
     }
@@ -115,9 +144,7 @@ class UserServiceTest {
                     .locale("en-US")
                     .build();
 
-            when(userRepository.existsByEmail("new@example.com")).thenReturn(false);
-            when(userRepository.existsByUsername("newuser")).thenReturn(false);
-            when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
                 User user = invocation.getArgument(0);
                 user.setId(UUID.randomUUID());
                 user.setCreatedAt(Instant.now());
@@ -134,9 +161,10 @@ class UserServiceTest {
             assertThat(result.getUsername()).isEqualTo("newuser");
             assertThat(result.getDisplayName()).isEqualTo("New User");
 
-            verify(userRepository).save(any(User.class));
+            verify(userRepository).saveAndFlush(any(User.class));
             verify(profileRepository).save(any(UserProfile.class));
             verify(preferencesRepository).save(any(UserPreferences.class));
+            verify(routingTable).update(any(User.class), isNull());
             verify(eventPublisher).publishUserCreated(any(User.class));
         }
 
@@ -148,9 +176,7 @@ class UserServiceTest {
                     .username("TESTUSER")
                     .build();
 
-            when(userRepository.existsByEmail(anyString())).thenReturn(false);
-            when(userRepository.existsByUsername(anyString())).thenReturn(false);
-            when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
                 User user = invocation.getArgument(0);
                 user.setId(UUID.randomUUID());
                 return user;
@@ -161,7 +187,7 @@ class UserServiceTest {
             userService.createUser(request);
 
             ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-            verify(userRepository).save(userCaptor.capture());
+            verify(userRepository).saveAndFlush(userCaptor.capture());
             assertThat(userCaptor.getValue().getEmail()).isEqualTo("test@example.com");
             assertThat(userCaptor.getValue().getUsername()).isEqualTo("testuser");
         }
@@ -174,9 +200,7 @@ class UserServiceTest {
                     .username("defaultuser")
                     .build();
 
-            when(userRepository.existsByEmail(anyString())).thenReturn(false);
-            when(userRepository.existsByUsername(anyString())).thenReturn(false);
-            when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            when(userRepository.saveAndFlush(any(User.class))).thenAnswer(invocation -> {
                 User user = invocation.getArgument(0);
                 user.setId(UUID.randomUUID());
                 return user;
@@ -187,7 +211,7 @@ class UserServiceTest {
             userService.createUser(request);
 
             ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-            verify(userRepository).save(userCaptor.capture());
+            verify(userRepository).saveAndFlush(userCaptor.capture());
             assertThat(userCaptor.getValue().getTimezone()).isEqualTo("UTC");
             assertThat(userCaptor.getValue().getLocale()).isEqualTo("en");
         }
@@ -200,13 +224,14 @@ class UserServiceTest {
                     .username("newuser")
                     .build();
 
+            when(identityIndex.mightContainEmail("existing@example.com")).thenReturn(true);
             when(userRepository.existsByEmail("existing@example.com")).thenReturn(true);
 
             assertThatThrownBy(() -> userService.createUser(request))
                     .isInstanceOf(DuplicateResourceException.class)
                     .hasMessageContaining("Email already exists");
 
-            verify(userRepository, never()).save(any());
+            verify(userRepository, never()).saveAndFlush(any());
             verify(eventPublisher, never()).publishUserCreated(any());
         }
 
@@ -218,14 +243,60 @@ class UserServiceTest {
                     .username("existinguser")
                     .build();
 
-            when(userRepository.existsByEmail("new@example.com")).thenReturn(false);
+            when(identityIndex.mightContainUsername("existinguser")).thenReturn(true);
             when(userRepository.existsByUsername("existinguser")).thenReturn(true);
 
             assertThatThrownBy(() -> userService.createUser(request))
                     .isInstanceOf(DuplicateResourceException.class)
                     .hasMessageContaining("Username already exists");
 
-            verify(userRepository, never()).save(any());
+            verify(userRepository, never()).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("should insert without existence queries when the identity index misses")
+        void shouldSkipExistenceQueriesOnIndexMiss() {
+            when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
+            when(profileRepository.save(any(UserProfile.class))).thenReturn(testProfile);
+            when(preferencesRepository.save(any(UserPreferences.class))).thenReturn(testPreferences);
+
+            userService.createUser(CreateUserRequest.builder().email("New@Example.com").username("NewUser").build());
+
+            verify(userRepository, never()).existsByEmail(any());
+            verify(userRepository, never()).existsByUsername(any());
+            verify(identityIndex).add("new@example.com", "newuser");
+            verify(userCache).forgetMissing(List.of("email:new@example.com", "username:newuser"));
+        }
+
+        @Test
+        @DisplayName("should accept a value the identity index flags when the database says it is free")
+        void shouldConfirmIndexHitsAgainstDatabase() {
+            when(identityIndex.mightContainEmail("new@example.com")).thenReturn(true);
+            when(userRepository.existsByEmail("new@example.com")).thenReturn(false);
+            when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
+            when(profileRepository.save(any(UserProfile.class))).thenReturn(testProfile);
+            when(preferencesRepository.save(any(UserPreferences.class))).thenReturn(testPreferences);
+
+            userService.createUser(CreateUserRequest.builder().email("new@example.com").username("newuser").build());
+
+            verify(userRepository).saveAndFlush(any(User.class));
+        }
+
+        @Test
+        @DisplayName("should map a duplicate username key violation to DuplicateResourceException")
+        void shouldMapDuplicateKeyViolation() {
+            SQLIntegrityConstraintViolationException cause = new SQLIntegrityConstraintViolationException(
+                    "Duplicate entry 'email-lover' for key 'users.username'", "23000", 1062);
+            when(userRepository.saveAndFlush(any(User.class)))
+                    .thenThrow(new DataIntegrityViolationException("could not execute statement", cause));
+
+            assertThatThrownBy(() -> userService.createUser(
+                    CreateUserRequest.builder().email("new@example.com").username("email-lover").build()))
+                    .isInstanceOf(DuplicateResourceException.class)
+                    .hasMessageContaining("Username already exists");
+
+            verify(identityIndex, never()).add(any(), any());
+            verify(eventPublisher, never()).publishUserCreated(any());
         }
     }
 
@@ -233,10 +304,17 @@ class UserServiceTest {
     @DisplayName("Get User Tests")
     class GetUserTests {
 
+        @BeforeEach
+        @SuppressWarnings("unchecked")
+        void readThroughCache() {
+            lenient().when(userCache.getOrLoad(any(), any()))
+                    .thenAnswer(invocation -> invocation.getArgument(1, Supplier.class).get());
+        }
+
         @Test
         @DisplayName("should get user by ID")
         void shouldGetUserById() {
-            when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
+            when(userBatchLoader.get(testUserId)).thenReturn(Optional.of(testUser));
 
             UserResponse result = userService.getUserById(testUserId);
 
@@ -246,16 +324,48 @@ class UserServiceTest {
             assertThat(result.getUsername()).isEqualTo("testuser");
         }
 
+        @Test
+        @DisplayName("should serve a cached user without loading it")
+        void shouldServeCachedUser() {
+            UserResponse cached = UserResponse.builder().id(testUserId).build();
+            when(userCache.getOrLoad(eq(testUserId), any())).thenReturn(cached);
+
+            assertThat(userService.getUserById(testUserId)).isSameAs(cached);
+
+            verifyNoInteractions(userBatchLoader);
+        }
+
+        @Test
+        @DisplayName("should load by ID through the cache's single-flight read-through")
+        void shouldLoadThroughCache() {
+            when(userBatchLoader.get(testUserId)).thenReturn(Optional.of(testUser));
+
+            userService.getUserById(testUserId);
+
+            verify(userCache).getOrLoad(eq(testUserId), any());
+            verify(userCache, never()).put(any());
+        }
+
         @Test
         @DisplayName("should throw exception when user not found by ID")
         void shouldThrowWhenUserNotFoundById() {
-            when(userRepository.findById(testUserId)).thenReturn(Optional.empty());
+            when(userBatchLoader.get(testUserId)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> userService.getUserById(testUserId))
                     .isInstanceOf(ResourceNotFoundException.class)
                     .hasMessageContaining("User not found");
         }
 
+        @Test
+        @DisplayName("should refresh a user without caching a miss")
+        void shouldLoadUserForRefresh() {
+            when(userBatchLoader.get(testUserId)).thenReturn(Optional.of(testUser)).thenReturn(Optional.empty());
+
+            assertThat(userService.loadUser(testUserId).getId()).isEqualTo(testUserId);
+            assertThat(userService.loadUser(testUserId)).isNull();
+            verifyNoInteractions(userCache);
+        }
+
         @Test
         @DisplayName("should get user by email")
         void shouldGetUserByEmail() {
@@ -315,6 +425,71 @@ class UserServiceTest {
             assertThatThrownBy(() -> userService.getUserByUsername("unknown"))
                     .isInstanceOf(ResourceNotFoundException.class);
         }
+
+        @Test
+        @DisplayName("should resolve a username through the alias and users caches without querying")
+        void shouldResolveUsernameFromCache() {
+            UserResponse cached = UserResponse.builder().id(testUserId).username("testuser").build();
+            when(userCache.resolveAlias(UserCache.USERS_BY_USERNAME, "testuser")).thenReturn(testUserId);
+            when(userCache.get(testUserId)).thenReturn(cached);
+
+            assertThat(userService.getUserByUsername("TestUser")).isSameAs(cached);
+
+            verifyNoInteractions(userRepository);
+        }
+
+        @Test
+        @DisplayName("should load and cache the user under its aliases on an alias miss")
+        void shouldCacheUserOnAliasMiss() {
+            when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
+
+            userService.getUserByEmail("test@example.com");
+
+            ArgumentCaptor<UserResponse> cached = ArgumentCaptor.forClass(UserResponse.class);
+            verify(userCache).put(cached.capture());
+            assertThat(cached.getValue().getId()).isEqualTo(testUserId);
+        }
+
+        @Test
+        @DisplayName("should remember a missing user in the negative cache")
+        void shouldRememberMissingUser() {
+            when(userBatchLoader.get(testUserId)).thenReturn(Optional.empty());
+
+            assertThatThrownBy(() -> userService.getUserById(testUserId))
+                    .isSameAs(UserNotFoundException.INSTANCE);
+
+            verify(userCache).markMissing("id:" + testUserId);
+        }
+
+        @Test
+        @DisplayName("should answer a known-missing id before the read-through")
+        void shouldAnswerKnownMissingIdBeforeReadThrough() {
+            when(userCache.isKnownMissing("id:" + testUserId)).thenReturn(true);
+
+            assertThatThrownBy(() -> userService.getUserById(testUserId))
+                    .isSameAs(UserNotFoundException.INSTANCE);
+
+            verify(userCache, never()).getOrLoad(any(), any());
+            verifyNoInteractions(userBatchLoader);
+        }
+
+        @Test
+        @DisplayName("should answer known-missing lookups without querying")
+        void shouldAnswerKnownMissingFromCache() {
+            when(userCache.isKnownMissing("email:gone@example.com")).thenReturn(true);
+
+            assertThatThrownBy(() -> userService.getUserByEmail("Gone@Example.com"))
+                    .isSameAs(UserNotFoundException.INSTANCE);
+
+            verifyNoInteractions(userRepository);
+        }
+
+        @Test
+        @DisplayName("should signal not found without a stack trace")
+        void shouldSignalNotFoundWithoutStackTrace() {
+            assertThat(UserNotFoundException.INSTANCE.getStackTrace()).isEmpty();
+            assertThat(UserNotFoundException.INSTANCE.getMessage()).isEqualTo("User not found");
+        }
     }
 
     @Nested
@@ -333,7 +508,7 @@ class UserServiceTest {
                     .build();
 
             when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
-            when(userRepository.save(any(User.class))).thenReturn(testUser);
+            when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
             UserResponse result = userService.updateUser(testUserId, request);
 
@@ -344,8 +519,24 @@ class UserServiceTest {
             assertThat(testUser.getTimezone()).isEqualTo("Europe/London");
             assertThat(testUser.getLocale()).isEqualTo("en-GB");
 
-            verify(userRepository).save(testUser);
+            verify(userRepository).saveAndFlush(testUser);
             verify(eventPublisher).publishUserUpdated(testUser);
+            verify(routingTable).updateTimezone(testUserId, "Europe/London");
+        }
+
+        @Test
+        @DisplayName("should write the updated user through to the cache with its version")
+        void shouldWriteThroughWithVersion() {
+            testUser.setVersion(3);
+            when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
+
+            userService.updateUser(testUserId, UpdateUserRequest.builder().displayName("Updated Name").build());
+
+            ArgumentCaptor<UserResponse> written = ArgumentCaptor.forClass(UserResponse.class);
+            verify(userCache).writeThrough(written.capture());
+            assertThat(written.getValue().getDisplayName()).isEqualTo("Updated Name");
+            assertThat(written.getValue().getVersion()).isEqualTo(3);
+            verify(userCache, never()).evictUser(any(), any(), any());
         }
 
         @Test
@@ -359,13 +550,14 @@ class UserServiceTest {
             String originalLocale = testUser.getLocale();
 
             when(userRepository.findById(testUserId)).thenReturn(Optional.of(testUser));
-            when(userRepository.save(any(User.class))).thenReturn(testUser);
+            when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
 
             userService.updateUser(testUserId, request);
 
             assertThat(testUser.getDisplayName()).isEqualTo("Only Name Updated");
             assertThat(testUser.getTimezone()).isEqualTo(originalTimezone);
             assertThat(testUser.getLocale()).isEqualTo(originalLocale);
+            verifyNoInteractions(routingTable);
         }
 
         @Test
@@ -380,7 +572,7 @@ class UserServiceTest {
             assertThatThrownBy(() -> userService.updateUser(testUserId, request))
                     .isInstanceOf(ResourceNotFoundException.class);
 
-            verify(userRepository, never()).save(any());
+            verify(userRepository, never()).saveAndFlush(any());
             verify(eventPublisher, never()).publishUserUpdated(any());
         }
     }
@@ -397,7 +589,11 @@ class UserServiceTest {
             userService.deactivateUser(testUserId);
 
             assertThat(testUser.getStatus()).isEqualTo(UserStatus.INACTIVE);
-            verify(userRepository).save(testUser);
+            verify(userRepository).saveAndFlush(testUser);
+            ArgumentCaptor<UserResponse> written = ArgumentCaptor.forClass(UserResponse.class);
+            verify(userCache).writeThrough(written.capture());
+            assertThat(written.getValue().getStatus()).isEqualTo(UserStatus.INACTIVE);
+            verify(routingTable).updateStatus(testUserId, UserStatus.INACTIVE);
             verify(eventPublisher).publishUserDeactivated(testUser);
         }
 
@@ -425,7 +621,8 @@ class UserServiceTest {
             userService.suspendUser(testUserId);
 
             assertThat(testUser.getStatus()).isEqualTo(UserStatus.SUSPENDED);
-            verify(userRepository).save(testUser);
+            verify(userRepository).saveAndFlush(testUser);
+            verify(routingTable).updateStatus(testUserId, UserStatus.SUSPENDED);
             verify(eventPublisher).publishUserSuspended(testUser);
         }
 
@@ -503,6 +700,124 @@ class UserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Cursor Search Tests")
+    class CursorSearchTests {
+
+        @Test
+        @DisplayName("should start at the beginning and return a next cursor")
+        void shouldReturnNextCursor() {
+            SearchUsersRequest request = SearchUsersRequest.builder()
+                    .query("test")
+                    .size(1)
+                    .cursor("")
+                    .build();
+
+            when(userRepository.searchAllUsersAfter(eq("test"), isNull(), eq(new UUID(0, 0)), any(Pageable.class)))
+                    .thenReturn(new SliceImpl<>(List.of(testUser), PageRequest.of(0, 1), true));
+
+            PageResponse<UserSummaryResponse> result = userService.searchUsers(request);
+
+            assertThat(result.getContent()).hasSize(1);
+            assertThat(result.isFirst()).isTrue();
+            assertThat(result.isLast()).isFalse();
+            assertThat(result.getTotalElements()).isEqualTo(-1);
+            assertThat(result.getNextCursor()).isNotBlank();
+            verify(userRepository, never()).searchAllUsers(anyString(), any(Pageable.class));
+        }
+
+        @Test
+        @DisplayName("should seek past the position encoded in the cursor")
+        void shouldSeekPastCursor() {
+            String cursor = new SearchCursor("Test User", testUserId).encode();
+            SearchUsersRequest request = SearchUsersRequest.builder()
+                    .query("test")
+                    .status(UserStatus.ACTIVE)
+                    .size(20)
+                    .cursor(cursor)
+                    .build();
+
+            when(userRepository.searchUsersAfter(eq("test"), eq(UserStatus.ACTIVE), eq("Test User"), eq(testUserId), any(Pageable.class)))
+                    .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 20), false));
+
+            PageResponse<UserSummaryResponse> result = userService.searchUsers(request);
+
+            assertThat(result.isFirst()).isFalse();
+            assertThat(result.isLast()).isTrue();
+            assertThat(result.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("should reject a malformed cursor")
+        void shouldRejectMalformedCursor() {
+            SearchUsersRequest request = SearchUsersRequest.builder()
+                    .query("test")
+                    .size(20)
+                    .cursor("not-a-cursor")
+                    .build();
+
+            assertThatThrownBy(() -> userService.searchUsers(request))
+                    .isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Full-Text Search Tests")
+    class FullTextSearchTests {
+
+        @BeforeEach
+        void enableFullText() {
+            ReflectionTestUtils.setField(userService, "fullTextSearchEnabled", true);
+        }
+
+        @Test
+        @DisplayName("should query the n-gram index with a quoted phrase")
+        void shouldQueryIndexWithPhrase() {
+            SearchUsersRequest request = SearchUsersRequest.builder()
+                    .query("jo\"hn ")
+                    .status(UserStatus.ACTIVE)
+                    .page(0)
+                    .size(20)
+                    .build();
+
+            when(userRepository.fullTextSearchUsers(eq("\"jo hn\""), eq("ACTIVE"), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(testUser)));
+
+            PageResponse<UserSummaryResponse> result = userService.searchUsers(request);
+
+            assertThat(result.getContent()).hasSize(1);
+            verify(userRepository, never()).searchUsers(anyString(), any(), any(Pageable.class));
+        }
+
+        @Test
+        @DisplayName("should search all statuses without a status filter")
+        void shouldSearchAllStatuses() {
+            SearchUsersRequest request = SearchUsersRequest.builder()
+                    .query("test")
+                    .page(0)
+                    .size(20)
+                    .build();
+
+            when(userRepository.fullTextSearchAllUsers(eq("\"test\""), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(testUser)));
+
+            assertThat(userService.searchUsers(request).getContent()).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("should fall back to LIKE when the phrase is shorter than an n-gram")
+        void shouldFallBackForShortPhrases() {
+            when(userRepository.searchAllUsers(anyString(), any(Pageable.class)))
+                    .thenReturn(new PageImpl<>(List.of(testUser)));
+
+            for (String query : List.of("\"\"", "a\"", "jo n")) {
+                userService.searchUsers(SearchUsersRequest.builder().query(query).page(0).size(20).build());
+                verify(userRepository).searchAllUsers(eq(query), any(Pageable.class));
+            }
+            verify(userRepository, never()).fullTextSearchAllUsers(anyString(), any(Pageable.class));
+        }
+    }
+
     @Nested
     @DisplayName("Get Users By IDs Tests")
     class GetUsersByIdsTests {
@@ -520,7 +835,8 @@ class UserServiceTest {
                     .build();
 
             List<UUID> ids = Arrays.asList(testUserId, userId2);
-            when(userRepository.findByIdIn(ids)).thenReturn(Arrays.asList(testUser, user2));
+            when(userCache.getAll(ids)).thenReturn(Map.of());
+            when(userBatchLoader.loadAll(ids)).thenReturn(Map.of(testUserId, testUser, userId2, user2));
 
             List<UserSummaryResponse> result = userService.getUsersByIds(ids);
 
@@ -531,12 +847,73 @@ class UserServiceTest {
         @DisplayName("should return empty list when no users found")
         void shouldReturnEmptyListWhenNoUsersFound() {
             List<UUID> ids = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
-            when(userRepository.findByIdIn(ids)).thenReturn(List.of());
+            when(userCache.getAll(ids)).thenReturn(Map.of());
+            when(userBatchLoader.loadAll(ids)).thenReturn(Map.of());
 
             List<UserSummaryResponse> result = userService.getUsersByIds(ids);
 
             assertThat(result).isEmpty();
         }
+
+        @Test
+        @DisplayName("should load only cache misses and return each id once in request order")
+        void shouldMergeCacheHitsInRequestOrder() {
+            UUID cachedId = UUID.randomUUID();
+            UserResponse cached = UserResponse.builder().id(cachedId).username("cached").status(UserStatus.ACTIVE).build();
+            when(userCache.getAll(List.of(cachedId, testUserId))).thenReturn(Map.of(cachedId, cached));
+            when(userBatchLoader.loadAll(List.of(testUserId))).thenReturn(Map.of(testUserId, testUser));
+
+            List<UserSummaryResponse> result = userService.getUsersByIds(List.of(cachedId, testUserId, cachedId));
+
+            assertThat(result).extracting(UserSummaryResponse::getId).containsExactly(cachedId, testUserId);
+            assertThat(result.get(0).getDisplayName()).isEqualTo("cached");
+            verify(userCache).putAll(argThat(backfill -> backfill.keySet().equals(Set.of(testUserId))));
+        }
+
+        @Test
+        @DisplayName("should reject batches over the size limit")
+        void shouldRejectOversizedBatch() {
+            ReflectionTestUtils.setField(userService, "batchMaxIds", 2);
+
+            assertThatThrownBy(() -> userService.getUsersByIds(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID())))
+                    .isInstanceOf(BadRequestException.class);
+
+            verifyNoInteractions(userCache, userBatchLoader);
+        }
+    }
+
+    @Nested
+    @DisplayName("Notification Eligibility Tests")
+    class NotificationEligibilityTests {
+
+        @Test
+        @DisplayName("should answer from the routing table without reading users")
+        void shouldAnswerFromRoutingTable() {
+            UUID other = UUID.randomUUID();
+            List<UUID> ids = List.of(testUserId, other);
+            when(routingTable.eligible(eq(ids), eq(NotificationChannel.PUSH), any())).thenReturn(List.of(other));
+
+            NotificationEligibilityResponse result = userService.getNotificationEligibility(
+                    NotificationEligibilityRequest.builder().recipientIds(ids).channel(NotificationChannel.PUSH).build());
+
+            assertThat(result.getChannel()).isEqualTo(NotificationChannel.PUSH);
+            assertThat(result.getEligibleIds()).containsExactly(other);
+            verifyNoInteractions(userRepository, userBatchLoader, userCache);
+        }
+
+        @Test
+        @DisplayName("should reject batches over the size limit")
+        void shouldRejectOversizedBatch() {
+            ReflectionTestUtils.setField(userService, "batchMaxIds", 2);
+            NotificationEligibilityRequest request = NotificationEligibilityRequest.builder()
+                    .recipientIds(List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()))
+                    .channel(NotificationChannel.EMAIL).build();
+
+            assertThatThrownBy(() -> userService.getNotificationEligibility(request))
+                    .isInstanceOf(BadRequestException.class);
+
+            verifyNoInteractions(routingTable);
+        }
     }
 
     @Nested
@@ -608,6 +985,7 @@ class UserServiceTest {
 
             verify(profileRepository).save(testProfile);
             verify(eventPublisher).publishProfileUpdated(eq(testUserId), eq(testProfile));
+            verify(userCache).evictAfterCommit(UserCache.PROFILES, testUserId);
         }
 
         @Test
@@ -629,6 +1007,92 @@ class UserServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Availability Tests")
+    class AvailabilityTests {
+
+        @Test
+        @DisplayName("should check normalized values against the identity index")
+        void shouldCheckAgainstIdentityIndex() {
+            when(identityIndex.isUsernameTaken("john_doe")).thenReturn(false);
+            when(identityIndex.isEmailTaken("john@example.com")).thenReturn(true);
+
+            AvailabilityResponse result = userService.checkAvailability("John_Doe", "John@Example.com");
+
+            assertThat(result.getUsername()).isEqualTo("john_doe");
+            assertThat(result.getUsernameAvailable()).isTrue();
+            assertThat(result.getEmailAvailable()).isFalse();
+            verifyNoInteractions(userRepository);
+        }
+
+        @Test
+        @DisplayName("should leave unchecked fields null")
+        void shouldLeaveUncheckedFieldsNull() {
+            when(identityIndex.isUsernameTaken("john_doe")).thenReturn(false);
+
+            AvailabilityResponse result = userService.checkAvailability("john_doe", null);
+
+            assertThat(result.getEmail()).isNull();
+            assertThat(result.getEmailAvailable()).isNull();
+        }
+
+        @Test
+        @DisplayName("should require a username or email")
+        void shouldRequireUsernameOrEmail() {
+            assertThatThrownBy(() -> userService.checkAvailability(null, null))
+                    .isInstanceOf(BadRequestException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Sparse Defaults Tests")
+    class SparseDefaultsTests {
+
+        @BeforeEach
+        void enableSparseDefaults() {
+            ReflectionTestUtils.setField(userService, "sparseDefaults", true);
+        }
+
+        @Test
+        @DisplayName("should write only the user row on signup")
+        void shouldWriteOnlyUserRowOnSignup() {
+            when(userRepository.saveAndFlush(any(User.class))).thenReturn(testUser);
+
+            userService.createUser(CreateUserRequest.builder().email("new@example.com").username("newuser").build());
+
+            verify(profileRepository, never()).save(any());
+            verify(preferencesRepository, never()).save(any());
+            verify(eventPublisher).publishUserCreated(testUser);
+        }
+
+        @Test
+        @DisplayName("should synthesize a default profile without persisting it")
+        void shouldSynthesizeDefaultProfile() {
+            testUser.setProfile(null);
+            when(userRepository.findByIdWithProfile(testUserId)).thenReturn(Optional.of(testUser));
+
+            ProfileResponse result = userService.getProfile(testUserId);
+
+            assertThat(result.getUserId()).isEqualTo(testUserId);
+            assertThat(result.getTitle()).isNull();
+            verifyNoInteractions(profileRepository);
+        }
+
+        @Test
+        @DisplayName("should synthesize default preferences without persisting them")
+        void shouldSynthesizeDefaultPreferences() {
+            testUser.setPreferences(null);
+            when(userRepository.findByIdWithPreferences(testUserId)).thenReturn(Optional.of(testUser));
+
+            PreferencesResponse result = userService.getPreferences(testUserId);
+
+            assertThat(result.getUserId()).isEqualTo(testUserId);
+            assertThat(result.getTheme()).isEqualTo("system");
+            assertThat(result.isPushEnabled()).isTrue();
+            verifyNoInteractions(preferencesRepository);
+        }
+    }
+
     @Nested
     @DisplayName("Preferences Tests")
     class PreferencesTests {
@@ -691,8 +1155,37 @@ class UserServiceTest {
             PreferencesResponse result = userService.updatePreferences(testUserId, request);
 
             assertThat(result).isNotNull();
+            assertThat(testPreferences.is(PreferenceFlag.PUSH_ENABLED)).isFalse();
+            assertThat(testPreferences.is(PreferenceFlag.EMAIL_ENABLED)).isFalse();
+            assertThat(testPreferences.is(PreferenceFlag.SMS_ENABLED)).isTrue();
+            assertThat(testPreferences.is(PreferenceFlag.SHOW_ONLINE_STATUS)).isFalse();
+            assertThat(testPreferences.is(PreferenceFlag.MARKDOWN_ENABLED)).isTrue();
+            assertThat(result.isSmsEnabled()).isTrue();
             verify(preferencesRepository).save(testPreferences);
             verify(eventPublisher).publishPreferencesUpdated(eq(testUserId), eq(testPreferences));
+            verify(userCache).evictAfterCommit(UserCache.PREFERENCES, testUserId);
+            verify(routingTable).update(testUser, testPreferences);
+        }
+
+        @Test
+        @DisplayName("should save quiet hours")
+        void shouldSaveQuietHours() {
+            testUser.setPreferences(testPreferences);
+            UpdatePreferencesRequest request = UpdatePreferencesRequest.builder()
+                    .quietHoursEnabled(true)
+                    .quietHoursStart(LocalTime.of(22, 0))
+                    .quietHoursEnd(LocalTime.of(7, 30))
+                    .build();
+
+            when(userRepository.findByIdWithPreferences(testUserId)).thenReturn(Optional.of(testUser));
+            when(preferencesRepository.save(any(UserPreferences.class))).thenReturn(testPreferences);
+
+            userService.updatePreferences(testUserId, request);
+
+            assertThat(testPreferences.is(PreferenceFlag.QUIET_HOURS_ENABLED)).isTrue();
+            assertThat(testPreferences.getQuietHoursStart()).isEqualTo(LocalTime.of(22, 0));
+            assertThat(testPreferences.getQuietHoursEnd()).isEqualTo(LocalTime.of(7, 30));
+            verify(routingTable).update(testUser, testPreferences);
         }
 
         @Test
@@ -732,4 +1225,174 @@ class UserServiceTest {
             assertThat(prefsCaptor.getValue().getTheme()).isEqualTo("light");
         }
     }
+
+    @Nested
+    @DisplayName("Preference Flag Query Tests")
+    class PreferenceFlagQueryTests {
+
+        @Test
+        @DisplayName("should query active users by the masks of the named flags and return a cursor for the next page")
+        void shouldQueryByMasks() {
+            UUID last = UUID.randomUUID();
+            when(userRepository.findIdsByPreferenceFlags(UserStatus.ACTIVE,
+                    PreferenceFlag.maskOf(PreferenceFlag.PUSH_ENABLED, PreferenceFlag.SHOW_ONLINE_STATUS),
+                    PreferenceFlag.SMS_ENABLED.mask(), new UUID(0, 0), PageRequest.of(0, 2)))
+                    .thenReturn(new SliceImpl<>(List.of(testUserId, last), PageRequest.of(0, 2), true));
+
+            PageResponse<UUID> result = userService.findUserIdsByPreferences(
+                    List.of("pushEnabled", "showOnlineStatus"), List.of("smsEnabled"), null, 2);
+
+            assertThat(result.getContent()).containsExactly(testUserId, last);
+            assertThat(result.getNextCursor()).isEqualTo(last.toString());
+            assertThat(result.isFirst()).isTrue();
+            assertThat(result.isLast()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should reject unknown flags and invalid cursors")
+        void shouldRejectInvalidInput() {
+            assertThatThrownBy(() -> userService.findUserIdsByPreferences(List.of("theme"), null, null, 10))
+                    .isInstanceOf(BadRequestException.class);
+            assertThatThrownBy(() -> userService.findUserIdsByPreferences(null, null, "not-a-uuid", 10))
+                    .isInstanceOf(BadRequestException.class);
+            verifyNoInteractions(userRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Directory Changes Tests")
+    class DirectoryChangesTests {
+
+        private User suspendedUser() {
+            return User.builder().id(UUID.randomUUID()).email("gone@example.com").username("gone")
+                    .status(UserStatus.SUSPENDED).updatedAt(Instant.parse("2026-01-15T12:00:01Z")).build();
+        }
+
+        @Test
+        @DisplayName("should split changes into upserts and tombstones and advance the watermark to the settle point")
+        void shouldReturnUpsertsAndTombstones() {
+            User suspended = suspendedUser();
+            when(userRepository.findChangedAfter(eq(Instant.EPOCH), eq(new UUID(0, 0)), any(Instant.class), eq(PageRequest.of(0, 10))))
+                    .thenReturn(new SliceImpl<>(List.of(testUser, suspended), PageRequest.of(0, 10), false));
+
+            DirectoryChangesResponse result = userService.getDirectoryChanges(null, 10);
+
+            assertThat(result.getUpserts()).extracting(UserSummaryResponse::getId).containsExactly(testUserId);
+            assertThat(result.getRemovedIds()).containsExactly(suspended.getId());
+            assertThat(result.isHasMore()).isFalse();
+            ChangeWatermark watermark = ChangeWatermark.decode(result.getWatermark());
+            assertThat(watermark.updatedAt()).isBefore(Instant.now().minusSeconds(4));
+            assertThat(watermark.id()).isEqualTo(new UUID(-1L, -1L));
+        }
+
+        @Test
+        @DisplayName("should resume from the last row when the page is full")
+        void shouldResumeFromLastRow() {
+            User suspended = suspendedUser();
+            ChangeWatermark since = new ChangeWatermark(Instant.parse("2026-01-15T12:00:00Z"), testUserId);
+            when(userRepository.findChangedAfter(eq(since.updatedAt()), eq(testUserId), any(Instant.class), any()))
+                    .thenReturn(new SliceImpl<>(List.of(suspended), PageRequest.of(0, 1), true));
+
+            DirectoryChangesResponse result = userService.getDirectoryChanges(since.encode(), 1);
+
+            assertThat(result.isHasMore()).isTrue();
+            assertThat(ChangeWatermark.decode(result.getWatermark()))
+                    .isEqualTo(new ChangeWatermark(suspended.getUpdatedAt(), suspended.getId()));
+        }
+
+        @Test
+        @DisplayName("should not move a watermark ahead of the settle point backwards")
+        void shouldKeepLaterWatermark() {
+            ChangeWatermark since = new ChangeWatermark(Instant.now().plusSeconds(60), testUserId);
+            when(userRepository.findChangedAfter(any(), any(), any(), any()))
+                    .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 10), false));
+
+            DirectoryChangesResponse result = userService.getDirectoryChanges(since.encode(), 10);
+
+            assertThat(ChangeWatermark.decode(result.getWatermark())).isEqualTo(since);
+        }
+
+        @Test
+        @DisplayName("should reject an invalid watermark or limit")
+        void shouldRejectInvalidInput() {
+            assertThatThrownBy(() -> userService.getDirectoryChanges("not-a-watermark", 10))
+                    .isInstanceOf(BadRequestException.class);
+            assertThatThrownBy(() -> userService.getDirectoryChanges(null, 1001))
+                    .isInstanceOf(BadRequestException.class);
+            verifyNoInteractions(userRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("Custom Settings Tests")
+    class CustomSettingsTests {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        @Test
+        @DisplayName("should apply the merge patch in the database and evict cached preferences")
+        void shouldMergeInDatabase() throws Exception {
+            JsonNode patch = objectMapper.readTree("{\"sidebarWidth\":280,\"pinned\":null}");
+            when(preferencesRepository.findTheme(testUserId)).thenReturn(Optional.of("dark"));
+
+            userService.mergeCustomSettings(testUserId, patch);
+
+            verify(preferencesRepository).mergeCustomSettings(testUserId, "{\"sidebarWidth\":280,\"pinned\":null}");
+            verify(userCache).evictAfterCommit(UserCache.PREFERENCES, testUserId);
+            verify(eventPublisher).publishPreferencesUpdated(testUserId, "dark");
+            verify(preferencesRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should reject a patch that is not a JSON object")
+        void shouldRejectNonObjectPatch() throws Exception {
+            assertThatThrownBy(() -> userService.mergeCustomSettings(testUserId, objectMapper.readTree("[1, 2]")))
+                    .isInstanceOf(BadRequestException.class);
+
+            verifyNoInteractions(preferencesRepository);
+        }
+
+        @Test
+        @DisplayName("should report a missing user when the foreign key rejects the upsert")
+        void shouldMapForeignKeyViolationToNotFound() throws Exception {
+            when(preferencesRepository.mergeCustomSettings(eq(testUserId), anyString()))
+                    .thenThrow(new DataIntegrityViolationException("fk_preferences_user"));
+
+            assertThatThrownBy(() -> userService.mergeCustomSettings(testUserId, objectMapper.readTree("{\"a\":1}")))
+                    .isInstanceOf(ResourceNotFoundException.class);
+        }
+
+        @Test
+        @DisplayName("should read one key with a quoted JSON path")
+        void shouldReadOneKey() {
+            when(preferencesRepository.findCustomSetting(testUserId, "$.\"layout.sidebar\"")).thenReturn(Optional.of("{\"width\": 280}"));
+
+            JsonNode value = userService.getCustomSetting(testUserId, "layout.sidebar");
+
+            assertThat(value.get("width").asInt()).isEqualTo(280);
+        }
+
+        @Test
+        @DisplayName("should distinguish a missing key from a missing user")
+        void shouldReportMissingKeyOrUser() {
+            UUID unknownUser = UUID.randomUUID();
+            when(preferencesRepository.findCustomSetting(any(), anyString())).thenReturn(Optional.empty());
+            when(userRepository.existsById(testUserId)).thenReturn(true);
+            when(userRepository.existsById(unknownUser)).thenReturn(false);
+
+            assertThatThrownBy(() -> userService.getCustomSetting(testUserId, "theme"))
+                    .isInstanceOf(ResourceNotFoundException.class)
+                    .hasMessageContaining("Custom setting");
+            assertThatThrownBy(() -> userService.getCustomSetting(unknownUser, "theme"))
+                    .isInstanceOf(ResourceNotFoundException.class)
+                    .hasMessage("User not found");
+        }
+
+        @Test
+        @DisplayName("should escape quotes and backslashes in keys")
+        void shouldEscapeKeys() {
+            assertThat(UserService.customSettingPath("a\"b\\c")).isEqualTo("$.\"a\\\"b\\\\c\"");
+            assertThatThrownBy(() -> UserService.customSettingPath(" ")).isInstanceOf(BadRequestException.class);
+        }
+    }
 }
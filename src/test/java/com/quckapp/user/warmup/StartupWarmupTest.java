@@ -0,0 +1,114 @@
+package com.quckapp.user.warmup;
+
+import com.quckapp.user.dto.UserDtos.UserSummaryResponse;
+import com.quckapp.user.security.jwt.JwtService;
+import com.quckapp.user.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StartupWarmup
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StartupWarmup Tests")
+class StartupWarmupTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private HotUserTracker hotUserTracker;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private JwtService jwtService;
+
+    private StartupWarmup warmup;
+
+    @BeforeEach
+    void setUp() {
+        warmup = new StartupWarmup(dataSource, hotUserTracker, userService, jwtService);
+        ReflectionTestUtils.setField(warmup, "hotUsers", 3);
+        ReflectionTestUtils.setField(warmup, "jitIterations", 5);
+        ReflectionTestUtils.setField(warmup, "timeout", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(warmup, "batchMaxIds", 2);
+        ReflectionTestUtils.setField(warmup, "jwtSecret", "bG9jYWwtZGV2LXNlY3JldC1rZXktZm9yLXRlc3Rpbmctb25seS0zMi1jaGFycw==");
+        ReflectionTestUtils.setField(warmup, "jwtIssuer", "quckapp-auth-local");
+    }
+
+    @Test
+    @DisplayName("should open connections, preload hot users in batches and exercise the hot paths")
+    void shouldRunEveryStep() throws SQLException {
+        List<UUID> hot = Stream.generate(UUID::randomUUID).limit(3).toList();
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(hotUserTracker.topUsers(3)).thenReturn(hot);
+        when(userService.getUsersByIds(anyList()))
+                .thenReturn(List.of(UserSummaryResponse.builder().id(hot.get(0)).username("hotuser").build()));
+
+        warmup.run(null);
+
+        verify(connection).close();
+        verify(userService).getUsersByIds(hot.subList(0, 2));
+        verify(userService).getUsersByIds(hot.subList(2, 3));
+        verify(userService, times(5)).getUserById(hot.get(0));
+        verify(userService, times(5)).getUserByUsername("hotuser");
+        verify(jwtService, times(5)).authenticate(anyString());
+        assertThat(warmup.getProgress().getState()).isEqualTo(WarmupProgress.State.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("should warm up with a token the real verifier never caches or accepts")
+    void shouldUseTokenThatDoesNotAuthenticate() {
+        JwtService realJwtService = new JwtService();
+        ReflectionTestUtils.setField(realJwtService, "jwtSecret", "bG9jYWwtZGV2LXNlY3JldC1rZXktZm9yLXRlc3Rpbmctb25seS0zMi1jaGFycw==");
+        ReflectionTestUtils.setField(realJwtService, "expectedIssuer", "quckapp-auth-local");
+        ReflectionTestUtils.setField(realJwtService, "verifiedCacheMaximumSize", 100L);
+        ReflectionTestUtils.invokeMethod(realJwtService, "init");
+        String token = ReflectionTestUtils.invokeMethod(warmup, "warmupToken");
+
+        assertThat(realJwtService.validateToken(token)).isTrue();
+        assertThat(realJwtService.authenticate(token)).isEmpty();
+        assertThat(realJwtService.authenticate(token)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should report a failed step and still run the others")
+    @SuppressWarnings("unchecked")
+    void shouldContinuePastFailedSteps() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLException("connection refused"));
+        when(hotUserTracker.topUsers(3)).thenReturn(List.of());
+
+        warmup.run(null);
+
+        Map<String, Object> steps = (Map<String, Object>) warmup.getProgress().toMap().get("steps");
+        assertThat((Map<String, Object>) steps.get(StartupWarmup.CONNECTIONS))
+                .containsEntry("state", WarmupProgress.State.FAILED);
+        assertThat((Map<String, Object>) steps.get(StartupWarmup.JIT))
+                .containsEntry("state", WarmupProgress.State.COMPLETED)
+                .containsEntry("done", 5L);
+        assertThat(warmup.getProgress().getState()).isEqualTo(WarmupProgress.State.FAILED);
+    }
+}